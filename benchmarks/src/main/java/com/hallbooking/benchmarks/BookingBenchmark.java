@@ -0,0 +1,116 @@
+package main.java.com.hallbooking.benchmarks;
+
+import main.java.com.hallbooking.common.exceptions.CustomExceptions.*;
+import main.java.com.hallbooking.part4_customer.BookingManager;
+import main.java.com.hallbooking.part4_customer.BookingOutcome;
+import main.java.com.hallbooking.part4_customer.BookingRequest;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// BookingManager.isHallAvailable, bookHall, bookHalls and cancelBooking against a generated data set.
+// The booking files are restored before every iteration so each one starts from the same state.
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class BookingBenchmark {
+    private static final int BATCH_SIZE = 20;
+
+    private BookingManager bookingManager;
+    private SyntheticData data;
+    private Random random;
+    private LocalDateTime futureSlots;
+    private int nextSlot;
+
+    @Setup(Level.Trial)
+    public void setUp(DataSet dataSet) {
+        bookingManager = new BookingManager();
+        data = dataSet.data;
+        random = new Random(7);
+        // Far enough ahead to be cancellable, and clear of every generated booking
+        futureSlots = LocalDateTime.now().plusYears(10).withHour(8).withMinute(0).withSecond(0).withNano(0);
+    }
+
+    @Setup(Level.Iteration)
+    public void restore(DataSet dataSet) {
+        dataSet.restoreBookings();
+        dataSet.warmCaches();
+    }
+
+    @Benchmark
+    public boolean isHallAvailable() {
+        String hallId = SyntheticData.hallId(random.nextInt(data.getHalls()));
+        LocalDateTime start = SyntheticData.EPOCH.plusDays(random.nextInt(data.bookingDays())).plusHours(random.nextInt(8));
+        return bookingManager.isHallAvailable(hallId, start, start.plusHours(2));
+    }
+
+    @Benchmark
+    public void bookHall() throws InvalidBookingException, HallNotFoundException {
+        bookNextSlot(SyntheticData.customerId(0));
+    }
+
+    // A group booking of BATCH_SIZE slots: once as one bookHalls call, once as that many bookHall calls
+    @Benchmark
+    public List<BookingOutcome> bookHallsBatch() {
+        List<BookingRequest> requests = new ArrayList<>(BATCH_SIZE);
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            requests.add(nextSlotRequest(SyntheticData.customerId(0)));
+        }
+        return bookingManager.bookHalls(requests, BookingManager.BatchMode.ALL_OR_NOTHING);
+    }
+
+    @Benchmark
+    public void bookHallSequence() throws InvalidBookingException, HallNotFoundException {
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            bookNextSlot(SyntheticData.customerId(0));
+        }
+    }
+
+    private BookingRequest nextSlotRequest(String customerId) {
+        int slot = nextSlot++;
+        LocalDateTime start = futureSlots.plusDays(slot / data.getHalls());
+        return new BookingRequest(customerId, SyntheticData.hallId(slot % data.getHalls()), start, start.plusHours(2));
+    }
+
+    private String bookNextSlot(String customerId) throws InvalidBookingException, HallNotFoundException {
+        int slot = nextSlot++;
+        LocalDateTime start = futureSlots.plusDays(slot / data.getHalls());
+        return bookingManager.bookHall(customerId, SyntheticData.hallId(slot % data.getHalls()), start, start.plusHours(2));
+    }
+
+    @State(Scope.Thread)
+    public static class Cancellation {
+        private static final String CUSTOMER_ID = "C-bench";
+
+        String bookingId;
+
+        // Untimed: books the slot that the next cancelBooking call removes
+        @Setup(Level.Invocation)
+        public void book(BookingBenchmark benchmark) throws InvalidBookingException, HallNotFoundException {
+            bookingId = benchmark.bookNextSlot(CUSTOMER_ID);
+        }
+    }
+
+    @Benchmark
+    public void cancelBooking(Cancellation cancellation) throws BookingNotFoundException, InvalidBookingException {
+        bookingManager.cancelBooking(cancellation.bookingId);
+    }
+}
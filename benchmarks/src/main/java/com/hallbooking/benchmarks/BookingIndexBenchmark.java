@@ -0,0 +1,109 @@
+package main.java.com.hallbooking.benchmarks;
+
+import main.java.com.hallbooking.common.index.BookingIndex;
+import main.java.com.hallbooking.common.utils.DateTimeUtils;
+import main.java.com.hallbooking.common.utils.FileHandler;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Random;
+
+// Compares the old bookings.txt scan against BookingIndex for isHallAvailable.
+// Usage: java -cp <classes> main.java.com.hallbooking.benchmarks.BookingIndexBenchmark [sizes...]
+public class BookingIndexBenchmark {
+    private static final int HALLS = 50;
+    private static final LocalDateTime EPOCH = LocalDateTime.of(2024, 1, 1, 8, 0);
+
+    public static void main(String[] args) throws IOException {
+        File dataDir = Files.createTempDirectory("hallbooking-bench").toFile();
+        // Must be set before FileHandler is first touched
+        System.setProperty("hallbooking.data.dir", dataDir.getPath());
+
+        int[] sizes = args.length > 0 ? parseSizes(args) : new int[]{10_000, 100_000, 1_000_000};
+        for (int size : sizes) {
+            run(dataDir, size);
+        }
+    }
+
+    private static void run(File dataDir, int size) throws IOException {
+        writeBookings(new File(dataDir, "bookings.txt"), size);
+        Random random = new Random(42);
+
+        int legacyQueries = Math.max(3, 2_000_000 / size);
+        long legacyStart = System.nanoTime();
+        int legacyFree = 0;
+        for (int i = 0; i < legacyQueries; i++) {
+            LocalDateTime start = randomSlot(random, size);
+            if (legacyIsHallAvailable("H" + random.nextInt(HALLS), start, start.plusHours(2))) {
+                legacyFree++;
+            }
+        }
+        long legacyNanos = (System.nanoTime() - legacyStart) / legacyQueries;
+
+        long loadStart = System.nanoTime();
+        BookingIndex index = new BookingIndex();
+        index.load(FileHandler.readFromFile("bookings.txt", line -> line));
+        long loadMillis = (System.nanoTime() - loadStart) / 1_000_000;
+
+        int indexQueries = 1_000_000;
+        long indexStart = System.nanoTime();
+        int indexFree = 0;
+        for (int i = 0; i < indexQueries; i++) {
+            LocalDateTime start = randomSlot(random, size);
+            if (index.isHallAvailable("H" + random.nextInt(HALLS), start, start.plusHours(2))) {
+                indexFree++;
+            }
+        }
+        long indexNanos = (System.nanoTime() - indexStart) / indexQueries;
+
+        System.out.printf("bookings=%,d  scan=%,d ns/query (%d/%d free)  index=%,d ns/query (%d/%d free)  index load=%d ms%n",
+                size, legacyNanos, legacyFree, legacyQueries, indexNanos, indexFree, indexQueries, loadMillis);
+    }
+
+    // The pre-index BookingManager.isHallAvailable body
+    private static boolean legacyIsHallAvailable(String hallId, LocalDateTime start, LocalDateTime end) {
+        List<String> bookings = FileHandler.readFromFile("bookings.txt", line -> line);
+        return bookings.stream().noneMatch(b -> {
+            String[] parts = b.split(",");
+            if (parts.length != 6) {
+                return false;
+            }
+            LocalDateTime bookedStart = DateTimeUtils.parseDateTime(parts[3]);
+            LocalDateTime bookedEnd = DateTimeUtils.parseDateTime(parts[4]);
+            return parts[2].equals(hallId) && (start.isBefore(bookedEnd) && end.isAfter(bookedStart));
+        });
+    }
+
+    private static void writeBookings(File file, int size) throws IOException {
+        Random random = new Random(7);
+        try (BufferedWriter writer = new BufferedWriter(new FileWriter(file))) {
+            for (int i = 0; i < size; i++) {
+                LocalDateTime start = randomSlot(random, size);
+                int hours = 1 + random.nextInt(4);
+                writer.write(String.join(",", "B" + i, "C" + random.nextInt(10_000), "H" + random.nextInt(HALLS),
+                        DateTimeUtils.formatDateTime(start), DateTimeUtils.formatDateTime(start.plusHours(hours)),
+                        String.valueOf(hours * 100.0)));
+                writer.newLine();
+            }
+        }
+    }
+
+    // Spreads bookings over enough days that roughly half of the probes hit a free slot
+    private static LocalDateTime randomSlot(Random random, int size) {
+        int days = Math.max(1, size / HALLS / 2);
+        return EPOCH.plusDays(random.nextInt(days)).plusHours(random.nextInt(8));
+    }
+
+    private static int[] parseSizes(String[] args) {
+        int[] sizes = new int[args.length];
+        for (int i = 0; i < args.length; i++) {
+            sizes[i] = Integer.parseInt(args[i].replace("_", ""));
+        }
+        return sizes;
+    }
+}
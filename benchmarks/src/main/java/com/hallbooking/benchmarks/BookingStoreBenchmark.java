@@ -0,0 +1,92 @@
+package main.java.com.hallbooking.benchmarks;
+
+import main.java.com.hallbooking.common.index.BookingStore;
+import main.java.com.hallbooking.common.models.Booking;
+import main.java.com.hallbooking.common.utils.DateTimeUtils;
+import main.java.com.hallbooking.common.utils.FileHandler;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// Revenue of one hall over a 30-day window, scanned over every booking: once over the columnar
+// BookingStore and once over a list of Booking objects with their amounts alongside, the way the
+// screens held them before. Run with -prof gc to compare allocation; estimatedBytes is printed at setup.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class BookingStoreBenchmark {
+    private BookingStore store;
+    private List<Booking> bookings;
+    private double[] amounts;
+    private SyntheticData data;
+    private Random random;
+
+    @Setup(Level.Trial)
+    public void setUp(DataSet dataSet) throws IOException {
+        data = dataSet.data;
+        random = new Random(7);
+        store = BookingStore.read("bookings.txt");
+        bookings = new ArrayList<>();
+        List<Double> parsedAmounts = new ArrayList<>();
+        for (String line : FileHandler.readFromFile("bookings.txt", line -> line)) {
+            String[] parts = line.split(",");
+            bookings.add(new Booking(parts[0], parts[1], parts[2],
+                    DateTimeUtils.parseDateTime(parts[3]), DateTimeUtils.parseDateTime(parts[4])));
+            parsedAmounts.add(Double.parseDouble(parts[5]));
+        }
+        amounts = parsedAmounts.stream().mapToDouble(Double::doubleValue).toArray();
+        System.err.printf("BookingStore: %,d bookings in about %,d bytes of columns%n", store.size(), store.estimatedBytes());
+    }
+
+    @Benchmark
+    public long hallRevenueStore() {
+        String hallId = SyntheticData.hallId(random.nextInt(data.getHalls()));
+        LocalDateTime from = SyntheticData.EPOCH.plusDays(random.nextInt(data.bookingDays()));
+        int hallCode = store.hallCodeOf(hallId);
+        int fromMinute = BookingStore.toEpochMinute(from);
+        int toMinute = BookingStore.toEpochMinute(from.plusDays(30));
+        long cents = 0;
+        for (int row = 0; row < store.rowCount(); row++) {
+            int start = store.startMinute(row);
+            if (store.hallCode(row) == hallCode && start >= fromMinute && start < toMinute && store.isLive(row)) {
+                cents += store.amountCents(row);
+            }
+        }
+        return cents;
+    }
+
+    @Benchmark
+    public double hallRevenueObjects() {
+        String hallId = SyntheticData.hallId(random.nextInt(data.getHalls()));
+        LocalDateTime from = SyntheticData.EPOCH.plusDays(random.nextInt(data.bookingDays()));
+        LocalDateTime to = from.plusDays(30);
+        double total = 0;
+        for (int i = 0; i < bookings.size(); i++) {
+            Booking booking = bookings.get(i);
+            LocalDateTime start = booking.getStartDateTime();
+            if (booking.getHallId().equals(hallId) && !start.isBefore(from) && start.isBefore(to)) {
+                total += amounts[i];
+            }
+        }
+        return total;
+    }
+}
@@ -0,0 +1,261 @@
+package main.java.com.hallbooking.benchmarks;
+
+import main.java.com.hallbooking.common.exceptions.CustomExceptions.*;
+import main.java.com.hallbooking.common.index.OccupancyCalendar;
+import main.java.com.hallbooking.common.index.SlotReservations;
+import main.java.com.hallbooking.common.utils.DateTimeUtils;
+import main.java.com.hallbooking.common.utils.FileHandler;
+import main.java.com.hallbooking.part4_customer.BookingManager;
+import main.java.com.hallbooking.part4_customer.BookingOutcome;
+import main.java.com.hallbooking.part4_customer.BookingRequest;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Many threads booking a handful of halls at once, then bookings.txt checked for any two bookings
+// of one hall that overlap. Four rounds: every thread racing for the same slot, random overlapping
+// slots on a few halls (bookHall and bookHalls mixed), the same again while another thread keeps
+// dropping the shared OccupancyCalendar as availability edits do, and threads on disjoint halls
+// for throughput.
+// Exits with status 1 when a double booking or a lost booking is found.
+// Usage: java -cp <classes> main.java.com.hallbooking.benchmarks.BookingStressTest [threads] [attemptsPerThread]
+public class BookingStressTest {
+    private static final int HALLS = 32;
+    private static final int CONTENDED_HALLS = 4;
+    private static final int RACES = 200;
+
+    private static BookingManager bookingManager;
+    private static LocalDateTime futureSlots;
+
+    public static void main(String[] args) throws Exception {
+        int threads = args.length > 0 ? Integer.parseInt(args[0]) : 16;
+        int attempts = args.length > 1 ? Integer.parseInt(args[1]) : 200;
+
+        Path dataDir = Files.createTempDirectory("hallbooking-stress");
+        new SyntheticData(1_000, HALLS, 100).writeTo(dataDir);
+        // Must be set before FileHandler is first touched
+        System.setProperty("hallbooking.data.dir", dataDir.toString());
+        System.setProperty("hallbooking.log.level", "WARN");
+
+        bookingManager = new BookingManager();
+        // Far enough ahead to be clear of every generated booking and maintenance window
+        futureSlots = LocalDateTime.now().plusYears(10).withHour(8).withMinute(0).withSecond(0).withNano(0);
+
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            int sameSlotWins = sameSlotRaces(pool, threads);
+            System.out.printf("same slot:    %d races, %d won (want %d)%n", RACES, sameSlotWins, RACES);
+
+            long start = System.nanoTime();
+            int contendedWins = contendedBookings(pool, threads, attempts, futureSlots.plusYears(1));
+            long contendedMillis = (System.nanoTime() - start) / 1_000_000;
+            System.out.printf("contended:    %,d attempts on %d halls, %,d booked in %,d ms%n",
+                    threads * attempts, CONTENDED_HALLS, contendedWins, contendedMillis);
+
+            int[] invalidations = new int[1];
+            start = System.nanoTime();
+            int invalidatedWins = invalidatedBookings(pool, threads, attempts, invalidations);
+            long invalidatedMillis = (System.nanoTime() - start) / 1_000_000;
+            System.out.printf("invalidated:  %,d attempts on %d halls, %,d booked in %,d ms, calendar dropped %,d times%n",
+                    threads * attempts, CONTENDED_HALLS, invalidatedWins, invalidatedMillis, invalidations[0]);
+
+            start = System.nanoTime();
+            int disjointWins = disjointBookings(pool, threads, attempts);
+            long disjointMillis = (System.nanoTime() - start) / 1_000_000;
+            System.out.printf("disjoint:     %,d attempts, %,d booked in %,d ms (%,d bookings/s)%n",
+                    threads * attempts, disjointWins, disjointMillis, disjointWins * 1000L / Math.max(1, disjointMillis));
+
+            int expected = sameSlotWins + contendedWins + invalidatedWins + disjointWins;
+            int problems = verify(expected);
+            if (sameSlotWins != RACES) {
+                problems++;
+            }
+            System.out.println(problems == 0 ? "OK: no double bookings" : "FAILED: " + problems + " problem(s)");
+            System.exit(problems == 0 ? 0 : 1);
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    // Every thread asks for the same hall and slot at the same moment; exactly one may win each race
+    private static int sameSlotRaces(ExecutorService pool, int threads) throws Exception {
+        int wins = 0;
+        for (int race = 0; race < RACES; race++) {
+            LocalDateTime start = futureSlots.plusDays(race);
+            String hallId = SyntheticData.hallId(race % CONTENDED_HALLS);
+            CyclicBarrier barrier = new CyclicBarrier(threads);
+            List<Future<Boolean>> results = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                String customerId = SyntheticData.customerId(t);
+                results.add(pool.submit(() -> {
+                    barrier.await();
+                    return tryBook(customerId, hallId, start, start.plusHours(2));
+                }));
+            }
+            for (Future<Boolean> result : results) {
+                if (result.get()) {
+                    wins++;
+                }
+            }
+        }
+        return wins;
+    }
+
+    // Random one- to three-hour slots on a few halls over a short stretch of days, so most attempts collide
+    private static int contendedBookings(ExecutorService pool, int threads, int attempts, LocalDateTime base) throws Exception {
+        AtomicInteger wins = new AtomicInteger();
+        List<Future<?>> results = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            int thread = t;
+            results.add(pool.submit(() -> {
+                Random random = new Random(thread);
+                String customerId = SyntheticData.customerId(thread);
+                for (int i = 0; i < attempts; i++) {
+                    if (i % 10 == 0) {
+                        List<BookingRequest> batch = new ArrayList<>();
+                        for (int j = 0; j < 3; j++) {
+                            batch.add(randomRequest(random, customerId, base));
+                        }
+                        BookingManager.BatchMode mode = random.nextBoolean()
+                                ? BookingManager.BatchMode.ALL_OR_NOTHING : BookingManager.BatchMode.BEST_EFFORT;
+                        for (BookingOutcome outcome : bookingManager.bookHalls(batch, mode)) {
+                            if (outcome.isBooked()) {
+                                wins.incrementAndGet();
+                            }
+                        }
+                    } else {
+                        BookingRequest request = randomRequest(random, customerId, base);
+                        if (tryBook(customerId, request.getHallId(), request.getStartDateTime(), request.getEndDateTime())) {
+                            wins.incrementAndGet();
+                        }
+                    }
+                }
+                return null;
+            }));
+        }
+        for (Future<?> result : results) {
+            result.get();
+        }
+        return wins.get();
+    }
+
+    // The contended round again on days of its own, with the calendar dropped over and over meanwhile,
+    // so bookers check against calendars rebuilt under them. invalidations[0] gets the number of drops
+    private static int invalidatedBookings(ExecutorService pool, int threads, int attempts, int[] invalidations)
+            throws Exception {
+        AtomicBoolean done = new AtomicBoolean();
+        Thread invalidator = new Thread(() -> {
+            while (!done.get()) {
+                OccupancyCalendar.invalidate();
+                invalidations[0]++;
+                Thread.yield();
+            }
+        }, "calendar-invalidator");
+        invalidator.start();
+        try {
+            return contendedBookings(pool, threads, attempts, futureSlots.plusYears(1).plusMonths(1));
+        } finally {
+            done.set(true);
+            invalidator.join();
+        }
+    }
+
+    // Each thread books its own hall, one free slot after another; every attempt should succeed
+    private static int disjointBookings(ExecutorService pool, int threads, int attempts) throws Exception {
+        LocalDateTime base = futureSlots.plusYears(2);
+        AtomicInteger wins = new AtomicInteger();
+        List<Future<?>> results = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            String hallId = SyntheticData.hallId(CONTENDED_HALLS + t % (HALLS - CONTENDED_HALLS));
+            String customerId = SyntheticData.customerId(t);
+            int lane = t / (HALLS - CONTENDED_HALLS);
+            results.add(pool.submit(() -> {
+                for (int i = 0; i < attempts; i++) {
+                    LocalDateTime start = base.plusDays(i).plusHours(2L * lane);
+                    if (tryBook(customerId, hallId, start, start.plusHours(2))) {
+                        wins.incrementAndGet();
+                    }
+                }
+                return null;
+            }));
+        }
+        for (Future<?> result : results) {
+            result.get();
+        }
+        return wins.get();
+    }
+
+    private static BookingRequest randomRequest(Random random, String customerId, LocalDateTime base) {
+        LocalDateTime start = base.plusDays(random.nextInt(5)).plusHours(random.nextInt(10));
+        return new BookingRequest(customerId, SyntheticData.hallId(random.nextInt(CONTENDED_HALLS)),
+                start, start.plusHours(1 + random.nextInt(3)));
+    }
+
+    private static boolean tryBook(String customerId, String hallId, LocalDateTime start, LocalDateTime end) {
+        try {
+            bookingManager.bookHall(customerId, hallId, start, end);
+            return true;
+        } catch (InvalidBookingException | HallNotFoundException e) {
+            return false;
+        }
+    }
+
+    // Rereads bookings.txt: no two bookings of a hall may overlap, every win must be on disk,
+    // and no reservation may be left behind
+    private static int verify(int expected) throws IOException {
+        Map<String, List<LocalDateTime[]>> byHall = new HashMap<>();
+        int written = 0;
+        for (String line : FileHandler.readFromFile("bookings.txt", line -> line)) {
+            String[] parts = line.split(",");
+            if (parts.length != 6) {
+                continue;
+            }
+            LocalDateTime start = DateTimeUtils.parseDateTime(parts[3]);
+            if (start.isBefore(futureSlots)) {
+                continue;
+            }
+            written++;
+            byHall.computeIfAbsent(parts[2], id -> new ArrayList<>())
+                    .add(new LocalDateTime[]{start, DateTimeUtils.parseDateTime(parts[4])});
+        }
+
+        int problems = 0;
+        for (Map.Entry<String, List<LocalDateTime[]>> hall : byHall.entrySet()) {
+            List<LocalDateTime[]> slots = hall.getValue();
+            slots.sort(Comparator.comparing(slot -> slot[0]));
+            for (int i = 1; i < slots.size(); i++) {
+                if (slots.get(i)[0].isBefore(slots.get(i - 1)[1])) {
+                    System.out.printf("double booking on %s: %s-%s and %s-%s%n", hall.getKey(), slots.get(i - 1)[0],
+                            slots.get(i - 1)[1], slots.get(i)[0], slots.get(i)[1]);
+                    problems++;
+                }
+            }
+        }
+        if (written != expected) {
+            System.out.printf("%,d bookings reported, %,d written%n", expected, written);
+            problems++;
+        }
+        for (int hall = 0; hall < HALLS; hall++) {
+            int held = SlotReservations.getInstance().heldCount(SyntheticData.hallId(hall));
+            if (held != 0) {
+                System.out.printf("%d reservation(s) still held on %s%n", held, SyntheticData.hallId(hall));
+                problems++;
+            }
+        }
+        return problems;
+    }
+}
@@ -0,0 +1,75 @@
+package main.java.com.hallbooking.benchmarks;
+
+import main.java.com.hallbooking.common.index.BookingIndex;
+import main.java.com.hallbooking.common.utils.FileHandler;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+// A random customer's future bookings, split around the middle of the generated history so both
+// sides are populated: the file scan CustomerManager.getFutureBookings used to do, against the
+// customer's timeline in BookingIndex. Fewer customers make heavier ones, e.g. -p customers=10
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class CustomerBookingsBenchmark {
+    private SyntheticData data;
+    private LocalDateTime now;
+    private Random random;
+
+    @Setup(Level.Trial)
+    public void setUp(DataSet dataSet) {
+        dataSet.warmCaches();
+        data = dataSet.data;
+        now = SyntheticData.EPOCH.plusDays(data.bookingDays() / 2);
+        random = new Random(7);
+    }
+
+    @Benchmark
+    public List<String> futureBookingsScan() {
+        String customerId = SyntheticData.customerId(random.nextInt(data.getCustomers()));
+        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm");
+        return FileHandler.readFromFile("bookings.txt", line -> line).stream()
+                .filter(b -> b.split(",")[1].equals(customerId))
+                .filter(booking -> {
+                    try {
+                        return LocalDateTime.parse(booking.split(",")[3], formatter).isAfter(now);
+                    } catch (DateTimeParseException e) {
+                        return false;
+                    }
+                })
+                .collect(Collectors.toList());
+    }
+
+    @Benchmark
+    public List<String> futureBookingsTimeline() {
+        String customerId = SyntheticData.customerId(random.nextInt(data.getCustomers()));
+        return BookingIndex.getInstance().getBookingsStartingAfter(customerId, now);
+    }
+
+    @Benchmark
+    public List<String> pastBookingsTimeline() {
+        String customerId = SyntheticData.customerId(random.nextInt(data.getCustomers()));
+        return BookingIndex.getInstance().getBookingsEndedBefore(customerId, now);
+    }
+}
@@ -0,0 +1,94 @@
+package main.java.com.hallbooking.benchmarks;
+
+import main.java.com.hallbooking.common.index.BookingIndex;
+import main.java.com.hallbooking.common.index.MaintenanceIndex;
+import main.java.com.hallbooking.common.index.OccupancyCalendar;
+import main.java.com.hallbooking.common.index.RevenueCube;
+import main.java.com.hallbooking.common.repository.HallRepository;
+import main.java.com.hallbooking.common.utils.FileHandler;
+
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.stream.Stream;
+
+// A generated data directory shared by every benchmark in a fork. Scale and storage engine are
+// JMH parameters, e.g. -p bookings=10000,100000,1000000 -p storage=csv,log
+@State(Scope.Benchmark)
+public class DataSet {
+    @Param({"10000"})
+    public int bookings;
+
+    @Param({"200"})
+    public int halls;
+
+    @Param({"10000"})
+    public int customers;
+
+    @Param({"csv"})
+    public String storage;
+
+    public SyntheticData data;
+    private Path directory;
+    private Path pristine;
+    private PrintStream originalOut;
+
+    @Setup
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("hallbooking-jmh");
+        pristine = Files.createDirectory(directory.resolve("pristine"));
+        data = new SyntheticData(bookings, halls, customers);
+        data.writeTo(pristine);
+        try (Stream<Path> files = Files.list(pristine)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                Files.copy(file, directory.resolve(file.getFileName()));
+            }
+        }
+        // FileHandler and Logger read these properties once, when it is first loaded, which must be after this point
+        System.setProperty("hallbooking.data.dir", directory.toString());
+        System.setProperty("hallbooking.storage", storage);
+        System.setProperty("hallbooking.log.level", "WARN");
+
+        // The code under test prints diagnostics on several of these paths; keep them off the console
+        originalOut = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+    }
+
+    // Puts the booking files back as generated, for benchmarks that add or cancel bookings
+    public void restoreBookings() {
+        FileHandler.importFromCsv("bookings.txt", pristine.resolve("bookings.txt").toString());
+        FileHandler.importFromCsv("history.txt", pristine.resolve("history.txt").toString());
+        BookingIndex.invalidate();
+        RevenueCube.invalidate();
+        OccupancyCalendar.invalidate();
+        BookingIndex.getInstance();
+        RevenueCube.getInstance();
+        OccupancyCalendar.getInstance();
+    }
+
+    // Loads the resident indexes outside the measured region
+    public void warmCaches() {
+        BookingIndex.getInstance();
+        RevenueCube.getInstance();
+        MaintenanceIndex.getInstance();
+        OccupancyCalendar.getInstance();
+        HallRepository.getInstance().getAllHalls();
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        System.setOut(originalOut);
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+}
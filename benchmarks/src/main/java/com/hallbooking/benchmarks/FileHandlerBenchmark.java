@@ -0,0 +1,41 @@
+package main.java.com.hallbooking.benchmarks;
+
+import main.java.com.hallbooking.common.utils.FileHandler;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Whole-file reads of bookings.txt through FileHandler; scales with the bookings parameter
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class FileHandlerBenchmark {
+
+    @Benchmark
+    public List<String> readFromFile(DataSet dataSet) {
+        return FileHandler.readFromFile("bookings.txt", line -> line);
+    }
+
+    @Benchmark
+    public void scanFile(DataSet dataSet, Blackhole blackhole) throws IOException {
+        FileHandler.scanFile("bookings.txt", record -> {
+            blackhole.consume(record.doubleField(5));
+            return true;
+        });
+    }
+}
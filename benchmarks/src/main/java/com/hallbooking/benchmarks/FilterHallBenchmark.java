@@ -0,0 +1,66 @@
+package main.java.com.hallbooking.benchmarks;
+
+import main.java.com.hallbooking.common.models.Hall;
+import main.java.com.hallbooking.part3_scheduler.FilterHall;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// FilterHall.filterHalls with the criteria offered by FilterHallGUI; scales with the halls parameter
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class FilterHallBenchmark {
+    @Param({"location", "type", "capacity", "id"})
+    public String criteria;
+
+    private FilterHall filterHall;
+    private int halls;
+    private Random random;
+
+    @Setup(Level.Trial)
+    public void setUp(DataSet dataSet) {
+        filterHall = new FilterHall();
+        filterHall.loadHallsFromFile("hall.txt");
+        halls = dataSet.data.getHalls();
+        random = new Random(7);
+    }
+
+    @Benchmark
+    public List<Hall> filterHalls() {
+        return filterHall.filterHalls(criteria, nextValue());
+    }
+
+    // Misspelt now and then, as typed into the search box
+    private String nextValue() {
+        switch (criteria) {
+            case "location":
+                String location = SyntheticData.LOCATIONS[random.nextInt(SyntheticData.LOCATIONS.length)];
+                return random.nextInt(4) == 0 ? location.substring(1) : location;
+            case "type":
+                Hall.HallType[] types = Hall.HallType.values();
+                return types[random.nextInt(types.length)].name().toLowerCase();
+            case "capacity":
+                return String.valueOf(25 + random.nextInt(1000));
+            default:
+                return SyntheticData.hallId(random.nextInt(halls));
+        }
+    }
+}
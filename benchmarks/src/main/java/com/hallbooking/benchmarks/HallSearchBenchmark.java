@@ -0,0 +1,79 @@
+package main.java.com.hallbooking.benchmarks;
+
+import main.java.com.hallbooking.common.index.HallQuery;
+import main.java.com.hallbooking.common.models.Hall;
+import main.java.com.hallbooking.common.repository.HallRepository;
+import main.java.com.hallbooking.part4_customer.BookingManager;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+// The booking screen's compound search ("banquet halls, capacity >= 200, rate <= 150, free for
+// two hours"), through the hall search indexes and as a scan of every hall with a per-hall
+// availability check, the way filterHalls worked before. Scales with the halls parameter.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class HallSearchBenchmark {
+    private BookingManager bookingManager;
+    private SyntheticData data;
+    private Random random;
+
+    @Setup(Level.Trial)
+    public void setUp(DataSet dataSet) {
+        bookingManager = new BookingManager();
+        data = dataSet.data;
+        random = new Random(7);
+        dataSet.warmCaches();
+    }
+
+    @Benchmark
+    public List<Hall> searchIndexed() {
+        LocalDateTime start = randomStart();
+        return HallRepository.getInstance().search(new HallQuery()
+                .type(randomType())
+                .minCapacity(200)
+                .maxRate(150)
+                .freeBetween(start, start.plusHours(2)));
+    }
+
+    @Benchmark
+    public List<Hall> searchScan() {
+        LocalDateTime start = randomStart();
+        LocalDateTime end = start.plusHours(2);
+        Hall.HallType type = randomType();
+        return HallRepository.getInstance().getAllHalls().stream()
+                .filter(hall -> hall.getType() == type && hall.getCapacity() >= 200
+                        && hall.getRate().doubleValue() <= 150
+                        && bookingManager.isHallAvailable(hall.getId(), start, end)
+                        && !bookingManager.isHallUnderMaintenance(hall.getId(), start, end))
+                .collect(Collectors.toList());
+    }
+
+    private Hall.HallType randomType() {
+        Hall.HallType[] types = Hall.HallType.values();
+        return types[random.nextInt(types.length)];
+    }
+
+    private LocalDateTime randomStart() {
+        return SyntheticData.EPOCH.plusDays(random.nextInt(data.bookingDays())).plusHours(random.nextInt(8));
+    }
+}
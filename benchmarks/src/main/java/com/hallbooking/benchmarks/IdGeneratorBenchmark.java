@@ -0,0 +1,45 @@
+package main.java.com.hallbooking.benchmarks;
+
+import main.java.com.hallbooking.common.utils.IdGenerator;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+// IdGenerator against the UUID-based maintenance IDs it replaced, alone and with four threads
+// taking IDs at once. Needs no data set.
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class IdGeneratorBenchmark {
+    @Benchmark
+    public long nextId() {
+        return IdGenerator.nextId();
+    }
+
+    @Benchmark
+    @Threads(4)
+    public long nextIdConcurrent() {
+        return IdGenerator.nextId();
+    }
+
+    @Benchmark
+    public String bookingId() {
+        return IdGenerator.next(IdGenerator.Entity.BOOKING);
+    }
+
+    @Benchmark
+    public String uuidMaintenanceId() {
+        return "M" + UUID.randomUUID().toString().substring(0, 8).toUpperCase();
+    }
+}
@@ -0,0 +1,54 @@
+package main.java.com.hallbooking.benchmarks;
+
+import main.java.com.hallbooking.common.exceptions.CustomExceptions.*;
+import main.java.com.hallbooking.common.models.User;
+import main.java.com.hallbooking.part1_login.LoginManager;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// LoginManager.login for a random generated customer; scales with the customers parameter.
+// loginConcurrent measures the sustained rate with several threads logging in at once.
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class LoginBenchmark {
+    private LoginManager loginManager;
+    private int customers;
+    private Random random;
+
+    @Setup(Level.Trial)
+    public void setUp(DataSet dataSet) {
+        loginManager = new LoginManager();
+        customers = dataSet.data.getCustomers();
+        random = new Random(7);
+    }
+
+    @Benchmark
+    public User login() throws InvalidCredentialsException, UserNotFoundException {
+        int customer = random.nextInt(customers);
+        return loginManager.login(SyntheticData.customerId(customer), SyntheticData.customerPassword(customer));
+    }
+
+    @Benchmark
+    @Threads(4)
+    public User loginConcurrent() throws InvalidCredentialsException, UserNotFoundException {
+        return login();
+    }
+}
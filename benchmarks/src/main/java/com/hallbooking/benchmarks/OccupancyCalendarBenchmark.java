@@ -0,0 +1,95 @@
+package main.java.com.hallbooking.benchmarks;
+
+import main.java.com.hallbooking.common.index.MaintenanceIndex;
+import main.java.com.hallbooking.common.index.OccupancyCalendar;
+import main.java.com.hallbooking.common.utils.DateTimeUtils;
+import main.java.com.hallbooking.common.utils.FileHandler;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// Maintenance checks as a maintenance.txt scan (the way BookingManager did them) and from
+// MaintenanceIndex, booked checks from the slot calendar, plus a whole month grid for every hall,
+// which the month view builds per page.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class OccupancyCalendarBenchmark {
+    private static final LocalTime OPENING = LocalTime.of(8, 0);
+    private static final LocalTime CLOSING = LocalTime.of(18, 0);
+
+    private SyntheticData data;
+    private Random random;
+    private List<String> hallIds;
+
+    @Setup(Level.Trial)
+    public void setUp(DataSet dataSet) {
+        data = dataSet.data;
+        random = new Random(7);
+        hallIds = new ArrayList<>();
+        for (int hall = 0; hall < data.getHalls(); hall++) {
+            hallIds.add(SyntheticData.hallId(hall));
+        }
+        dataSet.warmCaches();
+    }
+
+    @Benchmark
+    public boolean maintenanceScan() {
+        String hallId = SyntheticData.hallId(random.nextInt(data.getHalls()));
+        LocalDateTime start = randomStart();
+        LocalDateTime end = start.plusHours(2);
+        for (String line : FileHandler.readFromFile("maintenance.txt", l -> l)) {
+            String[] parts = line.split(",");
+            if (parts.length >= 4 && parts[1].equals(hallId)
+                    && start.isBefore(DateTimeUtils.parseDateTime(parts[3]))
+                    && DateTimeUtils.parseDateTime(parts[2]).isBefore(end)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Benchmark
+    public boolean maintenanceIndex() {
+        String hallId = SyntheticData.hallId(random.nextInt(data.getHalls()));
+        LocalDateTime start = randomStart();
+        return MaintenanceIndex.getInstance().overlaps(hallId, start, start.plusHours(2));
+    }
+
+    @Benchmark
+    public boolean bookedCalendar() {
+        String hallId = SyntheticData.hallId(random.nextInt(data.getHalls()));
+        LocalDateTime start = randomStart();
+        return OccupancyCalendar.getInstance().isBooked(hallId, start, start.plusHours(2));
+    }
+
+    @Benchmark
+    public OccupancyCalendar.MonthGrid monthGrid() {
+        YearMonth month = YearMonth.from(SyntheticData.EPOCH.plusDays(random.nextInt(data.bookingDays())));
+        return OccupancyCalendar.getInstance().monthGrid(month, hallIds, OPENING, CLOSING);
+    }
+
+    private LocalDateTime randomStart() {
+        return SyntheticData.EPOCH.plusDays(random.nextInt(data.bookingDays())).plusHours(random.nextInt(8));
+    }
+}
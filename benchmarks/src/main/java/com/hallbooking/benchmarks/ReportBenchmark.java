@@ -0,0 +1,51 @@
+package main.java.com.hallbooking.benchmarks;
+
+import main.java.com.hallbooking.part5_manager.ReportGenerator;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDateTime;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// ReportGenerator.generateCustomReport over a randomly placed window of rangeDays days,
+// the way ReportScreen calls it (start of the first day to 23:59 on the last)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class ReportBenchmark {
+    @Param({"30"})
+    public int rangeDays;
+
+    private ReportGenerator reportGenerator;
+    private int days;
+    private Random random;
+
+    @Setup(Level.Trial)
+    public void setUp(DataSet dataSet) {
+        dataSet.warmCaches();
+        reportGenerator = new ReportGenerator();
+        days = dataSet.data.bookingDays();
+        random = new Random(7);
+    }
+
+    @Benchmark
+    public String generateCustomReport() {
+        LocalDateTime start = SyntheticData.EPOCH.toLocalDate().plusDays(random.nextInt(days)).atStartOfDay();
+        return reportGenerator.generateCustomReport(start, start.plusDays(rangeDays - 1).withHour(23).withMinute(59));
+    }
+}
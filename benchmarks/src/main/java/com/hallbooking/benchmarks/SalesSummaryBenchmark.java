@@ -0,0 +1,124 @@
+package main.java.com.hallbooking.benchmarks;
+
+import main.java.com.hallbooking.common.index.BookingStore;
+import main.java.com.hallbooking.part5_manager.SalesSummary;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.Calendar;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+// The sales screen's data: every period, the amount histogram and the totals of bookings.txt and
+// history.txt, folded by SalesSummary as the files are scanned, against reading both into
+// BookingStores and grouping them afterwards, as the screen used to. The history is generated once
+// per fork and is 10 million bookings by default; run with -prof gc to compare what each allocates.
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+@State(Scope.Benchmark)
+public class SalesSummaryBenchmark {
+    @Param({"10000000"})
+    public int bookings;
+
+    private Path directory;
+
+    @Setup
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("hallbooking-sales");
+        new SyntheticData(bookings, 200, 10000).writeTo(directory);
+        System.setProperty("hallbooking.data.dir", directory.toString());
+        System.setProperty("hallbooking.log.level", "WARN");
+    }
+
+    @Benchmark
+    public SalesSummary[] streamed() throws IOException {
+        return new SalesSummary[]{SalesSummary.of("bookings.txt", 10), SalesSummary.of("history.txt", 0)};
+    }
+
+    @Benchmark
+    public Object[] materialized() throws IOException {
+        BookingStore confirmed = BookingStore.read("bookings.txt");
+        BookingStore canceled = BookingStore.read("history.txt");
+        Map<String, Map<LocalDateTime, Double>> periods = new HashMap<>();
+        for (String period : SalesSummary.PERIODS) {
+            int field = period.equals("Weekly") ? Calendar.WEEK_OF_YEAR : period.equals("Monthly") ? Calendar.MONTH : Calendar.YEAR;
+            periods.put("confirmed " + period, salesByPeriod(confirmed, field));
+            periods.put("canceled " + period, salesByPeriod(canceled, field));
+        }
+        return new Object[]{periods, histogram(confirmed, 10), confirmed.totalCents(), canceled.totalCents()};
+    }
+
+    private static int[] histogram(BookingStore sales, int numBins) {
+        long maxCents = 0;
+        for (int row = 0; row < sales.rowCount(); row++) {
+            if (sales.isLive(row)) {
+                maxCents = Math.max(maxCents, sales.amountCents(row));
+            }
+        }
+        double binSize = maxCents / (double) BookingStore.AMOUNT_SCALE / numBins;
+        int[] bins = new int[numBins];
+        for (int row = 0; row < sales.rowCount(); row++) {
+            if (sales.isLive(row)) {
+                int binIndex = (int) (sales.amountCents(row) / (double) BookingStore.AMOUNT_SCALE / binSize);
+                bins[Math.min(binIndex, numBins - 1)]++;
+            }
+        }
+        return bins;
+    }
+
+    private static Map<LocalDateTime, Double> salesByPeriod(BookingStore sales, int calendarField) {
+        Map<LocalDateTime, Double> salesByPeriod = new TreeMap<>();
+        Map<Integer, LocalDateTime> periodByDay = new HashMap<>();
+        sales.forEach(sale -> {
+            LocalDateTime periodStart = periodByDay.computeIfAbsent(Math.floorDiv(sale.getStartMinute(), 24 * 60),
+                    day -> periodStart(sale.getStartDateTime(), calendarField));
+            salesByPeriod.merge(periodStart, sale.getAmount(), Double::sum);
+        });
+        return salesByPeriod;
+    }
+
+    private static LocalDateTime periodStart(LocalDateTime date, int calendarField) {
+        Calendar calendar = Calendar.getInstance();
+        calendar.setTime(java.sql.Timestamp.valueOf(date));
+        calendar.set(Calendar.DAY_OF_WEEK, calendar.getFirstDayOfWeek());
+        calendar.set(Calendar.HOUR_OF_DAY, 0);
+        calendar.set(Calendar.MINUTE, 0);
+        calendar.set(Calendar.SECOND, 0);
+        calendar.set(Calendar.MILLISECOND, 0);
+        if (calendarField == Calendar.MONTH) {
+            calendar.set(Calendar.DAY_OF_MONTH, 1);
+        } else if (calendarField == Calendar.YEAR) {
+            calendar.set(Calendar.DAY_OF_YEAR, 1);
+        }
+        return LocalDateTime.ofInstant(calendar.toInstant(), calendar.getTimeZone().toZoneId());
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+}
@@ -0,0 +1,149 @@
+package main.java.com.hallbooking.benchmarks;
+
+import main.java.com.hallbooking.common.models.Hall;
+import main.java.com.hallbooking.common.utils.DateTimeUtils;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.util.Random;
+
+// Writes a complete data directory in the application's file formats, sized by the arguments.
+// The same seed always produces the same files, so runs before and after a change are comparable.
+// Usage: java -cp <benchmarks jar> main.java.com.hallbooking.benchmarks.SyntheticData <dir> [bookings] [halls] [customers]
+public class SyntheticData {
+    public static final LocalDateTime EPOCH = LocalDateTime.of(2024, 1, 1, 8, 0);
+    public static final String[] LOCATIONS = {
+            "Main Building", "Event Center", "Business Wing", "APU", "MC", "North Campus", "South Campus",
+            "Library", "Sports Complex", "Innovation Hub", "Old Klang Road", "Cheras", "Bukit Jalil",
+            "Science Park", "Convention Hall", "Riverside", "Harbour View", "Garden Court", "Tower A", "Tower B"
+    };
+    private static final long SEED = 42;
+
+    private final int bookings;
+    private final int halls;
+    private final int customers;
+
+    public SyntheticData(int bookings, int halls, int customers) {
+        this.bookings = bookings;
+        this.halls = halls;
+        this.customers = customers;
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length == 0) {
+            System.err.println("Usage: SyntheticData <dir> [bookings] [halls] [customers]");
+            return;
+        }
+        int bookings = args.length > 1 ? Integer.parseInt(args[1].replace("_", "")) : 100_000;
+        int halls = args.length > 2 ? Integer.parseInt(args[2].replace("_", "")) : 200;
+        int customers = args.length > 3 ? Integer.parseInt(args[3].replace("_", "")) : 10_000;
+        Path directory = Paths.get(args[0]);
+        Files.createDirectories(directory);
+        new SyntheticData(bookings, halls, customers).writeTo(directory);
+        System.out.printf("Wrote %,d bookings, %,d halls and %,d customers to %s%n", bookings, halls, customers, directory);
+    }
+
+    public void writeTo(Path directory) throws IOException {
+        Random random = new Random(SEED);
+        writeHalls(directory.resolve("hall.txt"), random);
+        writeUsers(directory, random);
+        writeBookings(directory.resolve("bookings.txt"), bookings, "B", random);
+        writeBookings(directory.resolve("history.txt"), bookings / 10, "X", random);
+        writeMaintenance(directory.resolve("maintenance.txt"), random);
+    }
+
+    public int getBookings() { return bookings; }
+    public int getHalls() { return halls; }
+    public int getCustomers() { return customers; }
+
+    public static String hallId(int index) {
+        return "H" + (10000 + index);
+    }
+
+    public static String customerId(int index) {
+        return "C" + (100000 + index);
+    }
+
+    public static String customerPassword(int index) {
+        return "pw" + index;
+    }
+
+    // Bookings cover enough days that about half of a random hall's two-hour slots are free
+    public int bookingDays() {
+        return Math.max(1, bookings / halls / 2);
+    }
+
+    private void writeHalls(Path file, Random random) throws IOException {
+        Hall.HallType[] types = Hall.HallType.values();
+        try (BufferedWriter writer = Files.newBufferedWriter(file)) {
+            for (int i = 0; i < halls; i++) {
+                Hall.HallType type = types[random.nextInt(types.length)];
+                int capacity = type == Hall.HallType.AUDITORIUM ? 1000 : type == Hall.HallType.BANQUET_HALL ? 300 : 30;
+                String rate = type == Hall.HallType.AUDITORIUM ? "300.00" : type == Hall.HallType.BANQUET_HALL ? "100.00" : "50.00";
+                writer.write(String.join(",", hallId(i), type.name(), String.valueOf(capacity), rate,
+                        LOCATIONS[random.nextInt(LOCATIONS.length)]));
+                writer.newLine();
+            }
+        }
+    }
+
+    private void writeUsers(Path directory, Random random) throws IOException {
+        try (BufferedWriter writer = Files.newBufferedWriter(directory.resolve("customers.txt"))) {
+            for (int i = 0; i < customers; i++) {
+                writer.write(userLine(customerId(i), customerPassword(i), "Customer", random));
+                writer.newLine();
+            }
+        }
+        int staff = Math.max(3, customers / 100);
+        try (BufferedWriter writer = Files.newBufferedWriter(directory.resolve("users.txt"))) {
+            for (int i = 0; i < staff; i++) {
+                String type = i % 2 == 0 ? "Manager" : "Admin";
+                writer.write(userLine((i % 2 == 0 ? "M" : "A") + (10000 + i), "pw" + i, type, random));
+                writer.newLine();
+            }
+        }
+        try (BufferedWriter writer = Files.newBufferedWriter(directory.resolve("schedulers.txt"))) {
+            for (int i = 0; i < staff; i++) {
+                writer.write(userLine("S" + (10000 + i), "pw" + i, "Scheduler", random));
+                writer.newLine();
+            }
+        }
+    }
+
+    private String userLine(String id, String password, String type, Random random) {
+        return String.join(",", id, password, id.toLowerCase() + "@example.com",
+                "+60" + (100000000 + random.nextInt(900000000)), "User " + id,
+                "Street " + random.nextInt(1000), "Synthetic", "Unblocked", type);
+    }
+
+    private void writeBookings(Path file, int count, String idPrefix, Random random) throws IOException {
+        int days = bookingDays();
+        try (BufferedWriter writer = Files.newBufferedWriter(file)) {
+            for (int i = 0; i < count; i++) {
+                LocalDateTime start = EPOCH.plusDays(random.nextInt(days)).plusHours(random.nextInt(8));
+                int hours = 1 + random.nextInt(4);
+                writer.write(String.join(",", idPrefix + i, customerId(random.nextInt(customers)),
+                        hallId(random.nextInt(halls)), DateTimeUtils.formatDateTime(start),
+                        DateTimeUtils.formatDateTime(start.plusHours(hours)), String.valueOf(hours * 100.0)));
+                writer.newLine();
+            }
+        }
+    }
+
+    // maintenanceId,hallId,start,end,schedulerId,issueId,remark, the canonical MaintenanceWindow record
+    private void writeMaintenance(Path file, Random random) throws IOException {
+        int days = bookingDays();
+        try (BufferedWriter writer = Files.newBufferedWriter(file)) {
+            for (int i = 0; i < halls; i++) {
+                LocalDateTime start = EPOCH.plusDays(random.nextInt(days)).plusHours(random.nextInt(8));
+                writer.write(String.join(",", "M" + i, hallId(random.nextInt(halls)), DateTimeUtils.formatDateTime(start),
+                        DateTimeUtils.formatDateTime(start.plusHours(2)), "S10000", "I" + i, ""));
+                writer.newLine();
+            }
+        }
+    }
+}
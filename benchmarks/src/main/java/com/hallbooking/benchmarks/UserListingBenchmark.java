@@ -0,0 +1,71 @@
+package main.java.com.hallbooking.benchmarks;
+
+import main.java.com.hallbooking.common.models.User;
+import main.java.com.hallbooking.common.repository.UserIndex;
+import main.java.com.hallbooking.part2_admin.AdminManager;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Opening the admin screens' customer list: every customer parsed into a table row, as the screens
+// used to fill a DefaultTableModel, against a UserIndex listing of which only the first screenful
+// of rows is parsed, in file order and sorted by name. Scale with e.g. -p customers=500000
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class UserListingBenchmark {
+    private static final int VISIBLE_ROWS = 30;
+
+    private AdminManager adminManager;
+
+    @Setup(Level.Trial)
+    public void setUp(DataSet dataSet) {
+        adminManager = new AdminManager();
+        // Both paths read the resident lines; the sorted order is built once, as the screen's first sort would
+        UserIndex.getInstance().list("customers.txt", "", "", "", UserIndex.NAME, true);
+    }
+
+    @Benchmark
+    public List<Object[]> allRows() {
+        List<Object[]> rows = new ArrayList<>();
+        for (User user : adminManager.loadUsersFromFile("customers.txt")) {
+            rows.add(new Object[]{user.getId(), user.getName(), user.getEmail(), user.getPhoneNumber(),
+                    user.getAddress(), user.getNationality(), user.getStatus()});
+        }
+        return rows;
+    }
+
+    @Benchmark
+    public List<String[]> visibleRows() {
+        return firstRows(UserIndex.getInstance().list("customers.txt", "", "", "", UserIndex.UNSORTED, true));
+    }
+
+    @Benchmark
+    public List<String[]> visibleRowsByName() {
+        return firstRows(UserIndex.getInstance().list("customers.txt", "", "", "", UserIndex.NAME, false));
+    }
+
+    private static List<String[]> firstRows(UserIndex.Listing listing) {
+        List<String[]> rows = new ArrayList<>(VISIBLE_ROWS);
+        for (int row = 0; row < Math.min(VISIBLE_ROWS, listing.size()); row++) {
+            rows.add(listing.getFields(row));
+        }
+        return rows;
+    }
+}
@@ -0,0 +1,68 @@
+package main.java.com.hallbooking.benchmarks;
+
+import main.java.com.hallbooking.common.repository.UserDirectory;
+import main.java.com.hallbooking.common.repository.UserSearchIndex;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+// The admin filter typing a random customer's ID or email a few characters in: the scan of every
+// line AdminManager.filterUsers used to make, against UserSearchIndex's prefix maps.
+// Scale with e.g. -p customers=1000000
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+@State(Scope.Thread)
+public class UserSearchBenchmark {
+    @Param({"id", "email"})
+    public String criteria;
+
+    private SyntheticData data;
+    private Random random;
+
+    @Setup(Level.Trial)
+    public void setUp(DataSet dataSet) {
+        data = dataSet.data;
+        random = new Random(7);
+        UserSearchIndex.getInstance().search("customers.txt", criteria, "x");
+    }
+
+    @Benchmark
+    public List<String> scan() {
+        String value = typed();
+        int field = criteria.equals("id") ? 0 : 2;
+        return UserDirectory.getInstance().getLines("customers.txt").stream()
+                .filter(line -> line.split(",")[field].toLowerCase().contains(value))
+                .collect(Collectors.toList());
+    }
+
+    @Benchmark
+    public List<String> index() {
+        return UserSearchIndex.getInstance().search("customers.txt", criteria, typed());
+    }
+
+    // The first few characters of a random customer's ID or email
+    private String typed() {
+        int customer = random.nextInt(data.getCustomers());
+        String line = UserDirectory.getInstance().findLine("customers.txt", SyntheticData.customerId(customer));
+        String value = line.split(",")[criteria.equals("id") ? 0 : 2].toLowerCase();
+        return value.substring(0, Math.min(value.length(), 6));
+    }
+}
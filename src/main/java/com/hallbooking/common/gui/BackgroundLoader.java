@@ -0,0 +1,196 @@
+package main.java.com.hallbooking.common.gui;
+
+import main.java.com.hallbooking.common.logging.Logger;
+
+import javax.swing.*;
+import javax.swing.table.DefaultTableModel;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.IntConsumer;
+
+// Runs a screen's data load off the Event Dispatch Thread. One loader per table or chart: starting
+// a new load cancels the one still running, and anything the stale load publishes afterwards is
+// ignored. Items reach onChunk on the EDT in batches while the load is still reading, so tables
+// fill in as rows arrive. Loads share a small bounded pool (-Dhallbooking.gui.loaderThreads,
+// default 2) and report their timings to LoadMetrics.
+// Create, start and cancel loaders from the EDT; the callbacks all run there too.
+public class BackgroundLoader<T> {
+    private static final Logger LOG = Logger.getLogger(BackgroundLoader.class);
+
+    private static final ExecutorService EXECUTOR = createExecutor(Integer.getInteger("hallbooking.gui.loaderThreads", 2));
+
+    private final String name;
+    private Runnable onStart = () -> {};
+    private Consumer<List<T>> onChunk = chunk -> {};
+    private IntConsumer onProgress = percent -> {};
+    private Runnable onDone = () -> {};
+    private Consumer<Exception> onError = e -> {};
+    private Worker current;
+
+    public interface Task<T> {
+        void run(Sink<T> sink) throws Exception;
+    }
+
+    // Handed to a running task; publish may be called from the worker thread as often as needed
+    public interface Sink<T> {
+        void publish(T item);
+
+        // Long loops should check this and return early once a newer load has replaced this one
+        boolean isCancelled();
+
+        void reportProgress(int percent);
+    }
+
+    public BackgroundLoader(String name) {
+        this.name = name;
+    }
+
+    // A loader that clears the model when a load starts and appends each row as it arrives
+    public static BackgroundLoader<Object[]> forTable(String name, DefaultTableModel model) {
+        BackgroundLoader<Object[]> loader = new BackgroundLoader<>(name);
+        loader.onStart(() -> model.setRowCount(0));
+        loader.onChunk(rows -> rows.forEach(model::addRow));
+        return loader;
+    }
+
+    public BackgroundLoader<T> onStart(Runnable onStart) {
+        this.onStart = onStart;
+        return this;
+    }
+
+    public BackgroundLoader<T> onChunk(Consumer<List<T>> onChunk) {
+        this.onChunk = onChunk;
+        return this;
+    }
+
+    public BackgroundLoader<T> onProgress(IntConsumer onProgress) {
+        this.onProgress = onProgress;
+        return this;
+    }
+
+    // Runs after the last chunk of a load that finished without being replaced
+    public BackgroundLoader<T> onDone(Runnable onDone) {
+        this.onDone = onDone;
+        return this;
+    }
+
+    public BackgroundLoader<T> onError(Consumer<Exception> onError) {
+        this.onError = onError;
+        return this;
+    }
+
+    public void load(Task<T> task) {
+        cancel();
+        Worker worker = new Worker(task);
+        current = worker;
+        onStart.run();
+        try {
+            EXECUTOR.execute(worker);
+        } catch (RejectedExecutionException e) {
+            current = null;
+            LoadMetrics.recordFailed(name);
+            LOG.warn("Too many pending loads, dropped " + name);
+            onError.accept(e);
+        }
+    }
+
+    public void cancel() {
+        Worker worker = current;
+        if (worker != null) {
+            // Cleared first: on the EDT, cancel runs done() straight away
+            current = null;
+            // Not interrupted: the task may be part way through a first load of a shared index, and an
+            // interrupt would close its file channel under it. Long tasks stop at sink.isCancelled().
+            worker.cancel(false);
+            LoadMetrics.recordCancelled(name);
+        }
+    }
+
+    public boolean isLoading() {
+        return current != null;
+    }
+
+    private class Worker extends SwingWorker<Void, T> implements Sink<T> {
+        private final Task<T> task;
+        private final long queuedNanos = System.nanoTime();
+        private long startNanos;
+        private long endNanos;
+        private int items;
+
+        Worker(Task<T> task) {
+            this.task = task;
+            addPropertyChangeListener(event -> {
+                if ("progress".equals(event.getPropertyName()) && current == this) {
+                    onProgress.accept((Integer) event.getNewValue());
+                }
+            });
+        }
+
+        @Override
+        protected Void doInBackground() throws Exception {
+            startNanos = System.nanoTime();
+            task.run(this);
+            endNanos = System.nanoTime();
+            return null;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public void publish(T item) {
+            items++;
+            super.publish(item);
+        }
+
+        @Override
+        public void reportProgress(int percent) {
+            setProgress(Math.max(0, Math.min(100, percent)));
+        }
+
+        @Override
+        protected void process(List<T> chunk) {
+            if (current == this) {
+                onChunk.accept(chunk);
+            }
+        }
+
+        @Override
+        protected void done() {
+            if (current != this) {
+                return; // replaced or cancelled; counted by cancel()
+            }
+            current = null;
+            try {
+                get();
+                LoadMetrics.recordCompleted(name, startNanos - queuedNanos, endNanos - startNanos, items);
+                LOG.debug(() -> name + " loaded " + items + " items in "
+                        + TimeUnit.NANOSECONDS.toMillis(endNanos - startNanos) + " ms");
+                onDone.run();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (Exception e) {
+                Exception cause = e.getCause() instanceof Exception ? (Exception) e.getCause() : e;
+                LoadMetrics.recordFailed(name);
+                LOG.error("Error loading " + name, cause);
+                onError.accept(cause);
+            }
+        }
+    }
+
+    private static ExecutorService createExecutor(int threads) {
+        AtomicInteger count = new AtomicInteger();
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads, 30, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(64), runnable -> {
+                    Thread thread = new Thread(runnable, "gui-loader-" + count.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+}
@@ -0,0 +1,132 @@
+package main.java.com.hallbooking.common.gui;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+// Per-loader counters for BackgroundLoader, keyed by loader name ("AdminDashboard.users", ...).
+// Queue time is how long a load waited for a pool thread; load time is how long its task ran.
+public final class LoadMetrics {
+    private static final Map<String, Stats> STATS = new ConcurrentHashMap<>();
+
+    private LoadMetrics() {
+    }
+
+    static void recordCompleted(String name, long queueNanos, long loadNanos, int items) {
+        Stats stats = stats(name);
+        synchronized (stats) {
+            stats.completed++;
+            stats.items += items;
+            stats.totalQueueNanos += queueNanos;
+            stats.totalLoadNanos += loadNanos;
+            stats.maxLoadNanos = Math.max(stats.maxLoadNanos, loadNanos);
+            stats.lastLoadNanos = loadNanos;
+        }
+    }
+
+    static void recordCancelled(String name) {
+        Stats stats = stats(name);
+        synchronized (stats) {
+            stats.cancelled++;
+        }
+    }
+
+    static void recordFailed(String name) {
+        Stats stats = stats(name);
+        synchronized (stats) {
+            stats.failed++;
+        }
+    }
+
+    // A copy of the counters for one loader, or null if it has never run
+    public static Stats get(String name) {
+        Stats stats = STATS.get(name);
+        if (stats == null) {
+            return null;
+        }
+        synchronized (stats) {
+            return stats.copy();
+        }
+    }
+
+    // One line per loader, sorted by name
+    public static String report() {
+        StringBuilder report = new StringBuilder();
+        for (String name : new TreeMap<>(STATS).keySet()) {
+            report.append(name).append(": ").append(get(name)).append(System.lineSeparator());
+        }
+        return report.toString();
+    }
+
+    public static void reset() {
+        STATS.clear();
+    }
+
+    private static Stats stats(String name) {
+        return STATS.computeIfAbsent(name, key -> new Stats());
+    }
+
+    public static class Stats {
+        private long completed;
+        private long cancelled;
+        private long failed;
+        private long items;
+        private long totalQueueNanos;
+        private long totalLoadNanos;
+        private long maxLoadNanos;
+        private long lastLoadNanos;
+
+        public long getCompleted() {
+            return completed;
+        }
+
+        public long getCancelled() {
+            return cancelled;
+        }
+
+        public long getFailed() {
+            return failed;
+        }
+
+        public long getItems() {
+            return items;
+        }
+
+        public double getAverageQueueMillis() {
+            return completed == 0 ? 0 : totalQueueNanos / (completed * 1e6);
+        }
+
+        public double getAverageLoadMillis() {
+            return completed == 0 ? 0 : totalLoadNanos / (completed * 1e6);
+        }
+
+        public long getMaxLoadMillis() {
+            return TimeUnit.NANOSECONDS.toMillis(maxLoadNanos);
+        }
+
+        public long getLastLoadMillis() {
+            return TimeUnit.NANOSECONDS.toMillis(lastLoadNanos);
+        }
+
+        private Stats copy() {
+            Stats copy = new Stats();
+            copy.completed = completed;
+            copy.cancelled = cancelled;
+            copy.failed = failed;
+            copy.items = items;
+            copy.totalQueueNanos = totalQueueNanos;
+            copy.totalLoadNanos = totalLoadNanos;
+            copy.maxLoadNanos = maxLoadNanos;
+            copy.lastLoadNanos = lastLoadNanos;
+            return copy;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%d loads (%d cancelled, %d failed), %d items, avg %.1f ms (queued %.1f ms), max %d ms, last %d ms",
+                    completed, cancelled, failed, items, getAverageLoadMillis(), getAverageQueueMillis(),
+                    getMaxLoadMillis(), getLastLoadMillis());
+        }
+    }
+}
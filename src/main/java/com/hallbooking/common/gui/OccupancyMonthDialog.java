@@ -0,0 +1,158 @@
+package main.java.com.hallbooking.common.gui;
+
+import main.java.com.hallbooking.common.index.OccupancyCalendar;
+import main.java.com.hallbooking.common.models.Hall;
+import main.java.com.hallbooking.common.repository.HallRepository;
+
+import javax.swing.*;
+import javax.swing.table.DefaultTableCellRenderer;
+import javax.swing.table.DefaultTableModel;
+import java.awt.*;
+import java.time.LocalTime;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.stream.Collectors;
+
+// Month view of every hall: one row per hall, one column per day, each cell showing how many
+// business-hour slots are still free. Built from OccupancyCalendar, so paging between months
+// never rereads the data files.
+public class OccupancyMonthDialog extends JDialog {
+    private static final LocalTime OPENING = LocalTime.of(8, 0);
+    private static final LocalTime CLOSING = LocalTime.of(18, 0);
+    private static final DateTimeFormatter MONTH_FORMAT = DateTimeFormatter.ofPattern("MMMM yyyy");
+
+    private static final Color FREE_COLOR = new Color(200, 235, 200);
+    private static final Color PARTLY_FREE_COLOR = new Color(250, 235, 170);
+    private static final Color FULL_COLOR = new Color(240, 180, 180);
+    private static final Color MAINTENANCE_COLOR = new Color(200, 200, 200);
+
+    private final boolean showAvailability;
+    private final DefaultTableModel tableModel = new DefaultTableModel() {
+        @Override
+        public boolean isCellEditable(int row, int column) {
+            return false;
+        }
+    };
+    private final JLabel monthLabel = new JLabel("", SwingConstants.CENTER);
+    private final BackgroundLoader<OccupancyCalendar.MonthGrid> gridLoader = new BackgroundLoader<>("OccupancyMonthDialog.grid");
+    private YearMonth month = YearMonth.now();
+    private OccupancyCalendar.MonthGrid grid;
+
+    // showAvailability marks the days a scheduler has opened with an availability window
+    public OccupancyMonthDialog(Window owner, boolean showAvailability) {
+        super(owner, "Hall Occupancy", ModalityType.MODELESS);
+        this.showAvailability = showAvailability;
+        initComponents();
+        gridLoader.onChunk(grids -> showGrid(grids.get(grids.size() - 1)))
+                .onError(e -> JOptionPane.showMessageDialog(this, "Error loading the month view: " + e.getMessage(),
+                        "Error", JOptionPane.ERROR_MESSAGE));
+        loadMonth();
+    }
+
+    private void initComponents() {
+        setSize(1100, 500);
+        setLocationRelativeTo(getOwner());
+        setDefaultCloseOperation(DISPOSE_ON_CLOSE);
+
+        JButton previousButton = new JButton("<");
+        JButton nextButton = new JButton(">");
+        previousButton.addActionListener(e -> {
+            month = month.minusMonths(1);
+            loadMonth();
+        });
+        nextButton.addActionListener(e -> {
+            month = month.plusMonths(1);
+            loadMonth();
+        });
+        monthLabel.setFont(new Font("Arial", Font.BOLD, 16));
+
+        JPanel header = new JPanel(new BorderLayout(10, 10));
+        header.add(previousButton, BorderLayout.WEST);
+        header.add(monthLabel, BorderLayout.CENTER);
+        header.add(nextButton, BorderLayout.EAST);
+
+        JTable table = new JTable(tableModel);
+        table.setAutoResizeMode(JTable.AUTO_RESIZE_OFF);
+        table.setRowHeight(28);
+        table.getTableHeader().setReorderingAllowed(false);
+        table.setDefaultRenderer(Object.class, new SlotRenderer());
+
+        String legendText = "Free slots of " + OPENING + "-" + CLOSING + " per day, "
+                + OccupancyCalendar.getSlotMinutes() + " min each. Grey: maintenance"
+                + (showAvailability ? ", * availability set" : "");
+        JLabel legend = new JLabel(legendText);
+
+        JPanel panel = new JPanel(new BorderLayout(10, 10));
+        panel.setBorder(BorderFactory.createEmptyBorder(10, 10, 10, 10));
+        panel.add(header, BorderLayout.NORTH);
+        panel.add(new JScrollPane(table), BorderLayout.CENTER);
+        panel.add(legend, BorderLayout.SOUTH);
+        add(panel);
+    }
+
+    private void loadMonth() {
+        YearMonth requested = month;
+        monthLabel.setText(requested.format(MONTH_FORMAT));
+        gridLoader.load(sink -> {
+            List<String> hallIds = HallRepository.getInstance().getAllHalls().stream()
+                    .map(Hall::getId)
+                    .collect(Collectors.toList());
+            if (sink.isCancelled()) {
+                return;
+            }
+            sink.publish(OccupancyCalendar.getInstance().monthGrid(requested, hallIds, OPENING, CLOSING));
+        });
+    }
+
+    private void showGrid(OccupancyCalendar.MonthGrid loaded) {
+        grid = loaded;
+        int days = loaded.getMonth().lengthOfMonth();
+        Object[] columns = new Object[days + 1];
+        columns[0] = "Hall";
+        for (int day = 1; day <= days; day++) {
+            columns[day] = String.valueOf(day);
+        }
+        Object[][] rows = new Object[loaded.getHallIds().size()][days + 1];
+        for (int hall = 0; hall < rows.length; hall++) {
+            rows[hall][0] = loaded.getHallIds().get(hall);
+            for (int day = 1; day <= days; day++) {
+                String marker = showAvailability && loaded.isAvailabilitySet(hall, day) ? "*" : "";
+                rows[hall][day] = loaded.getFreeSlots(hall, day) + marker;
+            }
+        }
+        tableModel.setDataVector(rows, columns);
+    }
+
+    @Override
+    public void dispose() {
+        gridLoader.cancel();
+        super.dispose();
+    }
+
+    private class SlotRenderer extends DefaultTableCellRenderer {
+        @Override
+        public Component getTableCellRendererComponent(JTable table, Object value,
+                                                       boolean isSelected, boolean hasFocus, int row, int column) {
+            Component c = super.getTableCellRendererComponent(table, value, isSelected, hasFocus, row, column);
+            setHorizontalAlignment(column == 0 ? SwingConstants.LEFT : SwingConstants.CENTER);
+            if (isSelected || grid == null || column == 0) {
+                if (!isSelected) {
+                    c.setBackground(Color.WHITE);
+                }
+                return c;
+            }
+            int free = grid.getFreeSlots(row, column);
+            if (grid.getMaintenanceSlots(row, column) > 0) {
+                c.setBackground(MAINTENANCE_COLOR);
+            } else if (free == grid.getSlotsPerDay()) {
+                c.setBackground(FREE_COLOR);
+            } else if (free > 0) {
+                c.setBackground(PARTLY_FREE_COLOR);
+            } else {
+                c.setBackground(FULL_COLOR);
+            }
+            return c;
+        }
+    }
+}
@@ -0,0 +1,316 @@
+package main.java.com.hallbooking.common.index;
+
+import main.java.com.hallbooking.common.logging.Logger;
+import main.java.com.hallbooking.common.utils.DateTimeUtils;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.IntUnaryOperator;
+
+// Resident per-hall interval index over bookings.txt, loaded once and kept in sync by BookingManager.
+// Bookings live in a BookingStore; each hall keeps its rows sorted by start time as packed
+// (start minute, row) longs, so an availability check is a binary search plus a short array scan.
+// Each customer keeps a timeline of the same kind, so their past and future bookings are the rows
+// either side of one binary search around now.
+public class BookingIndex {
+    private static final Logger LOG = Logger.getLogger(BookingIndex.class);
+    private static final String BOOKINGS_FILE = "bookings.txt";
+    // What a load reads; a transaction whose commit hooks may load the index declares these
+    public static final List<String> SOURCE_FILES = List.of(BOOKINGS_FILE);
+
+    private static final ResidentInstance<BookingIndex> SHARED =
+            new ResidentInstance<>(BOOKINGS_FILE, BookingIndex::loadShared);
+
+    private BookingStore store = new BookingStore();
+    // Indexed by the store's hall code
+    private Schedule[] schedules = new Schedule[16];
+    // Indexed by the store's customer code
+    private Schedule[] timelines = new Schedule[16];
+
+    public static BookingIndex getInstance() {
+        return SHARED.get();
+    }
+
+    private static BookingIndex loadShared() throws IOException {
+        BookingIndex index = new BookingIndex();
+        index.load(BookingStore.read(BOOKINGS_FILE));
+        return index;
+    }
+
+    // Drops the shared index so the next getInstance() re-reads bookings.txt
+    public static void invalidate() {
+        SHARED.invalidate();
+    }
+
+    public synchronized void load(List<String> lines) {
+        BookingStore loaded = new BookingStore(lines.size());
+        for (String line : lines) {
+            addLine(loaded, line);
+        }
+        load(loaded);
+    }
+
+    public synchronized void load(BookingStore loaded) {
+        store = loaded;
+        rebuildSchedules();
+    }
+
+    public synchronized void add(String bookingId, String customerId, String hallId,
+                                 LocalDateTime start, LocalDateTime end, double amount) {
+        remove(bookingId);
+        int row = store.add(bookingId, customerId, hallId, start, end, amount);
+        schedules = scheduleFor(schedules, store.hallCode(row));
+        schedules[store.hallCode(row)].insert(row);
+        timelines = scheduleFor(timelines, store.customerCode(row));
+        timelines[store.customerCode(row)].insert(row);
+    }
+
+    public synchronized boolean remove(String bookingId) {
+        int row = store.find(bookingId);
+        if (row < 0) {
+            return false;
+        }
+        schedules[store.hallCode(row)].delete(row);
+        timelines[store.customerCode(row)].delete(row);
+        store.remove(bookingId);
+        if (store.needsCompaction()) {
+            store.compact();
+            rebuildSchedules();
+        }
+        return true;
+    }
+
+    // Same rule as the old file scan: start < bookedEnd && end > bookedStart.
+    // Stored times are whole minutes, so flooring start and rounding end up keeps the test exact.
+    public synchronized boolean isHallAvailable(String hallId, LocalDateTime start, LocalDateTime end) {
+        int hallCode = store.hallCodeOf(hallId);
+        if (hallCode < 0 || hallCode >= schedules.length || schedules[hallCode] == null) {
+            return true;
+        }
+        Schedule schedule = schedules[hallCode];
+        int startMinute = BookingStore.toEpochMinute(start);
+        int endMinute = BookingStore.toEpochMinuteCeiling(end);
+        // Only bookings starting inside [start - longest booking, end) can reach into the window
+        for (int i = schedule.lowerBound((long) startMinute - schedule.maxSpanMinutes); i < schedule.size; i++) {
+            long key = schedule.keys[i];
+            if (startOf(key) >= endMinute) {
+                break;
+            }
+            if (startMinute < store.endMinute(rowOf(key))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // The customer's bookings in order of start time, as bookings.txt lines
+    public synchronized List<String> getCustomerBookings(String customerId) {
+        Schedule timeline = timelineOf(customerId);
+        return timeline == null ? new ArrayList<>() : lines(timeline, 0, timeline.size);
+    }
+
+    // The customer's bookings that ended before time, in order of start time
+    public synchronized List<String> getBookingsEndedBefore(String customerId, LocalDateTime time) {
+        Schedule timeline = timelineOf(customerId);
+        if (timeline == null) {
+            return new ArrayList<>();
+        }
+        // Stored times are whole minutes, so end < time exactly when end < time rounded up
+        int timeMinute = BookingStore.toEpochMinuteCeiling(time);
+        // Everything starting more than the longest booking before time has ended; only the rows
+        // after that, up to the first one starting at time, need their end looked at
+        int ended = timeline.lowerBound((long) timeMinute - timeline.maxSpanMinutes);
+        List<String> lines = lines(timeline, 0, ended);
+        BookingStore.View view = store.view();
+        for (int i = ended; i < timeline.size && startOf(timeline.keys[i]) < timeMinute; i++) {
+            if (store.endMinute(rowOf(timeline.keys[i])) < timeMinute) {
+                lines.add(view.at(rowOf(timeline.keys[i])).toCsvString());
+            }
+        }
+        return lines;
+    }
+
+    // The customer's bookings starting after time, in order of start time
+    public synchronized List<String> getBookingsStartingAfter(String customerId, LocalDateTime time) {
+        Schedule timeline = timelineOf(customerId);
+        if (timeline == null) {
+            return new ArrayList<>();
+        }
+        // start > time exactly when start > time rounded down
+        return lines(timeline, timeline.lowerBound((long) BookingStore.toEpochMinute(time) + 1), timeline.size);
+    }
+
+    public synchronized boolean contains(String bookingId) {
+        return store.find(bookingId) >= 0;
+    }
+
+    public synchronized int size() {
+        return store.size();
+    }
+
+    // Visits every live booking under the index lock, through one reused view
+    public synchronized void forEach(Consumer<BookingStore.View> visitor) {
+        store.forEach(visitor);
+    }
+
+    private Schedule timelineOf(String customerId) {
+        int customerCode = store.customerCodeOf(customerId);
+        if (customerCode < 0 || customerCode >= timelines.length) {
+            return null;
+        }
+        return timelines[customerCode];
+    }
+
+    private List<String> lines(Schedule schedule, int from, int to) {
+        List<String> lines = new ArrayList<>(Math.max(0, to - from));
+        BookingStore.View view = store.view();
+        for (int i = from; i < to; i++) {
+            lines.add(view.at(rowOf(schedule.keys[i])).toCsvString());
+        }
+        return lines;
+    }
+
+    // The array, grown if needed, with a schedule at code
+    private Schedule[] scheduleFor(Schedule[] byCode, int code) {
+        if (code >= byCode.length) {
+            byCode = Arrays.copyOf(byCode, Math.max(code + 1, byCode.length * 2));
+        }
+        if (byCode[code] == null) {
+            byCode[code] = new Schedule();
+        }
+        return byCode;
+    }
+
+    private void rebuildSchedules() {
+        schedules = buildSchedules(store.hallCount(), store::hallCode);
+        timelines = buildSchedules(store.customerCount(), store::customerCode);
+    }
+
+    private Schedule[] buildSchedules(int codeCount, IntUnaryOperator codeOfRow) {
+        Schedule[] byCode = new Schedule[Math.max(16, codeCount)];
+        int[] counts = new int[codeCount];
+        for (int row = 0; row < store.rowCount(); row++) {
+            if (store.isLive(row)) {
+                counts[codeOfRow.applyAsInt(row)]++;
+            }
+        }
+        for (int code = 0; code < counts.length; code++) {
+            if (counts[code] > 0) {
+                byCode[code] = new Schedule(counts[code]);
+            }
+        }
+        for (int row = 0; row < store.rowCount(); row++) {
+            if (store.isLive(row)) {
+                byCode[codeOfRow.applyAsInt(row)].append(row);
+            }
+        }
+        for (Schedule schedule : byCode) {
+            if (schedule != null) {
+                Arrays.sort(schedule.keys, 0, schedule.size);
+            }
+        }
+        return byCode;
+    }
+
+    private void addLine(BookingStore target, String line) {
+        String[] parts = line.split(",");
+        // Booking ID, Customer ID, Hall ID, Start, End, Price
+        if (parts.length != 6) {
+            LOG.warn("Invalid booking data: " + line);
+            return;
+        }
+        try {
+            target.add(parts[0], parts[1], parts[2],
+                    DateTimeUtils.parseDateTime(parts[3]), DateTimeUtils.parseDateTime(parts[4]),
+                    Double.parseDouble(parts[5]));
+        } catch (DateTimeParseException | NumberFormatException e) {
+            LOG.warn("Invalid booking data: " + line);
+        }
+    }
+
+    // Sorts by start minute, then row
+    private static long key(int startMinute, int row) {
+        return ((long) startMinute << 32) | row;
+    }
+
+    private static int startOf(long key) {
+        return (int) (key >> 32);
+    }
+
+    private static int rowOf(long key) {
+        return (int) key;
+    }
+
+    // One hall's or one customer's rows, sorted by start
+    private class Schedule {
+        long[] keys;
+        int size;
+        // Never shrinks on removal; a stale value only widens the scan window
+        int maxSpanMinutes;
+
+        Schedule() {
+            this(8);
+        }
+
+        Schedule(int capacity) {
+            keys = new long[capacity];
+        }
+
+        // Unsorted; rebuildSchedules sorts once at the end
+        void append(int row) {
+            keys[size++] = key(store.startMinute(row), row);
+            widen(row);
+        }
+
+        void insert(int row) {
+            if (size == keys.length) {
+                keys = Arrays.copyOf(keys, size * 2);
+            }
+            long key = key(store.startMinute(row), row);
+            int at = lowerBoundKey(key);
+            System.arraycopy(keys, at, keys, at + 1, size - at);
+            keys[at] = key;
+            size++;
+            widen(row);
+        }
+
+        void delete(int row) {
+            int at = lowerBoundKey(key(store.startMinute(row), row));
+            if (at < size && rowOf(keys[at]) == row) {
+                System.arraycopy(keys, at + 1, keys, at, size - at - 1);
+                size--;
+            }
+        }
+
+        // First position whose start minute is at least startMinute
+        int lowerBound(long startMinute) {
+            if (startMinute <= Integer.MIN_VALUE) {
+                return 0;
+            }
+            return lowerBoundKey(key((int) startMinute, 0));
+        }
+
+        private int lowerBoundKey(long key) {
+            int low = 0;
+            int high = size;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (keys[mid] < key) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+
+        private void widen(int row) {
+            maxSpanMinutes = Math.max(maxSpanMinutes, store.endMinute(row) - store.startMinute(row));
+        }
+    }
+}
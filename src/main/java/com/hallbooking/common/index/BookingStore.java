@@ -0,0 +1,482 @@
+package main.java.com.hallbooking.common.index;
+
+import main.java.com.hallbooking.common.logging.Logger;
+import main.java.com.hallbooking.common.models.Booking;
+import main.java.com.hallbooking.common.storage.CsvRecord;
+import main.java.com.hallbooking.common.utils.DateTimeUtils;
+import main.java.com.hallbooking.common.utils.FileHandler;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Consumer;
+
+// Column-per-field booking table for holding large booking files in memory. Each booking is one row:
+// start and end as epoch minutes, hall and customer IDs as codes into per-store dictionaries,
+// amounts in cents, and "B<digits>" booking IDs as their number (other IDs are kept as strings).
+// Rows are appended and tombstoned; compact() drops removed rows and renumbers the rest.
+// A View reads one row at a time, so scans allocate nothing per booking.
+// Not thread-safe: owners such as BookingIndex synchronize around it.
+public class BookingStore {
+    private static final Logger LOG = Logger.getLogger(BookingStore.class);
+
+    public static final long AMOUNT_SCALE = 100;
+    private static final long IRREGULAR_ID = Long.MIN_VALUE;
+
+    private long[] idNumbers;
+    private int[] startMinutes;
+    private int[] endMinutes;
+    private int[] hallCodes;
+    private int[] customerCodes;
+    private long[] amountCents;
+    private final Map<Integer, String> irregularIds = new HashMap<>();
+    // Amount text of rows whose amount was not written as String.valueOf of its value in cents,
+    // e.g. "600.50" or more than two decimals, so the row reads back exactly as it was stored
+    private final Map<Integer, String> irregularAmounts = new HashMap<>();
+    private final BitSet removed = new BitSet();
+    private final Dictionary halls = new Dictionary();
+    private final Dictionary customers = new Dictionary();
+    // Open addressing over row + 1, keyed by booking ID; 0 marks an empty slot
+    private int[] idTable;
+    private int rows;
+    private int removedCount;
+
+    public BookingStore() {
+        this(16);
+    }
+
+    public BookingStore(int capacity) {
+        capacity = Math.max(capacity, 16);
+        idNumbers = new long[capacity];
+        startMinutes = new int[capacity];
+        endMinutes = new int[capacity];
+        hallCodes = new int[capacity];
+        customerCodes = new int[capacity];
+        amountCents = new long[capacity];
+        idTable = new int[tableSizeFor(capacity)];
+    }
+
+    // Reads a file in the bookings.txt layout; malformed lines are skipped
+    public static BookingStore read(String fileName) throws IOException {
+        BookingStore store = new BookingStore();
+        FileHandler.scanFile(fileName, record -> {
+            store.addRecord(record);
+            return true;
+        });
+        return store;
+    }
+
+    private void addRecord(CsvRecord record) {
+        // Booking ID, Customer ID, Hall ID, Start, End, Price
+        if (record.fieldCount() != 6) {
+            LOG.warn("Skipping invalid booking record: " + record.line());
+            return;
+        }
+        try {
+            add(record.field(0), record.field(1), record.field(2),
+                    record.dateTimeField(3), record.dateTimeField(4), record.doubleField(5), record.field(5));
+        } catch (RuntimeException e) {
+            LOG.warn("Skipping invalid booking record: " + record.line() + " - " + e.getMessage());
+        }
+    }
+
+    // Appends a row and returns its number; an existing live row with the same ID is left alone
+    public int add(String bookingId, String customerId, String hallId,
+                   LocalDateTime start, LocalDateTime end, double amount) {
+        // As BookingManager writes it
+        return add(bookingId, customerId, hallId, start, end, amount, String.valueOf(amount));
+    }
+
+    private int add(String bookingId, String customerId, String hallId,
+                    LocalDateTime start, LocalDateTime end, double amount, String amountText) {
+        if (rows == startMinutes.length) {
+            grow();
+        }
+        int row = rows++;
+        long number = parseIdNumber(bookingId);
+        idNumbers[row] = number;
+        if (number == IRREGULAR_ID) {
+            irregularIds.put(row, bookingId);
+        }
+        startMinutes[row] = toEpochMinute(start);
+        endMinutes[row] = toEpochMinute(end);
+        hallCodes[row] = halls.encode(hallId);
+        customerCodes[row] = customers.encode(customerId);
+        amountCents[row] = Math.round(amount * AMOUNT_SCALE);
+        if (!amountText.equals(formatCents(amountCents[row]))) {
+            irregularAmounts.put(row, amountText);
+        }
+        insertId(row);
+        return row;
+    }
+
+    // Tombstones the live row with this ID; returns its row number, or -1
+    public int remove(String bookingId) {
+        int row = find(bookingId);
+        if (row >= 0) {
+            removed.set(row);
+            removedCount++;
+        }
+        return row;
+    }
+
+    // Row number of the live booking with this ID, or -1
+    public int find(String bookingId) {
+        long number = parseIdNumber(bookingId);
+        int mask = idTable.length - 1;
+        for (int slot = hash(number, bookingId) & mask; idTable[slot] != 0; slot = (slot + 1) & mask) {
+            int row = idTable[slot] - 1;
+            if (!removed.get(row) && idNumbers[row] == number
+                    && (number != IRREGULAR_ID || irregularIds.get(row).equals(bookingId))) {
+                return row;
+            }
+        }
+        return -1;
+    }
+
+    // Live bookings
+    public int size() {
+        return rows - removedCount;
+    }
+
+    // Row numbers run from 0 to rowCount() - 1, including removed rows
+    public int rowCount() {
+        return rows;
+    }
+
+    public boolean isLive(int row) {
+        return row < rows && !removed.get(row);
+    }
+
+    // Worth calling once at least half of the rows are tombstones
+    public boolean needsCompaction() {
+        return removedCount > 16 && removedCount * 2 > rows;
+    }
+
+    // Drops removed rows; returns the new number of every old row (-1 for removed ones)
+    public int[] compact() {
+        int[] renumbered = new int[rows];
+        Map<Integer, String> irregular = new HashMap<>();
+        Map<Integer, String> irregularAmountTexts = new HashMap<>();
+        int live = 0;
+        for (int row = 0; row < rows; row++) {
+            if (removed.get(row)) {
+                renumbered[row] = -1;
+                continue;
+            }
+            renumbered[row] = live;
+            idNumbers[live] = idNumbers[row];
+            startMinutes[live] = startMinutes[row];
+            endMinutes[live] = endMinutes[row];
+            hallCodes[live] = hallCodes[row];
+            customerCodes[live] = customerCodes[row];
+            amountCents[live] = amountCents[row];
+            if (idNumbers[row] == IRREGULAR_ID) {
+                irregular.put(live, irregularIds.get(row));
+            }
+            String amountText = irregularAmounts.get(row);
+            if (amountText != null) {
+                irregularAmountTexts.put(live, amountText);
+            }
+            live++;
+        }
+        rows = live;
+        removed.clear();
+        removedCount = 0;
+        irregularIds.clear();
+        irregularIds.putAll(irregular);
+        irregularAmounts.clear();
+        irregularAmounts.putAll(irregularAmountTexts);
+        rebuildIdTable(idTable.length);
+        return renumbered;
+    }
+
+    public String id(int row) {
+        long number = idNumbers[row];
+        return number == IRREGULAR_ID ? irregularIds.get(row) : "B" + number;
+    }
+
+    public int startMinute(int row) {
+        return startMinutes[row];
+    }
+
+    public int endMinute(int row) {
+        return endMinutes[row];
+    }
+
+    public int hallCode(int row) {
+        return hallCodes[row];
+    }
+
+    public int customerCode(int row) {
+        return customerCodes[row];
+    }
+
+    public long amountCents(int row) {
+        return amountCents[row];
+    }
+
+    // The amount as it was stored
+    public String amountText(int row) {
+        String text = irregularAmounts.get(row);
+        return text != null ? text : formatCents(amountCents[row]);
+    }
+
+    private static String formatCents(long cents) {
+        return String.valueOf(cents / (double) AMOUNT_SCALE);
+    }
+
+    public String hallId(int row) {
+        return halls.decode(hallCodes[row]);
+    }
+
+    public String customerId(int row) {
+        return customers.decode(customerCodes[row]);
+    }
+
+    // Code for a hall ID, or -1 if no row has ever used it
+    public int hallCodeOf(String hallId) {
+        return halls.find(hallId);
+    }
+
+    public int customerCodeOf(String customerId) {
+        return customers.find(customerId);
+    }
+
+    public int hallCount() {
+        return halls.size();
+    }
+
+    public int customerCount() {
+        return customers.size();
+    }
+
+    // Sum of live amounts, in cents
+    public long totalCents() {
+        long total = 0;
+        for (int row = 0; row < rows; row++) {
+            if (!removed.get(row)) {
+                total += amountCents[row];
+            }
+        }
+        return total;
+    }
+
+    // Visits every live row through one reused view
+    public void forEach(Consumer<View> visitor) {
+        View view = new View();
+        for (int row = 0; row < rows; row++) {
+            if (!removed.get(row)) {
+                visitor.accept(view.at(row));
+            }
+        }
+    }
+
+    public View view() {
+        return new View();
+    }
+
+    // Column arrays plus the ID table and dictionaries, not counting the dictionary strings themselves
+    public long estimatedBytes() {
+        long perRow = 8 + 4 + 4 + 4 + 4 + 8;
+        return perRow * startMinutes.length + 4L * idTable.length
+                + 8L * (halls.size() + customers.size()) + 64L * irregularIds.size();
+    }
+
+    public static int toEpochMinute(LocalDateTime dateTime) {
+        return Math.toIntExact(Math.floorDiv(dateTime.toEpochSecond(ZoneOffset.UTC), 60));
+    }
+
+    // Rounds up, for the exclusive end of a query window that has seconds
+    public static int toEpochMinuteCeiling(LocalDateTime dateTime) {
+        long seconds = dateTime.toEpochSecond(ZoneOffset.UTC);
+        long minute = Math.floorDiv(seconds, 60);
+        if (Math.floorMod(seconds, 60) != 0 || dateTime.getNano() != 0) {
+            minute++;
+        }
+        return Math.toIntExact(minute);
+    }
+
+    public static LocalDateTime fromEpochMinute(int minute) {
+        return LocalDateTime.ofEpochSecond(minute * 60L, 0, ZoneOffset.UTC);
+    }
+
+    // A movable window onto one row. Getters read the columns directly; only the LocalDateTime and
+    // String getters allocate, and only when called.
+    public class View {
+        private int row;
+
+        public View at(int row) {
+            this.row = row;
+            return this;
+        }
+
+        public int getRow() {
+            return row;
+        }
+
+        public String getId() {
+            return id(row);
+        }
+
+        public String getCustomerId() {
+            return customerId(row);
+        }
+
+        public String getHallId() {
+            return hallId(row);
+        }
+
+        public int getHallCode() {
+            return hallCodes[row];
+        }
+
+        public int getCustomerCode() {
+            return customerCodes[row];
+        }
+
+        public int getStartMinute() {
+            return startMinutes[row];
+        }
+
+        public int getEndMinute() {
+            return endMinutes[row];
+        }
+
+        public LocalDateTime getStartDateTime() {
+            return fromEpochMinute(startMinutes[row]);
+        }
+
+        public LocalDateTime getEndDateTime() {
+            return fromEpochMinute(endMinutes[row]);
+        }
+
+        public long getAmountCents() {
+            return amountCents[row];
+        }
+
+        public double getAmount() {
+            return amountCents[row] / (double) AMOUNT_SCALE;
+        }
+
+        public boolean overlaps(int startMinute, int endMinute) {
+            return startMinute < endMinutes[row] && endMinute > startMinutes[row];
+        }
+
+        // The row as a bookings.txt line, with the amount as it was stored
+        public String toCsvString() {
+            return String.join(",", getId(), getCustomerId(), getHallId(), DateTimeUtils.formatDateTime(getStartDateTime()),
+                    DateTimeUtils.formatDateTime(getEndDateTime()), amountText(row));
+        }
+
+        // A standalone copy, for code that needs a model object that outlives the view
+        public Booking toBooking() {
+            Booking booking = new Booking(getId(), getCustomerId(), getHallId(), getStartDateTime(), getEndDateTime());
+            booking.setStatus(Booking.BookingStatus.CONFIRMED);
+            return booking;
+        }
+    }
+
+    private void grow() {
+        int capacity = startMinutes.length * 2;
+        idNumbers = Arrays.copyOf(idNumbers, capacity);
+        startMinutes = Arrays.copyOf(startMinutes, capacity);
+        endMinutes = Arrays.copyOf(endMinutes, capacity);
+        hallCodes = Arrays.copyOf(hallCodes, capacity);
+        customerCodes = Arrays.copyOf(customerCodes, capacity);
+        amountCents = Arrays.copyOf(amountCents, capacity);
+    }
+
+    private void insertId(int row) {
+        // Kept at most half full so probe runs stay short
+        if (rows * 2 > idTable.length) {
+            rebuildIdTable(idTable.length * 2);
+        } else {
+            placeId(row);
+        }
+    }
+
+    private void placeId(int row) {
+        long number = idNumbers[row];
+        int mask = idTable.length - 1;
+        int slot = hash(number, number == IRREGULAR_ID ? irregularIds.get(row) : null) & mask;
+        while (idTable[slot] != 0) {
+            slot = (slot + 1) & mask;
+        }
+        idTable[slot] = row + 1;
+    }
+
+    // Re-inserts every row, which also clears out slots left by removed ones
+    private void rebuildIdTable(int size) {
+        idTable = new int[Math.max(size, tableSizeFor(rows))];
+        for (int row = 0; row < rows; row++) {
+            if (!removed.get(row)) {
+                placeId(row);
+            }
+        }
+    }
+
+    private static int tableSizeFor(int capacity) {
+        return Integer.highestOneBit(Math.max(capacity, 8) - 1) << 2;
+    }
+
+    private static int hash(long number, String irregularId) {
+        long h = number == IRREGULAR_ID ? irregularId.hashCode() : number;
+        h *= 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    // The number in "B<digits>", or IRREGULAR_ID for anything else (leading zeros included)
+    private static long parseIdNumber(String bookingId) {
+        int length = bookingId.length();
+        if (length < 2 || length > 20 || bookingId.charAt(0) != 'B' || (bookingId.charAt(1) == '0' && length > 2)) {
+            return IRREGULAR_ID;
+        }
+        long value = 0;
+        for (int i = 1; i < length; i++) {
+            int digit = bookingId.charAt(i) - '0';
+            if (digit < 0 || digit > 9 || value > (Long.MAX_VALUE - digit) / 10) {
+                return IRREGULAR_ID;
+            }
+            value = value * 10 + digit;
+        }
+        return value;
+    }
+
+    // String <-> dense int code, in first-seen order
+    private static class Dictionary {
+        private final Map<String, Integer> codes = new HashMap<>();
+        private String[] values = new String[16];
+
+        int encode(String value) {
+            Integer code = codes.get(value);
+            if (code != null) {
+                return code;
+            }
+            int next = codes.size();
+            if (next == values.length) {
+                values = Arrays.copyOf(values, next * 2);
+            }
+            values[next] = value;
+            codes.put(value, next);
+            return next;
+        }
+
+        int find(String value) {
+            Integer code = codes.get(value);
+            return code == null ? -1 : code;
+        }
+
+        String decode(int code) {
+            return values[code];
+        }
+
+        int size() {
+            return codes.size();
+        }
+    }
+}
@@ -0,0 +1,263 @@
+package main.java.com.hallbooking.common.index;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+// Case-insensitive fuzzy lookup over one string field of a fixed set of items. A key matches a
+// query when either contains the other or they are within an edit distance. Distinct keys sit in
+// a BK-tree, so an edit-distance query only compares against the branches that can still match,
+// and in an inverted index of their 1- to 3-character grams, so "key contains query" intersects
+// posting lists instead of scanning every key. Distances are computed in two reused rows.
+// Immutable once built and safe to share between threads.
+public class FuzzyIndex<T> {
+    private static final int MAX_GRAM = 3;
+
+    private final String[] keys;
+    private final List<List<T>> itemsByKey = new ArrayList<>();
+    private final Map<String, Integer> keyIds = new HashMap<>();
+    private final Map<String, int[]> postings = new HashMap<>();
+    private final Node root;
+    private final int longestKey;
+
+    public FuzzyIndex(Collection<T> items, Function<T, String> keyOf) {
+        for (T item : items) {
+            String key = keyOf.apply(item).toLowerCase();
+            Integer id = keyIds.get(key);
+            if (id == null) {
+                id = keyIds.size();
+                keyIds.put(key, id);
+                itemsByKey.add(new ArrayList<>());
+            }
+            itemsByKey.get(id).add(item);
+        }
+        keys = new String[keyIds.size()];
+        keyIds.forEach((key, id) -> keys[id] = key);
+
+        Map<String, List<Integer>> grams = new HashMap<>();
+        for (int id = 0; id < keys.length; id++) {
+            String key = keys[id];
+            for (int length = 1; length <= MAX_GRAM; length++) {
+                for (int start = 0; start + length <= key.length(); start++) {
+                    List<Integer> posting = grams.computeIfAbsent(key.substring(start, start + length), gram -> new ArrayList<>());
+                    // Keys are visited in id order, so a repeat can only be the last entry
+                    if (posting.isEmpty() || posting.get(posting.size() - 1) != id) {
+                        posting.add(id);
+                    }
+                }
+            }
+        }
+        grams.forEach((gram, ids) -> postings.put(gram, ids.stream().mapToInt(Integer::intValue).toArray()));
+
+        longestKey = Arrays.stream(keys).mapToInt(String::length).max().orElse(0);
+        root = keys.length == 0 ? null : new Node(0);
+        int[][] rows = scratch(longestKey);
+        for (int id = 1; id < keys.length; id++) {
+            Node node = root;
+            while (true) {
+                int distance = distance(keys[node.keyId], keys[id], rows);
+                int at = node.firstEdge(distance);
+                if (at == node.size || node.edges[at] != distance) {
+                    node.insert(at, distance, new Node(id));
+                    break;
+                }
+                node = node.children[at];
+            }
+        }
+    }
+
+    // Items whose key matches, closest first: by edit distance to the query, then by key.
+    // Items sharing a key keep the order they were given in.
+    public List<T> search(String query, int maxDistance) {
+        List<T> results = new ArrayList<>();
+        for (Match<T> match : rankedSearch(query, maxDistance)) {
+            results.addAll(match.getItems());
+        }
+        return results;
+    }
+
+    public List<Match<T>> rankedSearch(String query, int maxDistance) {
+        String q = query.toLowerCase();
+        int[][] rows = scratch(Math.max(q.length(), longestKey));
+        // key id -> edit distance to the query
+        Map<Integer, Integer> hits = new LinkedHashMap<>();
+
+        collectWithinDistance(q, maxDistance, rows, hits);
+        for (int id : keysContaining(q)) {
+            hits.computeIfAbsent(id, key -> distance(keys[key], q, rows));
+        }
+        // Keys the query contains: look each substring of the query up directly
+        for (int start = 0; start < q.length(); start++) {
+            for (int end = start + 1; end <= q.length(); end++) {
+                Integer id = keyIds.get(q.substring(start, end));
+                if (id != null) {
+                    hits.computeIfAbsent(id, key -> distance(keys[key], q, rows));
+                }
+            }
+        }
+
+        List<Match<T>> matches = new ArrayList<>(hits.size());
+        hits.forEach((id, distance) -> matches.add(new Match<>(keys[id], distance, itemsByKey.get(id))));
+        matches.sort((a, b) -> a.distance != b.distance ? Integer.compare(a.distance, b.distance) : a.key.compareTo(b.key));
+        return matches;
+    }
+
+    // BK-tree walk: by the triangle inequality only children whose edge is within maxDistance of
+    // this node's distance can hold a match
+    private void collectWithinDistance(String q, int maxDistance, int[][] rows, Map<Integer, Integer> hits) {
+        if (root == null) {
+            return;
+        }
+        Deque<Node> pending = new ArrayDeque<>();
+        pending.push(root);
+        while (!pending.isEmpty()) {
+            Node node = pending.pop();
+            int distance = distance(keys[node.keyId], q, rows);
+            if (distance <= maxDistance) {
+                hits.put(node.keyId, distance);
+            }
+            for (int at = node.firstEdge(distance - maxDistance); at < node.size && node.edges[at] <= distance + maxDistance; at++) {
+                pending.push(node.children[at]);
+            }
+        }
+    }
+
+    // Ids of keys containing q: the posting list of q itself when it is short enough to be a gram,
+    // otherwise the intersection of its trigrams' lists, confirmed with contains
+    private int[] keysContaining(String q) {
+        if (q.isEmpty()) {
+            int[] all = new int[keys.length];
+            Arrays.setAll(all, i -> i);
+            return all;
+        }
+        if (q.length() <= MAX_GRAM) {
+            return postings.getOrDefault(q, new int[0]);
+        }
+        int[] candidates = null;
+        for (int start = 0; start + MAX_GRAM <= q.length(); start++) {
+            int[] posting = postings.get(q.substring(start, start + MAX_GRAM));
+            if (posting == null) {
+                return new int[0];
+            }
+            candidates = candidates == null ? posting : intersect(candidates, posting);
+            if (candidates.length == 0) {
+                return candidates;
+            }
+        }
+        return Arrays.stream(candidates).filter(id -> keys[id].contains(q)).toArray();
+    }
+
+    private static int[] intersect(int[] a, int[] b) {
+        int[] result = new int[Math.min(a.length, b.length)];
+        int size = 0;
+        for (int i = 0, j = 0; i < a.length && j < b.length; ) {
+            if (a[i] < b[j]) {
+                i++;
+            } else if (a[i] > b[j]) {
+                j++;
+            } else {
+                result[size++] = a[i];
+                i++;
+                j++;
+            }
+        }
+        return Arrays.copyOf(result, size);
+    }
+
+    // Levenshtein distance in two rows of the scratch buffer, which must be longer than b
+    private static int distance(String a, String b, int[][] rows) {
+        int[] previous = rows[0];
+        int[] current = rows[1];
+        for (int j = 0; j <= b.length(); j++) {
+            previous[j] = j;
+        }
+        for (int i = 1; i <= a.length(); i++) {
+            current[0] = i;
+            char ca = a.charAt(i - 1);
+            for (int j = 1; j <= b.length(); j++) {
+                int substitution = previous[j - 1] + (ca == b.charAt(j - 1) ? 0 : 1);
+                current[j] = Math.min(substitution, Math.min(previous[j] + 1, current[j - 1] + 1));
+            }
+            int[] swap = previous;
+            previous = current;
+            current = swap;
+        }
+        return previous[b.length()];
+    }
+
+    private static int[][] scratch(int length) {
+        return new int[2][length + 1];
+    }
+
+    // Children kept sorted by edge distance, so a query visits one contiguous run of them
+    private static class Node {
+        final int keyId;
+        int[] edges = new int[0];
+        Node[] children = new Node[0];
+        int size;
+
+        Node(int keyId) {
+            this.keyId = keyId;
+        }
+
+        // First child whose edge is at least distance
+        int firstEdge(int distance) {
+            int low = 0;
+            int high = size;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (edges[mid] < distance) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+
+        void insert(int at, int edge, Node child) {
+            if (size == edges.length) {
+                edges = Arrays.copyOf(edges, Math.max(2, size * 2));
+                children = Arrays.copyOf(children, edges.length);
+            }
+            System.arraycopy(edges, at, edges, at + 1, size - at);
+            System.arraycopy(children, at, children, at + 1, size - at);
+            edges[at] = edge;
+            children[at] = child;
+            size++;
+        }
+    }
+
+    public static class Match<T> {
+        private final String key;
+        private final int distance;
+        private final List<T> items;
+
+        Match(String key, int distance, List<T> items) {
+            this.key = key;
+            this.distance = distance;
+            this.items = Collections.unmodifiableList(items);
+        }
+
+        // Lower-cased
+        public String getKey() {
+            return key;
+        }
+
+        public int getDistance() {
+            return distance;
+        }
+
+        public List<T> getItems() {
+            return items;
+        }
+    }
+}
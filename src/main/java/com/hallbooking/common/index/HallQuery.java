@@ -0,0 +1,95 @@
+package main.java.com.hallbooking.common.index;
+
+import main.java.com.hallbooking.common.models.Hall;
+
+import java.time.LocalDateTime;
+
+// Compound hall search criteria for HallSearchIndex. Every criterion left unset matches all halls,
+// e.g. new HallQuery().type(BANQUET_HALL).minCapacity(200).maxRate(150).freeBetween(start, end).
+public class HallQuery {
+    private Hall.HallType type;
+    private String location;
+    private int minCapacity = Integer.MIN_VALUE;
+    private int maxCapacity = Integer.MAX_VALUE;
+    private double minRate = Double.NEGATIVE_INFINITY;
+    private double maxRate = Double.POSITIVE_INFINITY;
+    private LocalDateTime freeFrom;
+    private LocalDateTime freeUntil;
+
+    public HallQuery type(Hall.HallType type) {
+        this.type = type;
+        return this;
+    }
+
+    // Whole location, compared case-insensitively
+    public HallQuery location(String location) {
+        this.location = location;
+        return this;
+    }
+
+    public HallQuery minCapacity(int minCapacity) {
+        this.minCapacity = minCapacity;
+        return this;
+    }
+
+    public HallQuery maxCapacity(int maxCapacity) {
+        this.maxCapacity = maxCapacity;
+        return this;
+    }
+
+    public HallQuery minRate(double minRate) {
+        this.minRate = minRate;
+        return this;
+    }
+
+    public HallQuery maxRate(double maxRate) {
+        this.maxRate = maxRate;
+        return this;
+    }
+
+    // Neither booked nor under maintenance at any point in [start, end)
+    public HallQuery freeBetween(LocalDateTime start, LocalDateTime end) {
+        this.freeFrom = start;
+        this.freeUntil = end;
+        return this;
+    }
+
+    public Hall.HallType getType() {
+        return type;
+    }
+
+    public String getLocation() {
+        return location;
+    }
+
+    public int getMinCapacity() {
+        return minCapacity;
+    }
+
+    public int getMaxCapacity() {
+        return maxCapacity;
+    }
+
+    public double getMinRate() {
+        return minRate;
+    }
+
+    public double getMaxRate() {
+        return maxRate;
+    }
+
+    public LocalDateTime getFreeFrom() {
+        return freeFrom;
+    }
+
+    public LocalDateTime getFreeUntil() {
+        return freeUntil;
+    }
+
+    @Override
+    public String toString() {
+        return "HallQuery{type=" + type + ", location=" + location
+                + ", capacity=[" + minCapacity + ", " + maxCapacity + "], rate=[" + minRate + ", " + maxRate + "]"
+                + ", free=[" + freeFrom + ", " + freeUntil + ")}";
+    }
+}
@@ -0,0 +1,180 @@
+package main.java.com.hallbooking.common.index;
+
+import main.java.com.hallbooking.common.models.Hall;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+// Search indexes over one snapshot of the hall catalog: bitsets per type and per location, and
+// hall positions sorted by capacity and by rate. A query ANDs the bitsets of its exact criteria;
+// with none, the narrower of its ranges seeds the candidates from the sorted index instead.
+// The remaining ranges are then checked per candidate, and the time filter runs last, against
+// OccupancyCalendar and MaintenanceIndex, on whatever is left. Built by HallRepository whenever the catalog changes.
+public class HallSearchIndex {
+    private final List<Hall> halls;
+    private final Map<Hall.HallType, BitSet> byType = new EnumMap<>(Hall.HallType.class);
+    private final Map<String, BitSet> byLocation = new HashMap<>();
+    private final int[] capacityAt;
+    private final double[] rateAt;
+    // Hall positions in ascending order of capacity / rate, with the sorted values alongside
+    private final int[] byCapacity;
+    private final int[] sortedCapacities;
+    private final int[] byRate;
+    private final double[] sortedRates;
+
+    public HallSearchIndex(List<Hall> halls) {
+        this.halls = halls;
+        int count = halls.size();
+        capacityAt = new int[count];
+        rateAt = new double[count];
+        for (int i = 0; i < count; i++) {
+            Hall hall = halls.get(i);
+            capacityAt[i] = hall.getCapacity();
+            rateAt[i] = hall.getRate().doubleValue();
+            byType.computeIfAbsent(hall.getType(), type -> new BitSet(count)).set(i);
+            byLocation.computeIfAbsent(hall.getLocation().toLowerCase(), location -> new BitSet(count)).set(i);
+        }
+        byCapacity = sortedPositions(Comparator.comparingInt(i -> capacityAt[i]));
+        sortedCapacities = Arrays.stream(byCapacity).map(i -> capacityAt[i]).toArray();
+        byRate = sortedPositions(Comparator.comparingDouble(i -> rateAt[i]));
+        sortedRates = Arrays.stream(byRate).mapToDouble(i -> rateAt[i]).toArray();
+    }
+
+    // Matching halls in catalog order
+    public List<Hall> search(HallQuery query) {
+        BitSet candidates = exactMatches(query);
+        boolean capacityBounded = query.getMinCapacity() > Integer.MIN_VALUE || query.getMaxCapacity() < Integer.MAX_VALUE;
+        boolean rateBounded = query.getMinRate() > Double.NEGATIVE_INFINITY || query.getMaxRate() < Double.POSITIVE_INFINITY;
+
+        if (candidates == null) {
+            // No exact criteria: seed from whichever range index yields fewer halls
+            int capacityFrom = lowerBound(sortedCapacities, query.getMinCapacity());
+            int capacityTo = upperBound(sortedCapacities, query.getMaxCapacity());
+            int rateFrom = lowerBound(sortedRates, query.getMinRate());
+            int rateTo = upperBound(sortedRates, query.getMaxRate());
+            candidates = new BitSet(halls.size());
+            if (capacityTo - capacityFrom <= rateTo - rateFrom) {
+                for (int i = capacityFrom; i < capacityTo; i++) {
+                    candidates.set(byCapacity[i]);
+                }
+                capacityBounded = false;
+            } else {
+                for (int i = rateFrom; i < rateTo; i++) {
+                    candidates.set(byRate[i]);
+                }
+                rateBounded = false;
+            }
+        }
+
+        OccupancyCalendar calendar = query.getFreeFrom() != null ? OccupancyCalendar.getInstance() : null;
+        MaintenanceIndex maintenance = query.getFreeFrom() != null ? MaintenanceIndex.getInstance() : null;
+        List<Hall> matches = new ArrayList<>(candidates.cardinality());
+        for (int i = candidates.nextSetBit(0); i >= 0; i = candidates.nextSetBit(i + 1)) {
+            if (capacityBounded && (capacityAt[i] < query.getMinCapacity() || capacityAt[i] > query.getMaxCapacity())) {
+                continue;
+            }
+            if (rateBounded && (rateAt[i] < query.getMinRate() || rateAt[i] > query.getMaxRate())) {
+                continue;
+            }
+            Hall hall = halls.get(i);
+            if (calendar != null && (calendar.isBooked(hall.getId(), query.getFreeFrom(), query.getFreeUntil())
+                    || maintenance.overlaps(hall.getId(), query.getFreeFrom(), query.getFreeUntil()))) {
+                continue;
+            }
+            matches.add(hall);
+        }
+        return matches;
+    }
+
+    // Intersection of the type and location bitsets, or null when the query sets neither
+    private BitSet exactMatches(HallQuery query) {
+        BitSet result = null;
+        if (query.getType() != null) {
+            result = copyOf(byType.get(query.getType()));
+        }
+        if (query.getLocation() != null) {
+            BitSet location = byLocation.get(query.getLocation().toLowerCase());
+            if (result == null) {
+                result = copyOf(location);
+            } else if (location == null) {
+                result.clear();
+            } else {
+                result.and(location);
+            }
+        }
+        return result;
+    }
+
+    private static BitSet copyOf(BitSet bits) {
+        return bits == null ? new BitSet() : (BitSet) bits.clone();
+    }
+
+    private int[] sortedPositions(Comparator<Integer> order) {
+        return IntStream.range(0, halls.size()).boxed().sorted(order).mapToInt(Integer::intValue).toArray();
+    }
+
+    // First index whose value is >= min
+    private static int lowerBound(int[] sorted, int min) {
+        int low = 0;
+        int high = sorted.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (sorted[mid] < min) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    // First index whose value is > max
+    private static int upperBound(int[] sorted, int max) {
+        int low = 0;
+        int high = sorted.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (sorted[mid] <= max) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private static int lowerBound(double[] sorted, double min) {
+        int low = 0;
+        int high = sorted.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (sorted[mid] < min) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private static int upperBound(double[] sorted, double max) {
+        int low = 0;
+        int high = sorted.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (sorted[mid] <= max) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+}
@@ -0,0 +1,202 @@
+package main.java.com.hallbooking.common.index;
+
+import main.java.com.hallbooking.common.logging.Logger;
+import main.java.com.hallbooking.common.models.MaintenanceWindow;
+import main.java.com.hallbooking.common.storage.CsvRecord;
+import main.java.com.hallbooking.common.storage.FileTransaction;
+import main.java.com.hallbooking.common.utils.FileHandler;
+import main.java.com.hallbooking.common.utils.IdGenerator;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+// Every maintenance window in maintenance.txt, per hall, and the one place that writes the file.
+// Each hall's windows are an immutable array sorted by start, with the largest end seen so far
+// alongside, so an overlap check is one binary search: the windows starting before the query ends
+// are a prefix, and one of them reaches past the query's start exactly when the prefix's largest
+// end does. Booking, scheduling and the month views all ask this index, so they always agree.
+// Rows still in an older layout are rewritten in the canonical one the next time a window is recorded.
+public class MaintenanceIndex {
+    private static final Logger LOG = Logger.getLogger(MaintenanceIndex.class);
+    private static final String MAINTENANCE_FILE = "maintenance.txt";
+    // What a load reads; a transaction whose commit hooks may load the index declares these
+    public static final List<String> SOURCE_FILES = List.of(MAINTENANCE_FILE);
+
+    private static final ResidentInstance<MaintenanceIndex> SHARED =
+            new ResidentInstance<>(MAINTENANCE_FILE, MaintenanceIndex::loadShared);
+
+    private final Map<String, HallWindows> halls = new ConcurrentHashMap<>();
+
+    public static MaintenanceIndex getInstance() {
+        return SHARED.get();
+    }
+
+    private static MaintenanceIndex loadShared() throws IOException {
+        MaintenanceIndex loaded = new MaintenanceIndex();
+        Map<String, List<MaintenanceWindow>> byHall = new HashMap<>();
+        for (String line : FileHandler.readRecords(MAINTENANCE_FILE, CsvRecord::line)) {
+            MaintenanceWindow window = MaintenanceWindow.fromCsvString(line);
+            if (window == null) {
+                LOG.warn("Invalid maintenance data: " + line);
+            } else {
+                byHall.computeIfAbsent(window.getHallId(), id -> new ArrayList<>()).add(window);
+            }
+        }
+        byHall.forEach((hallId, windows) -> {
+            // Stable, so windows with the same start keep their file order
+            windows.sort(Comparator.comparing(MaintenanceWindow::getStart));
+            loaded.halls.put(hallId, new HallWindows(windows.toArray(new MaintenanceWindow[0])));
+        });
+        return loaded;
+    }
+
+    // Drops the shared index so the next getInstance() re-reads the file
+    public static void invalidate() {
+        SHARED.invalidate();
+    }
+
+    // Appends the window to maintenance.txt and, once committed, to this index and the slot calendar.
+    // Rows in an older layout are rewritten in the canonical one in the same commit.
+    public void record(MaintenanceWindow window) throws IOException {
+        // The calendar hook may have to build the calendar, so its files are held as well
+        List<String> files = new ArrayList<>(OccupancyCalendar.SOURCE_FILES);
+        files.add(MAINTENANCE_FILE);
+        try (FileTransaction transaction = FileHandler.beginTransaction(files)) {
+            List<String> lines = transaction.read(MAINTENANCE_FILE);
+            boolean migrated = false;
+            for (int i = 0; i < lines.size(); i++) {
+                MaintenanceWindow existing = MaintenanceWindow.fromCsvString(lines.get(i));
+                if (existing == null) {
+                    continue;
+                }
+                if (existing.getId().isEmpty()) {
+                    existing = existing.withId(IdGenerator.next(IdGenerator.Entity.MAINTENANCE));
+                }
+                String canonical = existing.toCsvString();
+                if (!canonical.equals(lines.get(i))) {
+                    lines.set(i, canonical);
+                    migrated = true;
+                }
+            }
+            if (migrated) {
+                lines.add(window.toCsvString());
+                transaction.write(MAINTENANCE_FILE, lines);
+                // Older rows have just been given IDs; reload them as written
+                transaction.onCommit(MaintenanceIndex::invalidate);
+            } else {
+                transaction.append(MAINTENANCE_FILE, window.toCsvString());
+                transaction.onCommit(() -> MaintenanceIndex.getInstance().add(window));
+            }
+            transaction.onCommit(() -> OccupancyCalendar.getInstance()
+                    .addMaintenance(window.getHallId(), window.getStart(), window.getEnd()));
+            if (!transaction.commit()) {
+                throw new IOException("Could not save maintenance for hall " + window.getHallId());
+            }
+            if (migrated) {
+                LOG.info("Rewrote " + MAINTENANCE_FILE + " in the canonical maintenance layout");
+            }
+        }
+    }
+
+    // Overlap with [start, end): start < windowEnd && windowStart < end
+    public boolean overlaps(String hallId, LocalDateTime start, LocalDateTime end) {
+        HallWindows windows = halls.get(hallId);
+        return windows != null && windows.overlaps(seconds(start), seconds(end));
+    }
+
+    // True if a window of the hall has not ended by the given time
+    public boolean hasMaintenanceAfter(String hallId, LocalDateTime time) {
+        HallWindows windows = halls.get(hallId);
+        return windows != null && windows.size() > 0 && windows.maxEnds[windows.size() - 1] > seconds(time);
+    }
+
+    // The hall's windows in order of start
+    public List<MaintenanceWindow> getWindows(String hallId) {
+        HallWindows windows = halls.get(hallId);
+        return windows == null ? Collections.emptyList() : Collections.unmodifiableList(Arrays.asList(windows.byStart));
+    }
+
+    public void forEach(Consumer<MaintenanceWindow> visitor) {
+        for (HallWindows windows : halls.values()) {
+            for (MaintenanceWindow window : windows.byStart) {
+                visitor.accept(window);
+            }
+        }
+    }
+
+    void add(MaintenanceWindow window) {
+        halls.compute(window.getHallId(), (hallId, current) -> current == null
+                ? new HallWindows(new MaintenanceWindow[]{window})
+                : current.with(window));
+    }
+
+    private static long seconds(LocalDateTime time) {
+        return time.toEpochSecond(ZoneOffset.UTC);
+    }
+
+    private static class HallWindows {
+        final MaintenanceWindow[] byStart;
+        final long[] starts;
+        // maxEnds[i] is the largest end among byStart[0..i]. Windows that end before they start
+        // are left out of it, so they never overlap anything.
+        final long[] maxEnds;
+
+        HallWindows(MaintenanceWindow[] byStart) {
+            this.byStart = byStart;
+            starts = new long[byStart.length];
+            maxEnds = new long[byStart.length];
+            long maxEnd = Long.MIN_VALUE;
+            for (int i = 0; i < byStart.length; i++) {
+                starts[i] = seconds(byStart[i].getStart());
+                long end = seconds(byStart[i].getEnd());
+                if (end > starts[i]) {
+                    maxEnd = Math.max(maxEnd, end);
+                }
+                maxEnds[i] = maxEnd;
+            }
+        }
+
+        int size() {
+            return byStart.length;
+        }
+
+        HallWindows with(MaintenanceWindow window) {
+            int at = firstStartingAtOrAfter(seconds(window.getStart()) + 1);
+            List<MaintenanceWindow> windows = new ArrayList<>(Arrays.asList(byStart));
+            windows.add(at, window);
+            return new HallWindows(windows.toArray(new MaintenanceWindow[0]));
+        }
+
+        boolean overlaps(long start, long end) {
+            if (start >= end) {
+                return false;
+            }
+            int before = firstStartingAtOrAfter(end);
+            return before > 0 && maxEnds[before - 1] > start;
+        }
+
+        private int firstStartingAtOrAfter(long time) {
+            int low = 0;
+            int high = starts.length;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (starts[mid] < time) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+    }
+}
@@ -0,0 +1,285 @@
+package main.java.com.hallbooking.common.index;
+
+import main.java.com.hallbooking.common.logging.Logger;
+import main.java.com.hallbooking.common.storage.CsvRecord;
+import main.java.com.hallbooking.common.utils.DateTimeUtils;
+import main.java.com.hallbooking.common.utils.FileHandler;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.YearMonth;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Per-hall slot bitmaps for bookings, maintenance and the availability windows schedulers set,
+// so availability checks and month grids test bits instead of rescanning the files.
+// A slot bit means some interval touches that slot. Slots lying wholly inside a query answer
+// it from the bits alone; only a set bit on a partly covered edge slot falls back to an exact
+// check in BookingIndex. Maintenance conflicts are answered by MaintenanceIndex, which the
+// maintenance bits are built from.
+// Slot length is -Dhallbooking.calendar.slotMinutes (default 60) and must divide a day.
+public class OccupancyCalendar {
+    private static final Logger LOG = Logger.getLogger(OccupancyCalendar.class);
+    private static final String HALL_AVAILABILITY_FILE = "hallAvailability.txt";
+    // What a build reads, through the indexes it is built from; a transaction whose commit hooks
+    // may build the calendar declares these
+    public static final List<String> SOURCE_FILES = sourceFiles();
+    private static final int MINUTES_PER_DAY = 24 * 60;
+
+    private static final int SLOT_MINUTES = slotMinutes(Integer.getInteger("hallbooking.calendar.slotMinutes", 60));
+
+    private static final ResidentInstance<OccupancyCalendar> SHARED =
+            new ResidentInstance<>("the occupancy calendar", OccupancyCalendar::loadShared);
+
+    private final Map<String, HallCalendar> halls = new HashMap<>();
+
+    public static OccupancyCalendar getInstance() {
+        return SHARED.get();
+    }
+
+    private static OccupancyCalendar loadShared() throws IOException {
+        OccupancyCalendar loaded = new OccupancyCalendar();
+        BookingIndex.getInstance().forEach(booking ->
+                loaded.hall(booking.getHallId()).booked.set(slotFloor(booking.getStartMinute()), slotCeiling(booking.getEndMinute())));
+        MaintenanceIndex.getInstance().forEach(window ->
+                loaded.addMaintenance(window.getHallId(), window.getStart(), window.getEnd()));
+        FileHandler.readRecords(HALL_AVAILABILITY_FILE, CsvRecord::line).forEach(loaded::addAvailabilityLine);
+        return loaded;
+    }
+
+    // Drops the shared calendar so the next getInstance() rebuilds it.
+    // Called after availability windows are written.
+    public static void invalidate() {
+        SHARED.invalidate();
+    }
+
+    private static List<String> sourceFiles() {
+        List<String> files = new ArrayList<>(BookingIndex.SOURCE_FILES);
+        files.addAll(MaintenanceIndex.SOURCE_FILES);
+        files.add(HALL_AVAILABILITY_FILE);
+        return List.copyOf(files);
+    }
+
+    public static int getSlotMinutes() {
+        return SLOT_MINUTES;
+    }
+
+    public synchronized void addBooking(String hallId, LocalDateTime start, LocalDateTime end) {
+        hall(hallId).booked.set(slotFloor(BookingStore.toEpochMinute(start)), slotCeiling(BookingStore.toEpochMinuteCeiling(end)));
+    }
+
+    // Call after the booking has left BookingIndex; each slot it touched is cleared unless
+    // another booking still reaches into it
+    public void removeBooking(String hallId, LocalDateTime start, LocalDateTime end) {
+        BookingIndex index = BookingIndex.getInstance();
+        int from = slotFloor(BookingStore.toEpochMinute(start));
+        int to = slotCeiling(BookingStore.toEpochMinuteCeiling(end));
+        synchronized (this) {
+            HallCalendar calendar = halls.get(hallId);
+            if (calendar == null) {
+                return;
+            }
+            for (int slot = from; slot < to; slot++) {
+                if (index.isHallAvailable(hallId, slotStart(slot), slotStart(slot + 1))) {
+                    calendar.booked.clear(slot, slot + 1);
+                }
+            }
+        }
+    }
+
+    // Same answer as BookingIndex.isHallAvailable, which is only asked when an edge slot is set
+    public boolean isBooked(String hallId, LocalDateTime start, LocalDateTime end) {
+        int startMinute = BookingStore.toEpochMinute(start);
+        int endMinute = BookingStore.toEpochMinuteCeiling(end);
+        synchronized (this) {
+            HallCalendar calendar = halls.get(hallId);
+            if (calendar == null || startMinute >= endMinute) {
+                return false;
+            }
+            switch (probe(calendar.booked, startMinute, endMinute)) {
+                case CLEAR:
+                    return false;
+                case SET:
+                    return true;
+                default:
+                    break;
+            }
+        }
+        return !BookingIndex.getInstance().isHallAvailable(hallId, start, end);
+    }
+
+    public synchronized void addMaintenance(String hallId, LocalDateTime start, LocalDateTime end) {
+        int startMinute = BookingStore.toEpochMinute(start);
+        int endMinute = BookingStore.toEpochMinuteCeiling(end);
+        if (endMinute > startMinute) {
+            hall(hallId).maintenance.set(slotFloor(startMinute), slotCeiling(endMinute));
+        }
+    }
+
+    // True if an availability window for the hall touches any day from startDate to endDate, inclusive
+    public synchronized boolean hasAvailabilityOn(String hallId, LocalDate startDate, LocalDate endDate) {
+        HallCalendar calendar = halls.get(hallId);
+        if (calendar == null) {
+            return false;
+        }
+        return calendar.availability.any(dayStartSlot(startDate), dayStartSlot(endDate.plusDays(1)));
+    }
+
+    // Free, booked and maintenance slot counts for every hall and day of a month, between
+    // opening and closing time. A slot any booking or window touches counts as taken.
+    public synchronized MonthGrid monthGrid(YearMonth month, List<String> hallIds, LocalTime opening, LocalTime closing) {
+        int days = month.lengthOfMonth();
+        int openingSlot = opening.toSecondOfDay() / 60 / SLOT_MINUTES;
+        int closingSlot = Math.max(openingSlot, (closing.toSecondOfDay() / 60 + SLOT_MINUTES - 1) / SLOT_MINUTES);
+        MonthGrid grid = new MonthGrid(month, hallIds, closingSlot - openingSlot);
+        for (int h = 0; h < hallIds.size(); h++) {
+            HallCalendar calendar = halls.get(hallIds.get(h));
+            for (int day = 0; day < days; day++) {
+                int dayStart = dayStartSlot(month.atDay(day + 1));
+                int from = dayStart + openingSlot;
+                int to = dayStart + closingSlot;
+                if (calendar == null) {
+                    grid.free[h][day] = grid.slotsPerDay;
+                    continue;
+                }
+                grid.booked[h][day] = SlotBitmap.countUnion(from, to, calendar.booked);
+                grid.maintenance[h][day] = SlotBitmap.countUnion(from, to, calendar.maintenance);
+                grid.free[h][day] = grid.slotsPerDay - SlotBitmap.countUnion(from, to, calendar.booked, calendar.maintenance);
+                grid.availabilitySet[h][day] = calendar.availability.any(dayStart, dayStart + MINUTES_PER_DAY / SLOT_MINUTES);
+            }
+        }
+        return grid;
+    }
+
+    private enum Probe { CLEAR, SET, EDGE }
+
+    // SET if a slot wholly inside [startMinute, endMinute) is set, CLEAR if no touched slot is,
+    // EDGE if only a partly covered end slot is and the caller has to look closer
+    private static Probe probe(SlotBitmap bitmap, int startMinute, int endMinute) {
+        int firstSlot = slotFloor(startMinute);
+        int lastSlot = slotCeiling(endMinute);
+        int firstWhole = slotCeiling(startMinute);
+        int lastWhole = slotFloor(endMinute);
+        if (firstWhole < lastWhole && bitmap.any(firstWhole, lastWhole)) {
+            return Probe.SET;
+        }
+        boolean edge = (firstSlot < firstWhole && bitmap.get(firstSlot))
+                || (lastWhole < lastSlot && bitmap.get(lastSlot - 1));
+        return edge ? Probe.EDGE : Probe.CLEAR;
+    }
+
+    private HallCalendar hall(String hallId) {
+        return halls.computeIfAbsent(hallId, id -> new HallCalendar());
+    }
+
+    // hallId,start,end. Marks every slot from the one holding start to the one holding end, so a
+    // window counts on each calendar day it touches, as the date comparison it replaces did
+    private void addAvailabilityLine(String line) {
+        String[] parts = line.split(",");
+        if (parts.length != 3) {
+            return;
+        }
+        LocalDateTime start = parseOrNull(parts[1]);
+        LocalDateTime end = parseOrNull(parts[2]);
+        if (start == null || end == null) {
+            LOG.warn("Invalid availability data: " + line);
+            return;
+        }
+        int from = slotFloor(BookingStore.toEpochMinute(start));
+        int to = slotFloor(BookingStore.toEpochMinute(end)) + 1;
+        hall(parts[0].trim()).availability.set(from, Math.max(from + 1, to));
+    }
+
+    private static LocalDateTime parseOrNull(String text) {
+        try {
+            return DateTimeUtils.parseDateTime(text.trim());
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+
+    private static int slotFloor(int minute) {
+        return Math.floorDiv(minute, SLOT_MINUTES);
+    }
+
+    private static int slotCeiling(int minute) {
+        return -Math.floorDiv(-minute, SLOT_MINUTES);
+    }
+
+    private static int dayStartSlot(LocalDate date) {
+        return Math.toIntExact(date.toEpochDay() * (MINUTES_PER_DAY / SLOT_MINUTES));
+    }
+
+    private static LocalDateTime slotStart(int slot) {
+        return BookingStore.fromEpochMinute(slot * SLOT_MINUTES);
+    }
+
+    private static int slotMinutes(int requested) {
+        if (requested <= 0 || MINUTES_PER_DAY % requested != 0) {
+            LOG.warn("hallbooking.calendar.slotMinutes must divide a day, using 60 instead of " + requested);
+            return 60;
+        }
+        return requested;
+    }
+
+    private static class HallCalendar {
+        final SlotBitmap booked = new SlotBitmap();
+        final SlotBitmap maintenance = new SlotBitmap();
+        final SlotBitmap availability = new SlotBitmap();
+    }
+
+    public static class MonthGrid {
+        private final YearMonth month;
+        private final List<String> hallIds;
+        private final int slotsPerDay;
+        private final int[][] free;
+        private final int[][] booked;
+        private final int[][] maintenance;
+        private final boolean[][] availabilitySet;
+
+        MonthGrid(YearMonth month, List<String> hallIds, int slotsPerDay) {
+            this.month = month;
+            this.hallIds = new ArrayList<>(hallIds);
+            this.slotsPerDay = slotsPerDay;
+            int days = month.lengthOfMonth();
+            free = new int[hallIds.size()][days];
+            booked = new int[hallIds.size()][days];
+            maintenance = new int[hallIds.size()][days];
+            availabilitySet = new boolean[hallIds.size()][days];
+        }
+
+        public YearMonth getMonth() {
+            return month;
+        }
+
+        public List<String> getHallIds() {
+            return hallIds;
+        }
+
+        public int getSlotsPerDay() {
+            return slotsPerDay;
+        }
+
+        // hall is the position in getHallIds(), day is the day of the month starting at 1
+        public int getFreeSlots(int hall, int day) {
+            return free[hall][day - 1];
+        }
+
+        public int getBookedSlots(int hall, int day) {
+            return booked[hall][day - 1];
+        }
+
+        public int getMaintenanceSlots(int hall, int day) {
+            return maintenance[hall][day - 1];
+        }
+
+        public boolean isAvailabilitySet(int hall, int day) {
+            return availabilitySet[hall][day - 1];
+        }
+    }
+}
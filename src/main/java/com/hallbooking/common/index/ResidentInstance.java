@@ -0,0 +1,62 @@
+package main.java.com.hallbooking.common.index;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+// The shared, lazily loaded copy of one resident index, and the one place that decides how it is
+// loaded and dropped. Every index built from the data files (BookingIndex, RevenueCube,
+// MaintenanceIndex, OccupancyCalendar, IssueRepository) holds one of these.
+// The load runs outside the lock, so a caller never waits on a file lock while holding it: a
+// transaction holding that file lock may be waiting on this one from a commit hook. A load is only
+// installed if no invalidate() happened while it ran, since the change that invalidate announced
+// may have missed it; otherwise it is retried. A load that fails installs nothing and throws, so
+// the next caller reads the files again rather than trusting part of them.
+public final class ResidentInstance<T> {
+    public interface Loader<T> {
+        T load() throws IOException;
+    }
+
+    private final String description;
+    private final Loader<T> loader;
+    private T instance;
+    // Bumped by invalidate
+    private long generation;
+
+    public ResidentInstance(String description, Loader<T> loader) {
+        this.description = description;
+        this.loader = loader;
+    }
+
+    public T get() {
+        while (true) {
+            long started;
+            synchronized (this) {
+                if (instance != null) {
+                    return instance;
+                }
+                started = generation;
+            }
+            T loaded;
+            try {
+                loaded = loader.load();
+            } catch (IOException e) {
+                throw new UncheckedIOException("Could not load " + description, e);
+            }
+            synchronized (this) {
+                if (instance != null) {
+                    return instance;
+                }
+                if (generation == started) {
+                    instance = loaded;
+                    return instance;
+                }
+            }
+        }
+    }
+
+    // Drops the shared copy so the next get() loads it again
+    public synchronized void invalidate() {
+        instance = null;
+        generation++;
+    }
+}
@@ -0,0 +1,345 @@
+package main.java.com.hallbooking.common.index;
+
+import main.java.com.hallbooking.common.logging.Logger;
+import main.java.com.hallbooking.common.storage.CsvRecord;
+import main.java.com.hallbooking.common.utils.FileHandler;
+
+import java.io.IOException;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.temporal.TemporalAdjusters;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.function.Function;
+
+// Booking and cancellation totals rolled up per day, week, month and year, overall and per hall.
+// Loaded once from bookings.txt and history.txt and kept in sync by BookingManager, so a report
+// touches a handful of buckets instead of every booking. Rows are bucketed by booking start time,
+// which is the date the reports have always filtered on.
+public class RevenueCube {
+    private static final Logger LOG = Logger.getLogger(RevenueCube.class);
+    private static final String BOOKINGS_FILE = "bookings.txt";
+    private static final String HISTORY_FILE = "history.txt";
+    // What a load reads; a transaction whose commit hooks may load the cube declares these
+    public static final List<String> SOURCE_FILES = List.of(BOOKINGS_FILE, HISTORY_FILE);
+
+    private static final ResidentInstance<RevenueCube> SHARED =
+            new ResidentInstance<>(BOOKINGS_FILE + " and " + HISTORY_FILE, RevenueCube::loadShared);
+
+    private final Rollup total = new Rollup();
+    private final Map<String, Rollup> rollupsByHall = new HashMap<>();
+    private final Map<String, Row> activeBookings = new HashMap<>();
+    // The cancelled amount reported for a booking ID is the one on its first history line, in cents
+    private final Map<String, Long> cancelledAmounts = new HashMap<>();
+
+    public static RevenueCube getInstance() {
+        return SHARED.get();
+    }
+
+    private static RevenueCube loadShared() throws IOException {
+        RevenueCube loaded = new RevenueCube();
+        FileHandler.scanFile(BOOKINGS_FILE, record -> {
+            Row row = parseRow(record, false);
+            if (row != null) {
+                loaded.addRow(row);
+            }
+            return true;
+        });
+        FileHandler.scanFile(HISTORY_FILE, record -> {
+            Row row = parseRow(record, true);
+            if (row != null) {
+                loaded.addCancellationRow(row);
+            }
+            return true;
+        });
+        return loaded;
+    }
+
+    // Drops the shared cube so the next getInstance() re-reads the files
+    public static void invalidate() {
+        SHARED.invalidate();
+    }
+
+    public synchronized void addBooking(String bookingId, String hallId, LocalDateTime start, double amount) {
+        removeBooking(bookingId);
+        addRow(new Row(bookingId, hallId, start, toCents(amount), false));
+    }
+
+    // Moves a booking from the confirmed totals to the cancelled ones
+    public synchronized void cancelBooking(String bookingId, String hallId, LocalDateTime start, double amount) {
+        removeBooking(bookingId);
+        addCancellationRow(new Row(bookingId, hallId, start, toCents(amount), true));
+    }
+
+    // Rows starting strictly between from and to; hallId null means every hall
+    public synchronized Summary summarize(String hallId, LocalDateTime from, LocalDateTime to) {
+        Summary summary = new Summary();
+        Rollup rollup = rollupFor(hallId);
+        if (rollup == null || !from.isBefore(to)) {
+            return summary;
+        }
+        LocalDate firstDay = from.toLocalDate();
+        LocalDate lastDay = to.toLocalDate();
+        if (firstDay.equals(lastDay)) {
+            addRowsBetween(rollup.days.get(firstDay), from, to, summary);
+            return summary;
+        }
+        // Only the two boundary days need their rows looked at; the days between come from buckets
+        addRowsBetween(rollup.days.get(firstDay), from, to, summary);
+        addDays(rollup, firstDay.plusDays(1), lastDay.minusDays(1), summary);
+        addRowsBetween(rollup.days.get(lastDay), from, to, summary);
+        return summary;
+    }
+
+    // The Monday-to-Sunday week containing day
+    public synchronized Summary summarizeWeek(String hallId, LocalDate day) {
+        return copyOf(rollupFor(hallId), rollup -> rollup.weeks.get(weekStart(day)));
+    }
+
+    public synchronized Summary summarizeMonth(String hallId, YearMonth month) {
+        return copyOf(rollupFor(hallId), rollup -> rollup.months.get(month));
+    }
+
+    public synchronized Summary summarizeYear(String hallId, int year) {
+        return copyOf(rollupFor(hallId), rollup -> rollup.years.get(year));
+    }
+
+    // Confirmed revenue per day, week, month or year bucket overlapping [from, to], oldest first.
+    // Buckets with no bookings are included as 0 so the series lines up with the calendar.
+    public synchronized List<Double> revenueSeries(String hallId, LocalDate from, LocalDate to, Granularity granularity) {
+        List<Double> series = new ArrayList<>();
+        Rollup rollup = rollupFor(hallId);
+        switch (granularity) {
+            case WEEK:
+                for (LocalDate week = weekStart(from); !week.isAfter(to); week = week.plusWeeks(1)) {
+                    series.add(revenueOf(rollup == null ? null : rollup.weeks.get(week)));
+                }
+                break;
+            case MONTH:
+                for (YearMonth month = YearMonth.from(from); !month.isAfter(YearMonth.from(to)); month = month.plusMonths(1)) {
+                    series.add(revenueOf(rollup == null ? null : rollup.months.get(month)));
+                }
+                break;
+            case YEAR:
+                for (int year = from.getYear(); year <= to.getYear(); year++) {
+                    series.add(revenueOf(rollup == null ? null : rollup.years.get(year)));
+                }
+                break;
+            default:
+                for (LocalDate day = from; !day.isAfter(to); day = day.plusDays(1)) {
+                    Day bucket = rollup == null ? null : rollup.days.get(day);
+                    series.add(revenueOf(bucket == null ? null : bucket.totals));
+                }
+        }
+        return series;
+    }
+
+    public enum Granularity {
+        DAY, WEEK, MONTH, YEAR
+    }
+
+    // Amounts are summed in cents, as BookingStore keeps them, so buckets that are added to and taken
+    // from for as long as the cube lives never drift; the double getters are for display
+    public static class Summary {
+        private int bookings;
+        private long revenueCents;
+        private int cancellations;
+        private long cancelledCents;
+
+        public int getBookings() { return bookings; }
+        public long getRevenueCents() { return revenueCents; }
+        public double getRevenue() { return fromCents(revenueCents); }
+        public int getCancellations() { return cancellations; }
+        public long getCancelledAmountCents() { return cancelledCents; }
+        public double getCancelledAmount() { return fromCents(cancelledCents); }
+
+        private void add(Summary other) {
+            bookings += other.bookings;
+            revenueCents += other.revenueCents;
+            cancellations += other.cancellations;
+            cancelledCents += other.cancelledCents;
+        }
+
+        private void add(Row row, int sign) {
+            if (row.cancelled) {
+                cancellations += sign;
+                cancelledCents += sign * row.amountCents;
+            } else {
+                bookings += sign;
+                revenueCents += sign * row.amountCents;
+            }
+        }
+    }
+
+    private void addRow(Row row) {
+        if (!row.cancelled) {
+            activeBookings.put(row.bookingId, row);
+        }
+        total.apply(row, 1);
+        rollupsByHall.computeIfAbsent(row.hallId, hallId -> new Rollup()).apply(row, 1);
+    }
+
+    private void addCancellationRow(Row row) {
+        Long firstAmount = cancelledAmounts.putIfAbsent(row.bookingId, row.amountCents);
+        addRow(firstAmount == null ? row : new Row(row.bookingId, row.hallId, row.start, firstAmount, true));
+    }
+
+    private void removeBooking(String bookingId) {
+        Row row = activeBookings.remove(bookingId);
+        if (row != null) {
+            total.apply(row, -1);
+            rollupsByHall.get(row.hallId).apply(row, -1);
+        }
+    }
+
+    private Rollup rollupFor(String hallId) {
+        return hallId == null ? total : rollupsByHall.get(hallId);
+    }
+
+    private static Summary copyOf(Rollup rollup, Function<Rollup, Summary> bucket) {
+        Summary summary = new Summary();
+        if (rollup != null) {
+            Summary found = bucket.apply(rollup);
+            if (found != null) {
+                summary.add(found);
+            }
+        }
+        return summary;
+    }
+
+    private static double revenueOf(Summary bucket) {
+        return bucket == null ? 0.0 : fromCents(bucket.revenueCents);
+    }
+
+    private static long toCents(double amount) {
+        return Math.round(amount * BookingStore.AMOUNT_SCALE);
+    }
+
+    private static double fromCents(long cents) {
+        return cents / (double) BookingStore.AMOUNT_SCALE;
+    }
+
+    private static void addRowsBetween(Day day, LocalDateTime from, LocalDateTime to, Summary summary) {
+        if (day == null) {
+            return;
+        }
+        for (Row row : day.rows) {
+            if (row.start.isAfter(from) && row.start.isBefore(to)) {
+                summary.add(row, 1);
+            }
+        }
+    }
+
+    // Whole days from..to inclusive: leading days, whole months (or years), trailing days
+    private static void addDays(Rollup rollup, LocalDate from, LocalDate to, Summary summary) {
+        if (from.isAfter(to)) {
+            return;
+        }
+        LocalDate firstWholeMonth = from.getDayOfMonth() == 1 ? from : from.withDayOfMonth(1).plusMonths(1);
+        LocalDate afterWholeMonths = to.plusDays(1).withDayOfMonth(1);
+        if (!firstWholeMonth.isBefore(afterWholeMonths)) {
+            addDayBuckets(rollup, from, to, summary);
+            return;
+        }
+        addDayBuckets(rollup, from, firstWholeMonth.minusDays(1), summary);
+        addMonths(rollup, YearMonth.from(firstWholeMonth), YearMonth.from(afterWholeMonths).minusMonths(1), summary);
+        addDayBuckets(rollup, afterWholeMonths, to, summary);
+    }
+
+    private static void addMonths(Rollup rollup, YearMonth from, YearMonth to, Summary summary) {
+        int firstWholeYear = from.getMonthValue() == 1 ? from.getYear() : from.getYear() + 1;
+        int afterWholeYears = to.plusMonths(1).getYear();
+        if (firstWholeYear >= afterWholeYears) {
+            addBuckets(rollup.months, from, to, summary);
+            return;
+        }
+        addBuckets(rollup.months, from, YearMonth.of(firstWholeYear, 1).minusMonths(1), summary);
+        addBuckets(rollup.years, firstWholeYear, afterWholeYears - 1, summary);
+        addBuckets(rollup.months, YearMonth.of(afterWholeYears, 1), to, summary);
+    }
+
+    private static void addDayBuckets(Rollup rollup, LocalDate from, LocalDate to, Summary summary) {
+        if (from.isAfter(to)) {
+            return;
+        }
+        for (Day day : rollup.days.subMap(from, true, to, true).values()) {
+            summary.add(day.totals);
+        }
+    }
+
+    private static <K extends Comparable<K>> void addBuckets(NavigableMap<K, Summary> buckets, K from, K to, Summary summary) {
+        if (from.compareTo(to) > 0) {
+            return;
+        }
+        for (Summary bucket : buckets.subMap(from, true, to, true).values()) {
+            summary.add(bucket);
+        }
+    }
+
+    private static LocalDate weekStart(LocalDate day) {
+        return day.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+    }
+
+    // bookingId, customerId, hallId, start, end, amount
+    private static Row parseRow(CsvRecord record, boolean cancelled) {
+        if (record.fieldCount() < 6) {
+            LOG.warn("Skipping invalid booking record: " + record.line());
+            return null;
+        }
+        try {
+            return new Row(record.field(0), record.field(2), record.dateTimeField(3), toCents(record.doubleField(5)), cancelled);
+        } catch (RuntimeException e) {
+            LOG.warn("Skipping invalid booking record: " + record.line() + " - " + e.getMessage());
+            return null;
+        }
+    }
+
+    private static class Row {
+        final String bookingId;
+        final String hallId;
+        final LocalDateTime start;
+        final long amountCents;
+        final boolean cancelled;
+
+        Row(String bookingId, String hallId, LocalDateTime start, long amountCents, boolean cancelled) {
+            this.bookingId = bookingId;
+            this.hallId = hallId;
+            this.start = start;
+            this.amountCents = amountCents;
+            this.cancelled = cancelled;
+        }
+    }
+
+    // A day keeps its rows as well as its totals, for ranges that start or end part-way through it
+    private static class Day {
+        final Summary totals = new Summary();
+        final List<Row> rows = new ArrayList<>();
+    }
+
+    private static class Rollup {
+        final TreeMap<LocalDate, Day> days = new TreeMap<>();
+        final TreeMap<LocalDate, Summary> weeks = new TreeMap<>();
+        final TreeMap<YearMonth, Summary> months = new TreeMap<>();
+        final TreeMap<Integer, Summary> years = new TreeMap<>();
+
+        void apply(Row row, int sign) {
+            LocalDate date = row.start.toLocalDate();
+            Day day = days.computeIfAbsent(date, d -> new Day());
+            day.totals.add(row, sign);
+            if (sign > 0) {
+                day.rows.add(row);
+            } else {
+                day.rows.remove(row);
+            }
+            weeks.computeIfAbsent(weekStart(date), w -> new Summary()).add(row, sign);
+            months.computeIfAbsent(YearMonth.from(date), m -> new Summary()).add(row, sign);
+            years.computeIfAbsent(date.getYear(), y -> new Summary()).add(row, sign);
+        }
+    }
+}
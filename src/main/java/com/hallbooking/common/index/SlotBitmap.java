@@ -0,0 +1,112 @@
+package main.java.com.hallbooking.common.index;
+
+// Growable bitmap over slot numbers (epoch minute / slot length). Only the words between the
+// lowest and highest slot ever set are allocated; everything outside reads as clear.
+// Ranges are half-open, [from, to).
+final class SlotBitmap {
+    private int baseWord;
+    private long[] words = new long[0];
+
+    void set(int from, int to) {
+        if (from >= to) {
+            return;
+        }
+        ensure(from >> 6, (to - 1) >> 6);
+        apply(from, to, true);
+    }
+
+    void clear(int from, int to) {
+        if (from >= to || words.length == 0) {
+            return;
+        }
+        int low = Math.max(from, baseWord << 6);
+        int high = Math.min(to, (baseWord + words.length) << 6);
+        if (low < high) {
+            apply(low, high, false);
+        }
+    }
+
+    boolean get(int slot) {
+        return (word(slot >> 6) & (1L << slot)) != 0;
+    }
+
+    boolean any(int from, int to) {
+        return count(from, to, true, this) > 0;
+    }
+
+    // Slots in [from, to) set in at least one of the layers, one word at a time
+    static int countUnion(int from, int to, SlotBitmap... layers) {
+        return count(from, to, false, layers);
+    }
+
+    private static int count(int from, int to, boolean stopAtFirst, SlotBitmap... layers) {
+        if (from >= to) {
+            return 0;
+        }
+        int firstWord = from >> 6;
+        int lastWord = (to - 1) >> 6;
+        int total = 0;
+        for (int w = firstWord; w <= lastWord; w++) {
+            long bits = 0;
+            for (SlotBitmap layer : layers) {
+                bits |= layer.word(w);
+            }
+            if (w == firstWord) {
+                bits &= -1L << from;
+            }
+            if (w == lastWord) {
+                bits &= -1L >>> (63 - ((to - 1) & 63));
+            }
+            total += Long.bitCount(bits);
+            if (stopAtFirst && total > 0) {
+                return total;
+            }
+        }
+        return total;
+    }
+
+    private long word(int index) {
+        int i = index - baseWord;
+        return i < 0 || i >= words.length ? 0 : words[i];
+    }
+
+    private void apply(int from, int to, boolean set) {
+        int firstWord = from >> 6;
+        int lastWord = (to - 1) >> 6;
+        for (int w = firstWord; w <= lastWord; w++) {
+            long mask = -1L;
+            if (w == firstWord) {
+                mask &= -1L << from;
+            }
+            if (w == lastWord) {
+                mask &= -1L >>> (63 - ((to - 1) & 63));
+            }
+            int i = w - baseWord;
+            words[i] = set ? words[i] | mask : words[i] & ~mask;
+        }
+    }
+
+    private void ensure(int firstWord, int lastWord) {
+        if (words.length == 0) {
+            baseWord = firstWord;
+            words = new long[lastWord - firstWord + 1];
+            return;
+        }
+        int newBase = Math.min(baseWord, firstWord);
+        int newEnd = Math.max(baseWord + words.length - 1, lastWord);
+        if (newBase == baseWord && newEnd == baseWord + words.length - 1) {
+            return;
+        }
+        // Leave headroom on the side that grew, so a run of appends does not copy every time
+        if (newBase < baseWord) {
+            newBase -= words.length / 2;
+        }
+        if (newEnd > baseWord + words.length - 1) {
+            newEnd += words.length / 2;
+        }
+        long[] grown = new long[newEnd - newBase + 1];
+        System.arraycopy(words, 0, grown, baseWord - newBase, words.length);
+        baseWord = newBase;
+        words = grown;
+    }
+}
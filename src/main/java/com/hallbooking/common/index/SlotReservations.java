@@ -0,0 +1,126 @@
+package main.java.com.hallbooking.common.index;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+
+// Slots claimed by bookings that are still being made. Each hall's claims are an immutable array
+// sorted by start, replaced by compare-and-set, so callers booking different halls or times never
+// wait on each other and the second of two overlapping claims fails straight away.
+// Claims only cover callers in flight: a booker reserves first, then checks the committed state
+// (OccupancyCalendar), and releases only after its commit has reached the calendar. Whichever of
+// two overlapping bookers reserves second therefore sees the first one either here or there.
+public class SlotReservations {
+    private static final SlotReservations INSTANCE = new SlotReservations();
+    private static final Reservation[] NONE = new Reservation[0];
+
+    private final ConcurrentHashMap<String, AtomicReference<Reservation[]>> halls = new ConcurrentHashMap<>();
+
+    public static SlotReservations getInstance() {
+        return INSTANCE;
+    }
+
+    // Null when [start, end) overlaps a slot another caller still holds
+    public Reservation tryReserve(String hallId, LocalDateTime start, LocalDateTime end) {
+        Reservation reservation = new Reservation(hallId,
+                BookingStore.toEpochMinute(start), BookingStore.toEpochMinuteCeiling(end));
+        AtomicReference<Reservation[]> slot = halls.computeIfAbsent(hallId, id -> new AtomicReference<>(NONE));
+        while (true) {
+            Reservation[] current = slot.get();
+            int at = insertionPoint(current, reservation.startMinute);
+            if ((at > 0 && current[at - 1].endMinute > reservation.startMinute)
+                    || (at < current.length && current[at].startMinute < reservation.endMinute)) {
+                return null;
+            }
+            Reservation[] next = new Reservation[current.length + 1];
+            System.arraycopy(current, 0, next, 0, at);
+            next[at] = reservation;
+            System.arraycopy(current, at, next, at + 1, current.length - at);
+            if (slot.compareAndSet(current, next)) {
+                return reservation;
+            }
+            // Lost a race with another claim or release on this hall; look again
+        }
+    }
+
+    public void release(Reservation reservation) {
+        AtomicReference<Reservation[]> slot = halls.get(reservation.hallId);
+        if (slot == null) {
+            return;
+        }
+        while (true) {
+            Reservation[] current = slot.get();
+            int at = indexOf(current, reservation);
+            if (at < 0) {
+                return;
+            }
+            Reservation[] next = current.length == 1 ? NONE : new Reservation[current.length - 1];
+            System.arraycopy(current, 0, next, 0, at);
+            System.arraycopy(current, at + 1, next, at, current.length - at - 1);
+            if (slot.compareAndSet(current, next)) {
+                return;
+            }
+        }
+    }
+
+    // Claims currently held on a hall
+    public int heldCount(String hallId) {
+        AtomicReference<Reservation[]> slot = halls.get(hallId);
+        return slot == null ? 0 : slot.get().length;
+    }
+
+    // First position whose start is not before startMinute
+    private static int insertionPoint(Reservation[] reservations, int startMinute) {
+        int low = 0;
+        int high = reservations.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (reservations[mid].startMinute < startMinute) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private static int indexOf(Reservation[] reservations, Reservation reservation) {
+        for (int at = insertionPoint(reservations, reservation.startMinute); at < reservations.length
+                && reservations[at].startMinute == reservation.startMinute; at++) {
+            if (reservations[at] == reservation) {
+                return at;
+            }
+        }
+        return -1;
+    }
+
+    public static class Reservation {
+        private final String hallId;
+        private final int startMinute;
+        private final int endMinute;
+
+        private Reservation(String hallId, int startMinute, int endMinute) {
+            this.hallId = hallId;
+            this.startMinute = startMinute;
+            this.endMinute = endMinute;
+        }
+
+        public String getHallId() {
+            return hallId;
+        }
+
+        @Override
+        public String toString() {
+            return "Reservation{" + hallId + ", " + BookingStore.fromEpochMinute(startMinute)
+                    + " - " + BookingStore.fromEpochMinute(endMinute) + "}";
+        }
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder text = new StringBuilder("SlotReservations{");
+        halls.forEach((hallId, slot) -> text.append(hallId).append('=').append(Arrays.toString(slot.get())).append(' '));
+        return text.append('}').toString();
+    }
+}
@@ -0,0 +1,9 @@
+package main.java.com.hallbooking.common.logging;
+
+public enum Level {
+    DEBUG,
+    INFO,
+    WARN,
+    ERROR,
+    OFF
+}
@@ -0,0 +1,36 @@
+package main.java.com.hallbooking.common.logging;
+
+import java.io.PrintStream;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+
+// One queued log call; formatted on the appender thread, not the caller's
+final class LogEvent {
+    private static final DateTimeFormatter TIMESTAMP =
+            DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss.SSS").withZone(ZoneId.systemDefault());
+
+    final long timestamp;
+    final Level level;
+    final String logger;
+    final String thread;
+    final String message;
+    final Throwable error;
+
+    LogEvent(long timestamp, Level level, String logger, String thread, String message, Throwable error) {
+        this.timestamp = timestamp;
+        this.level = level;
+        this.logger = logger;
+        this.thread = thread;
+        this.message = message;
+        this.error = error;
+    }
+
+    void writeTo(PrintStream out) {
+        out.println(TIMESTAMP.format(Instant.ofEpochMilli(timestamp)) + " " + String.format("%-5s", level)
+                + " [" + thread + "] " + logger + " - " + message);
+        if (error != null) {
+            error.printStackTrace(out);
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package main.java.com.hallbooking.common.logging;
+
+import java.util.function.Supplier;
+
+// Level-gated logging front end. Events below the threshold cost one comparison; suppliers are
+// only evaluated for events that pass it, so expensive messages should be passed as lambdas:
+//   LOG.debug(() -> "Parsed " + user);
+// Events are queued on a RingBufferAppender and written by a background thread.
+// The threshold comes from -Dhallbooking.log.level (DEBUG, INFO, WARN, ERROR or OFF; default INFO).
+public final class Logger {
+    private static volatile Level threshold = parseLevel(System.getProperty("hallbooking.log.level", "INFO"));
+    private static final RingBufferAppender APPENDER =
+            new RingBufferAppender(Integer.getInteger("hallbooking.log.bufferSize", 8192));
+
+    private final String name;
+
+    private Logger(String name) {
+        this.name = name;
+    }
+
+    public static Logger getLogger(Class<?> type) {
+        return new Logger(type.getSimpleName());
+    }
+
+    public static Level getLevel() {
+        return threshold;
+    }
+
+    public static void setLevel(Level level) {
+        threshold = level;
+    }
+
+    // Blocks until everything queued so far has been written
+    public static void flush() {
+        APPENDER.flush();
+    }
+
+    public static long getDroppedCount() {
+        return APPENDER.getDroppedCount();
+    }
+
+    public boolean isEnabled(Level level) {
+        return level.compareTo(threshold) >= 0 && level != Level.OFF;
+    }
+
+    public boolean isDebugEnabled() {
+        return isEnabled(Level.DEBUG);
+    }
+
+    public void debug(String message) {
+        log(Level.DEBUG, message, null);
+    }
+
+    public void debug(Supplier<String> message) {
+        if (isEnabled(Level.DEBUG)) {
+            log(Level.DEBUG, message.get(), null);
+        }
+    }
+
+    public void info(String message) {
+        log(Level.INFO, message, null);
+    }
+
+    public void info(Supplier<String> message) {
+        if (isEnabled(Level.INFO)) {
+            log(Level.INFO, message.get(), null);
+        }
+    }
+
+    public void warn(String message) {
+        log(Level.WARN, message, null);
+    }
+
+    public void warn(Supplier<String> message) {
+        if (isEnabled(Level.WARN)) {
+            log(Level.WARN, message.get(), null);
+        }
+    }
+
+    public void error(String message) {
+        log(Level.ERROR, message, null);
+    }
+
+    public void error(String message, Throwable error) {
+        log(Level.ERROR, message, error);
+    }
+
+    private void log(Level level, String message, Throwable error) {
+        if (isEnabled(level)) {
+            APPENDER.append(new LogEvent(System.currentTimeMillis(), level, name, Thread.currentThread().getName(), message, error));
+        }
+    }
+
+    private static Level parseLevel(String value) {
+        try {
+            return Level.valueOf(value.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            System.err.println("Unknown log level '" + value + "', using INFO");
+            return Level.INFO;
+        }
+    }
+}
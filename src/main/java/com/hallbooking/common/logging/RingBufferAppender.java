@@ -0,0 +1,100 @@
+package main.java.com.hallbooking.common.logging;
+
+import java.io.PrintStream;
+
+// Fixed-size ring of pending events drained by one daemon thread, so callers never wait on the console.
+// When the ring is full new events are dropped and counted rather than blocking the caller; the count
+// is reported once the writer catches up. DEBUG and INFO go to System.out, WARN and ERROR to System.err.
+final class RingBufferAppender {
+    private final LogEvent[] ring;
+    private int head;
+    private int size;
+    private long dropped;
+    private long unreportedDrops;
+    private long appended;
+    private long written;
+
+    RingBufferAppender(int capacity) {
+        ring = new LogEvent[Math.max(16, capacity)];
+        Thread writer = new Thread(this::drain, "log-writer");
+        writer.setDaemon(true);
+        writer.start();
+        Runtime.getRuntime().addShutdownHook(new Thread(this::flush, "log-flush"));
+    }
+
+    synchronized void append(LogEvent event) {
+        if (size == ring.length) {
+            dropped++;
+            unreportedDrops++;
+            return;
+        }
+        ring[(head + size) % ring.length] = event;
+        size++;
+        appended++;
+        notifyAll();
+    }
+
+    synchronized long getDroppedCount() {
+        return dropped;
+    }
+
+    // Waits, up to a few seconds, for the writer to finish everything appended before the call
+    synchronized void flush() {
+        long target = appended;
+        long deadline = System.currentTimeMillis() + 5000;
+        while (written < target) {
+            long remaining = deadline - System.currentTimeMillis();
+            if (remaining <= 0) {
+                return;
+            }
+            try {
+                wait(remaining);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    private void drain() {
+        LogEvent[] batch = new LogEvent[ring.length];
+        while (true) {
+            int count;
+            long drops;
+            synchronized (this) {
+                while (size == 0) {
+                    try {
+                        wait();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                }
+                count = size;
+                for (int i = 0; i < count; i++) {
+                    batch[i] = ring[(head + i) % ring.length];
+                    ring[(head + i) % ring.length] = null;
+                }
+                head = (head + count) % ring.length;
+                size = 0;
+                drops = unreportedDrops;
+                unreportedDrops = 0;
+            }
+            // Looked up per batch so a redirected System.out or System.err is honoured
+            PrintStream out = System.out;
+            PrintStream err = System.err;
+            for (int i = 0; i < count; i++) {
+                batch[i].writeTo(batch[i].level.compareTo(Level.WARN) >= 0 ? err : out);
+                batch[i] = null;
+            }
+            if (drops > 0) {
+                err.println("Logging fell behind: " + drops + " messages dropped");
+            }
+            out.flush();
+            err.flush();
+            synchronized (this) {
+                written += count;
+                notifyAll();
+            }
+        }
+    }
+}
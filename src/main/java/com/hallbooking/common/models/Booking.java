@@ -19,7 +19,12 @@ public class Booking {
     }
 
     public Booking(String customerId, String hallId, LocalDateTime startDateTime, LocalDateTime endDateTime) {
-        this.id = UUID.randomUUID().toString();
+        this(UUID.randomUUID().toString(), customerId, hallId, startDateTime, endDateTime);
+    }
+
+    // For bookings that already have an ID, such as those read back from a file
+    public Booking(String id, String customerId, String hallId, LocalDateTime startDateTime, LocalDateTime endDateTime) {
+        this.id = id;
         this.customerId = customerId;
         this.hallId = hallId;
         this.startDateTime = startDateTime;
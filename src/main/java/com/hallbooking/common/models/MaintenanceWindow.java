@@ -0,0 +1,120 @@
+package main.java.com.hallbooking.common.models;
+
+import main.java.com.hallbooking.common.utils.DateTimeUtils;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Arrays;
+import java.util.regex.Pattern;
+
+// One maintenance window of a hall. Stored in maintenance.txt as
+//   maintenanceId,hallId,start,end,schedulerId,issueId,remark
+// Windows scheduled from the hall screens have no issue; those scheduled for an issue have no remark.
+public class MaintenanceWindow {
+    private static final Pattern SCHEDULER_ID = Pattern.compile("S[A-Za-z0-9]*");
+    private static final Pattern ISSUE_ID = Pattern.compile("I[A-Za-z0-9]+");
+
+    private final String id;
+    private final String hallId;
+    private final LocalDateTime start;
+    private final LocalDateTime end;
+    private final String schedulerId;
+    private final String issueId;
+    private final String remark;
+
+    public MaintenanceWindow(String id, String hallId, LocalDateTime start, LocalDateTime end,
+                             String schedulerId, String issueId, String remark) {
+        this.id = id != null ? id : "";
+        this.hallId = hallId;
+        this.start = start;
+        this.end = end;
+        this.schedulerId = schedulerId != null ? schedulerId : "";
+        this.issueId = issueId != null ? issueId : "";
+        this.remark = remark != null ? remark : "";
+    }
+
+    // Getters
+    public String getId() { return id; }
+    public String getHallId() { return hallId; }
+    public LocalDateTime getStart() { return start; }
+    public LocalDateTime getEnd() { return end; }
+    public String getSchedulerId() { return schedulerId; }
+    public String getIssueId() { return issueId; }
+    public String getRemark() { return remark; }
+
+    public boolean hasIssue() {
+        return !issueId.isEmpty();
+    }
+
+    // Overlap with [from, to)
+    public boolean overlaps(LocalDateTime from, LocalDateTime to) {
+        return start.isBefore(to) && from.isBefore(end);
+    }
+
+    public MaintenanceWindow withId(String newId) {
+        return new MaintenanceWindow(newId, hallId, start, end, schedulerId, issueId, remark);
+    }
+
+    // Commas in the remark become semicolons, so every record has exactly seven fields
+    public String toCsvString() {
+        return String.join(",", id, hallId, DateTimeUtils.formatDateTime(start), DateTimeUtils.formatDateTime(end),
+                schedulerId, issueId, remark.replace(',', ';'));
+    }
+
+    // Reads the canonical record and the two layouts written before it:
+    //   hallId,start,end,schedulerId,issueId         (MaintenanceScheduler, no ID)
+    //   maintenanceId,hallId,start,end,remark...     (SchedulerManager)
+    // Seven fields alone do not make a canonical record, as an old remark may hold two commas. The
+    // canonical record is recognised by what it can hold after the times: no scheduler and no issue,
+    // or a scheduler ID, an issue ID and no remark. Other seven-field rows are read as old remarks.
+    // Returns null for anything else.
+    public static MaintenanceWindow fromCsvString(String line) {
+        String[] parts = line.split(",", -1);
+        if (parts.length < 5) {
+            return null;
+        }
+        try {
+            if (isDateTime(parts[1])) {
+                return new MaintenanceWindow("", parts[0].trim(), parse(parts[1]), parse(parts[2]),
+                        parts[3].trim(), parts[4].trim(), "");
+            }
+            LocalDateTime start = parse(parts[2]);
+            LocalDateTime end = parse(parts[3]);
+            if (parts.length == 7 && isCanonicalTail(parts[4].trim(), parts[5].trim(), parts[6])) {
+                return new MaintenanceWindow(parts[0].trim(), parts[1].trim(), start, end,
+                        parts[4].trim(), parts[5].trim(), parts[6]);
+            }
+            return new MaintenanceWindow(parts[0].trim(), parts[1].trim(), start, end, "", "",
+                    String.join(",", Arrays.copyOfRange(parts, 4, parts.length)));
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+
+    // An old remark can still take one of these shapes (",,text" or "S1,I2,"). Read as canonical, such
+    // a row already equals its canonical form, so MaintenanceIndex never rewrites it.
+    private static boolean isCanonicalTail(String schedulerId, String issueId, String remark) {
+        if (schedulerId.isEmpty() && issueId.isEmpty()) {
+            return true;
+        }
+        return remark.isEmpty() && SCHEDULER_ID.matcher(schedulerId).matches() && ISSUE_ID.matcher(issueId).matches();
+    }
+
+    private static boolean isDateTime(String text) {
+        try {
+            parse(text);
+            return true;
+        } catch (DateTimeParseException e) {
+            return false;
+        }
+    }
+
+    private static LocalDateTime parse(String text) {
+        return DateTimeUtils.parseDateTime(text.trim());
+    }
+
+    @Override
+    public String toString() {
+        return "MaintenanceWindow{" + toCsvString() + "}";
+    }
+}
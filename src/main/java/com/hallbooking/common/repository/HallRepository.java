@@ -0,0 +1,174 @@
+package main.java.com.hallbooking.common.repository;
+
+import main.java.com.hallbooking.common.index.HallQuery;
+import main.java.com.hallbooking.common.index.HallSearchIndex;
+import main.java.com.hallbooking.common.logging.Logger;
+import main.java.com.hallbooking.common.models.Hall;
+import main.java.com.hallbooking.common.storage.CsvRecord;
+import main.java.com.hallbooking.common.utils.FileHandler;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// The one parsed copy of hall.txt, shared by the scheduler, booking and filter code.
+// Writes made through saveHalls update it straight away; edits made to the file outside the
+// application are picked up from its modification time, checked at most once per interval.
+// Halls handed out are shared instances: replace a hall through saveHalls rather than mutating it.
+public class HallRepository {
+    private static final Logger LOG = Logger.getLogger(HallRepository.class);
+
+    public static final String HALL_FILE = "hall.txt";
+    private static final long CHECK_INTERVAL_MILLIS = Long.getLong("hallbooking.halls.checkIntervalMillis", 1000);
+
+    private static final HallRepository INSTANCE = new HallRepository();
+
+    private final Path hallPath = Paths.get(FileHandler.getDataDirectory() + HALL_FILE);
+    private volatile Catalog catalog;
+    private volatile long nextCheckMillis;
+
+    public static HallRepository getInstance() {
+        return INSTANCE;
+    }
+
+    // O(1); null when there is no hall with that ID
+    public Hall getHall(String hallId) {
+        return current().hallsById.get(hallId);
+    }
+
+    public boolean contains(String hallId) {
+        return current().hallsById.containsKey(hallId);
+    }
+
+    // In file order
+    public List<Hall> getAllHalls() {
+        return current().halls;
+    }
+
+    public List<Hall> getHallsByType(Hall.HallType type) {
+        return current().hallsByType.getOrDefault(type, Collections.emptyList());
+    }
+
+    // Case-insensitive, like the location filter on the booking screen
+    public List<Hall> getHallsByLocation(String location) {
+        return current().hallsByLocation.getOrDefault(location.toLowerCase(), Collections.emptyList());
+    }
+
+    // Compound type / location / capacity / rate / free-time search over the current catalog
+    public List<Hall> search(HallQuery query) {
+        return current().searchIndex.search(query);
+    }
+
+    // Write-through: rewrites hall.txt and swaps in the new catalog
+    public synchronized void saveHalls(List<Hall> halls) {
+        FileHandler.writeToFile(HALL_FILE, halls, HallRepository::formatHall);
+        catalog = new Catalog(halls, modifiedTime());
+    }
+
+    // Forces the next lookup to re-read hall.txt
+    public synchronized void invalidate() {
+        catalog = null;
+    }
+
+    private Catalog current() {
+        Catalog current = catalog;
+        if (current == null) {
+            return reload();
+        }
+        long now = System.currentTimeMillis();
+        if (now >= nextCheckMillis) {
+            nextCheckMillis = now + CHECK_INTERVAL_MILLIS;
+            if (modifiedTime() != current.modifiedTime) {
+                return reload();
+            }
+        }
+        return current;
+    }
+
+    private synchronized Catalog reload() {
+        long modifiedTime = modifiedTime();
+        Catalog current = catalog;
+        if (current != null && current.modifiedTime == modifiedTime) {
+            return current; // another thread got here first
+        }
+        // Taken before reading, so a write that lands mid-read is noticed on the next check
+        try {
+            current = new Catalog(FileHandler.readRecords(HALL_FILE, HallRepository::parseHall), modifiedTime);
+        } catch (IOException e) {
+            // The catalog in place, if any, stays; a partial one would turn every missing hall into HallNotFound
+            throw new UncheckedIOException("Could not load " + HALL_FILE, e);
+        }
+        catalog = current;
+        return current;
+    }
+
+    private long modifiedTime() {
+        try {
+            return Files.getLastModifiedTime(hallPath).toMillis();
+        } catch (IOException e) {
+            return 0; // no file yet
+        }
+    }
+
+    // Accepts the spellings the old per-class parsers did ("BANQUET HALL", padded fields)
+    public static Hall parseHall(CsvRecord record) {
+        if (record.fieldCount() < 5) {
+            LOG.warn("Skipping invalid hall record: " + record.line());
+            return null;
+        }
+        try {
+            return new Hall(
+                    record.field(0).trim(),
+                    Hall.HallType.valueOf(record.field(1).trim().toUpperCase().replace(' ', '_')),
+                    Integer.parseInt(record.field(2).trim()),
+                    new BigDecimal(record.field(3).trim()),
+                    record.field(4).trim()
+            );
+        } catch (IllegalArgumentException e) {
+            LOG.warn("Skipping invalid hall record: " + record.line());
+            return null;
+        }
+    }
+
+    public static String formatHall(Hall hall) {
+        return String.format("%s,%s,%d,%.2f,%s",
+                hall.getId(),
+                hall.getType().toString(),  // Write the enum value as is
+                hall.getCapacity(),
+                hall.getRate(),
+                hall.getLocation());
+    }
+
+    // Immutable once built; a reload or save replaces the whole catalog at once
+    private static class Catalog {
+        final List<Hall> halls;
+        final ConcurrentHashMap<String, Hall> hallsById = new ConcurrentHashMap<>();
+        final Map<Hall.HallType, List<Hall>> hallsByType = new EnumMap<>(Hall.HallType.class);
+        final Map<String, List<Hall>> hallsByLocation = new HashMap<>();
+        final HallSearchIndex searchIndex;
+        final long modifiedTime;
+
+        Catalog(List<Hall> halls, long modifiedTime) {
+            this.halls = Collections.unmodifiableList(new ArrayList<>(halls));
+            this.modifiedTime = modifiedTime;
+            for (Hall hall : this.halls) {
+                hallsById.put(hall.getId(), hall);
+                hallsByType.computeIfAbsent(hall.getType(), type -> new ArrayList<>()).add(hall);
+                hallsByLocation.computeIfAbsent(hall.getLocation().toLowerCase(), location -> new ArrayList<>()).add(hall);
+            }
+            hallsByType.replaceAll((type, list) -> Collections.unmodifiableList(list));
+            hallsByLocation.replaceAll((location, list) -> Collections.unmodifiableList(list));
+            searchIndex = new HallSearchIndex(this.halls);
+        }
+    }
+}
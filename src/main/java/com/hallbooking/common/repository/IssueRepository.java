@@ -0,0 +1,213 @@
+package main.java.com.hallbooking.common.repository;
+
+import main.java.com.hallbooking.common.index.ResidentInstance;
+import main.java.com.hallbooking.common.logging.Logger;
+import main.java.com.hallbooking.common.models.Issue;
+import main.java.com.hallbooking.common.storage.CsvRecord;
+import main.java.com.hallbooking.common.storage.FileTransaction;
+import main.java.com.hallbooking.common.utils.FileHandler;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.UnaryOperator;
+
+// The one parsed copy of issues.txt, partitioned by status, and the one place that writes the file.
+// Each partition keeps its issues in file order, so any combination of statuses, and the count of
+// each, is answered without reading the file. A transition edits only the affected lines, in a
+// transaction, and moves the issues between partitions once it has committed.
+// Issues are also indexed by ID, and each scheduler has a queue of the issues assigned to them and
+// not yet started, so a scheduler's worklist and the check of a single issue never scan anything.
+// Issues handed out are shared instances: change them through this repository, not their setters.
+public class IssueRepository {
+    private static final Logger LOG = Logger.getLogger(IssueRepository.class);
+    public static final String ISSUES_FILE = "issues.txt";
+
+    private static final ResidentInstance<IssueRepository> SHARED =
+            new ResidentInstance<>(ISSUES_FILE, IssueRepository::loadShared);
+
+    private final Map<Issue.IssueStatus, TreeMap<Long, Issue>> partitions = new EnumMap<>(Issue.IssueStatus.class);
+    private final Map<String, Issue> issuesById = new HashMap<>();
+    // Scheduler ID -> their ASSIGNED issues, in file order
+    private final Map<String, TreeMap<Long, Issue>> assignedBySchedulers = new HashMap<>();
+    // Where each issue sits in the file, which orders it within its partition
+    private final Map<String, Long> positions = new HashMap<>();
+    private long nextPosition;
+
+    private IssueRepository() {
+        for (Issue.IssueStatus status : Issue.IssueStatus.values()) {
+            partitions.put(status, new TreeMap<>());
+        }
+    }
+
+    public static IssueRepository getInstance() {
+        return SHARED.get();
+    }
+
+    private static IssueRepository loadShared() throws IOException {
+        IssueRepository loaded = new IssueRepository();
+        for (String line : FileHandler.readRecords(ISSUES_FILE, CsvRecord::line)) {
+            Issue issue = parseIssue(line);
+            if (issue == null) {
+                LOG.warn("Invalid issue data: " + line);
+            } else {
+                loaded.put(issue);
+            }
+        }
+        return loaded;
+    }
+
+    // Drops the shared repository so the next getInstance() re-reads the file
+    public static void invalidate() {
+        SHARED.invalidate();
+    }
+
+    public synchronized Issue getIssue(String issueId) {
+        return issuesById.get(issueId);
+    }
+
+    // Issues with any of the statuses, grouped by status in declaration order, each group in file order
+    public synchronized List<Issue> getIssues(Set<Issue.IssueStatus> statuses) {
+        List<Issue> issues = new ArrayList<>();
+        for (Issue.IssueStatus status : Issue.IssueStatus.values()) {
+            if (statuses.contains(status)) {
+                issues.addAll(partitions.get(status).values());
+            }
+        }
+        return issues;
+    }
+
+    public List<Issue> getIssues(Issue.IssueStatus status) {
+        return getIssues(EnumSet.of(status));
+    }
+
+    public List<Issue> getAllIssues() {
+        return getIssues(EnumSet.allOf(Issue.IssueStatus.class));
+    }
+
+    // The scheduler's ASSIGNED issues, in file order
+    public synchronized List<Issue> getAssignedIssues(String schedulerId) {
+        TreeMap<Long, Issue> queue = assignedBySchedulers.get(schedulerId);
+        return queue == null ? new ArrayList<>() : new ArrayList<>(queue.values());
+    }
+
+    // Every status, including those with no issues
+    public synchronized Map<Issue.IssueStatus, Integer> getCountsByStatus() {
+        Map<Issue.IssueStatus, Integer> counts = new EnumMap<>(Issue.IssueStatus.class);
+        partitions.forEach((status, issues) -> counts.put(status, issues.size()));
+        return counts;
+    }
+
+    // Appends the issue to issues.txt and, once committed, to its partition
+    public void add(Issue issue) throws IOException {
+        try (FileTransaction transaction = FileHandler.beginTransaction(List.of(ISSUES_FILE))) {
+            transaction.append(ISSUES_FILE, issue.toCsvString());
+            transaction.onCommit(() -> getInstance().apply(List.of(issue)));
+            if (!transaction.commit()) {
+                throw new IOException("Could not save issue " + issue.getId());
+            }
+        }
+    }
+
+    // Assigns the issue to the scheduler, making it ASSIGNED; false if there is no such issue
+    public boolean assign(String issueId, String schedulerId) throws IOException {
+        return !update(Set.of(issueId), issue -> copyOf(issue, Issue.IssueStatus.ASSIGNED, schedulerId)).isEmpty();
+    }
+
+    // Moves the issues that are currently in from to to, and returns the ones it moved
+    public List<Issue> transition(Collection<String> issueIds, Issue.IssueStatus from, Issue.IssueStatus to) throws IOException {
+        return update(new HashSet<>(issueIds),
+                issue -> issue.getStatus() == from ? copyOf(issue, to, issue.getAssignedSchedulerId()) : null);
+    }
+
+    // Rewrites the lines of the given issues that change returns a new issue for. Other lines, even
+    // ones that do not parse, are written back exactly as they were.
+    private List<Issue> update(Set<String> issueIds, UnaryOperator<Issue> change) throws IOException {
+        List<Issue> changed = new ArrayList<>();
+        try (FileTransaction transaction = FileHandler.beginTransaction(List.of(ISSUES_FILE))) {
+            List<String> lines = transaction.read(ISSUES_FILE);
+            for (int i = 0; i < lines.size(); i++) {
+                Issue issue = parseIssue(lines.get(i));
+                if (issue == null || !issueIds.contains(issue.getId())) {
+                    continue;
+                }
+                Issue updated = change.apply(issue);
+                if (updated != null) {
+                    lines.set(i, updated.toCsvString());
+                    changed.add(updated);
+                }
+            }
+            if (changed.isEmpty()) {
+                return changed;
+            }
+            transaction.write(ISSUES_FILE, lines);
+            transaction.onCommit(() -> getInstance().apply(changed));
+            if (!transaction.commit()) {
+                throw new IOException("Could not update issues " + issueIds);
+            }
+        }
+        return changed;
+    }
+
+    // Idempotent, because a repository first loaded inside a commit hook has already read the change
+    private synchronized void apply(List<Issue> issues) {
+        for (Issue issue : issues) {
+            put(issue);
+        }
+    }
+
+    private void put(Issue issue) {
+        Issue previous = issuesById.put(issue.getId(), issue);
+        Long position = positions.get(issue.getId());
+        if (position == null) {
+            position = nextPosition++;
+            positions.put(issue.getId(), position);
+        }
+        if (previous != null) {
+            partitions.get(previous.getStatus()).remove(position);
+            if (isQueued(previous)) {
+                TreeMap<Long, Issue> queue = assignedBySchedulers.get(previous.getAssignedSchedulerId());
+                queue.remove(position);
+                if (queue.isEmpty()) {
+                    assignedBySchedulers.remove(previous.getAssignedSchedulerId());
+                }
+            }
+        }
+        partitions.get(issue.getStatus()).put(position, issue);
+        if (isQueued(issue)) {
+            assignedBySchedulers.computeIfAbsent(issue.getAssignedSchedulerId(), id -> new TreeMap<>()).put(position, issue);
+        }
+    }
+
+    private static boolean isQueued(Issue issue) {
+        return issue.getStatus() == Issue.IssueStatus.ASSIGNED && issue.isAssigned();
+    }
+
+    private static Issue copyOf(Issue issue, Issue.IssueStatus status, String schedulerId) {
+        return new Issue(issue.getId(), issue.getCustomerId(), issue.getBookingId(), issue.getHallId(),
+                issue.getDescription(), status, schedulerId);
+    }
+
+    // id,customerId,bookingId,hallId,description,status[,schedulerId]; null if the line is not an issue
+    public static Issue parseIssue(String line) {
+        // Limit -1 keeps the trailing empty scheduler field of unassigned issues
+        String[] parts = line.split(",", -1);
+        if (parts.length < 6 || parts.length > 7) {
+            return null;
+        }
+        try {
+            return new Issue(parts[0].trim(), parts[1], parts[2], parts[3], parts[4],
+                    Issue.IssueStatus.valueOf(parts[5].trim().toUpperCase()), parts.length == 7 ? parts[6].trim() : "");
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package main.java.com.hallbooking.common.repository;
+
+import main.java.com.hallbooking.common.storage.CsvRecord;
+import main.java.com.hallbooking.common.utils.FileHandler;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Resident copy of the account files, one partition per role file (users.txt for managers and
+// admins, customers.txt, schedulers.txt), each keyed by user ID. Partitions load on first use and
+// are dropped by invalidate(fileName), which every writer of these files calls after writing.
+// Lines are kept as stored; callers parse only the record they actually need.
+public class UserDirectory {
+    private static final UserDirectory INSTANCE = new UserDirectory();
+
+    private final Map<String, Partition> partitions = new ConcurrentHashMap<>();
+    // Bumped by invalidate, so a load that raced with a write is not installed
+    private final Map<String, Long> versions = new HashMap<>();
+
+    public static UserDirectory getInstance() {
+        return INSTANCE;
+    }
+
+    // The stored line for userId in fileName, or null
+    public String findLine(String fileName, String userId) {
+        return partition(fileName).linesById.get(userId);
+    }
+
+    // Every line of fileName, in file order
+    public List<String> getLines(String fileName) {
+        return partition(fileName).lines;
+    }
+
+    // Counts the invalidations of fileName, so an index built from its lines can tell it is out of date
+    public long getVersion(String fileName) {
+        synchronized (versions) {
+            return versions.getOrDefault(fileName, 0L);
+        }
+    }
+
+    public void invalidate(String fileName) {
+        synchronized (versions) {
+            versions.merge(fileName, 1L, Long::sum);
+            partitions.remove(fileName);
+        }
+    }
+
+    private Partition partition(String fileName) {
+        Partition partition = partitions.get(fileName);
+        if (partition != null) {
+            return partition;
+        }
+        long version;
+        synchronized (versions) {
+            version = versions.getOrDefault(fileName, 0L);
+        }
+        // Read outside the lock; FileHandler takes its own file lock. A failed read installs nothing,
+        // since an empty partition would hide every account and let createUser reuse their IDs.
+        try {
+            partition = new Partition(FileHandler.readRecords(fileName, CsvRecord::line));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not load " + fileName, e);
+        }
+        synchronized (versions) {
+            if (versions.getOrDefault(fileName, 0L) == version) {
+                partitions.putIfAbsent(fileName, partition);
+            }
+        }
+        return partition;
+    }
+
+    private static class Partition {
+        final List<String> lines;
+        final Map<String, String> linesById = new HashMap<>();
+
+        Partition(List<String> fileLines) {
+            List<String> kept = new ArrayList<>(fileLines.size());
+            for (String line : fileLines) {
+                if (line.trim().isEmpty()) {
+                    continue;
+                }
+                kept.add(line);
+                int comma = line.indexOf(',');
+                // First line wins, as it did for the old front-to-back search
+                linesById.putIfAbsent(comma < 0 ? line : line.substring(0, comma), line);
+            }
+            lines = Collections.unmodifiableList(kept);
+        }
+    }
+}
@@ -0,0 +1,241 @@
+package main.java.com.hallbooking.common.repository;
+
+import main.java.com.hallbooking.common.logging.Logger;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.IntStream;
+
+// Sorted and filtered listings of an account file for the admin screens, served from the lines
+// UserDirectory keeps resident. Per file it keeps the positions of the well-formed records and,
+// once a field has been sorted on, their order by that field; both last until the file is
+// invalidated. A listing is only a list of positions into the lines, so listing a whole file in
+// file order or in an order already built takes constant time, and a row is parsed when it is read.
+// Filters are answered by UserSearchIndex.
+public class UserIndex {
+    private static final Logger LOG = Logger.getLogger(UserIndex.class);
+    private static final UserIndex INSTANCE = new UserIndex();
+
+    // Fields of a stored user line
+    public static final int ID = 0;
+    public static final int EMAIL = 2;
+    public static final int PHONE = 3;
+    public static final int NAME = 4;
+    public static final int ADDRESS = 5;
+    public static final int NATIONALITY = 6;
+    public static final int STATUS = 7;
+    public static final int FIELD_COUNT = 9;
+    // Sort field for file order
+    public static final int UNSORTED = -1;
+
+    private final Map<String, FileIndex> files = new ConcurrentHashMap<>();
+
+    public static UserIndex getInstance() {
+        return INSTANCE;
+    }
+
+    // The records of fileName whose ID starts with idPrefix and that match value in the criteria field,
+    // as UserSearchIndex matches them. Ordered by sortField or, with UNSORTED, best match first; with
+    // an empty value every record matches, in file order. An unknown criteria matches none.
+    public Listing list(String fileName, String idPrefix, String criteria, String value, int sortField, boolean ascending) {
+        FileIndex index = index(fileName);
+        if (value.isEmpty()) {
+            int[] order = sortField == UNSORTED ? index.records : index.order(sortField);
+            return idPrefix.isEmpty() ? new Listing(index.lines, order, !ascending)
+                    : new Listing(index.lines, withPrefix(index, order, idPrefix, ascending), false);
+        }
+
+        List<String> ranked = UserSearchIndex.getInstance().search(fileName, criteria, value);
+        int[] matches = new int[ranked.size()];
+        int count = 0;
+        for (String userId : ranked) {
+            // Absent if the file changed between the two lookups; the next listing has it
+            Integer position = index.positionOf(userId);
+            if (position != null && userId.startsWith(idPrefix)) {
+                matches[count++] = position;
+            }
+        }
+        matches = Arrays.copyOf(matches, count);
+        if (sortField != UNSORTED) {
+            matches = index.sort(matches, sortField);
+        }
+        return new Listing(index.lines, matches, !ascending);
+    }
+
+    private static int[] withPrefix(FileIndex index, int[] order, String idPrefix, boolean ascending) {
+        int[] matches = new int[order.length];
+        int count = 0;
+        for (int i = 0; i < order.length; i++) {
+            int position = order[ascending ? i : order.length - 1 - i];
+            if (index.lines.get(position).startsWith(idPrefix)) {
+                matches[count++] = position;
+            }
+        }
+        return Arrays.copyOf(matches, count);
+    }
+
+    // The stored field a filter criteria of the admin screens refers to, or UNSORTED
+    public static int fieldOf(String criteria) {
+        switch (criteria.toLowerCase()) {
+            case "id":
+                return ID;
+            case "name":
+                return NAME;
+            case "email":
+                return EMAIL;
+            case "phone":
+                return PHONE;
+            case "address":
+                return ADDRESS;
+            case "nationality":
+                return NATIONALITY;
+            case "status":
+                return STATUS;
+            default:
+                return UNSORTED;
+        }
+    }
+
+    private FileIndex index(String fileName) {
+        List<String> lines = UserDirectory.getInstance().getLines(fileName);
+        FileIndex index = files.get(fileName);
+        // UserDirectory hands out a new list once the file has been invalidated and read again
+        if (index == null || index.lines != lines) {
+            index = new FileIndex(fileName, lines);
+            files.put(fileName, index);
+        }
+        return index;
+    }
+
+    // Field i of a stored line, without splitting the rest of it
+    static String field(String line, int i) {
+        int start = 0;
+        for (int k = 0; k < i; k++) {
+            start = line.indexOf(',', start) + 1;
+            if (start == 0) {
+                return "";
+            }
+        }
+        int end = line.indexOf(',', start);
+        return end < 0 ? line.substring(start) : line.substring(start, end);
+    }
+
+    // As AdminManager.parseUser counts them: split drops trailing empty fields
+    static boolean isComplete(String line) {
+        int comma = -1;
+        for (int k = 1; k < FIELD_COUNT; k++) {
+            comma = line.indexOf(',', comma + 1);
+            if (comma < 0) {
+                return false;
+            }
+        }
+        for (int i = comma + 1; i < line.length(); i++) {
+            if (line.charAt(i) != ',') {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static class FileIndex {
+        final List<String> lines;
+        // Positions of the lines holding all nine fields, in file order
+        final int[] records;
+        // Field -> records ordered by that field, ignoring case, ties in file order
+        final Map<Integer, int[]> orders = new ConcurrentHashMap<>();
+        // User ID -> position of its first record, built on the first filtered listing
+        private volatile Map<String, Integer> positionsById;
+
+        FileIndex(String fileName, List<String> lines) {
+            this.lines = lines;
+            records = IntStream.range(0, lines.size()).filter(i -> {
+                boolean complete = isComplete(lines.get(i));
+                if (!complete) {
+                    LOG.warn("Invalid user data in " + fileName + ": " + lines.get(i));
+                }
+                return complete;
+            }).toArray();
+        }
+
+        Integer positionOf(String userId) {
+            Map<String, Integer> positions = positionsById;
+            if (positions == null) {
+                positions = new HashMap<>();
+                for (int position : records) {
+                    positions.putIfAbsent(field(lines.get(position), ID), position);
+                }
+                positionsById = positions;
+            }
+            return positions.get(userId);
+        }
+
+        // Some records ordered as order(sortField) would order them, without building that order
+        int[] sort(int[] positions, int sortField) {
+            Map<Integer, String> keys = new HashMap<>();
+            for (int position : positions) {
+                keys.put(position, field(lines.get(position), sortField).toLowerCase());
+            }
+            return Arrays.stream(positions).boxed()
+                    .sorted(Comparator.comparing((Integer position) -> keys.get(position)).thenComparingInt(position -> position))
+                    .mapToInt(Integer::intValue)
+                    .toArray();
+        }
+
+        int[] order(int sortField) {
+            return orders.computeIfAbsent(sortField, f -> {
+                // Lower-cased once here rather than on every comparison
+                String[] keys = new String[lines.size()];
+                for (int position : records) {
+                    keys[position] = field(lines.get(position), f).toLowerCase();
+                }
+                Integer[] order = Arrays.stream(records).boxed().toArray(Integer[]::new);
+                // A stable sort of records in file order leaves ties in file order
+                Arrays.sort(order, Comparator.comparing(position -> keys[position]));
+                return Arrays.stream(order).mapToInt(Integer::intValue).toArray();
+            });
+        }
+    }
+
+    // One page-able view of a file: row r is the line at positions[r], or counted from the end when reversed.
+    // Listings are immutable and stay valid, showing the file as it was, after the file changes.
+    public static class Listing {
+        public static final Listing EMPTY = new Listing(List.of(), new int[0], false);
+
+        private final List<String> lines;
+        private final int[] positions;
+        private final boolean reversed;
+
+        private Listing(List<String> lines, int[] positions, boolean reversed) {
+            this.lines = lines;
+            this.positions = positions;
+            this.reversed = reversed;
+        }
+
+        public int size() {
+            return positions.length;
+        }
+
+        public String getLine(int row) {
+            return lines.get(positions[reversed ? positions.length - 1 - row : row]);
+        }
+
+        // The row's stored fields, at least FIELD_COUNT of them
+        public String[] getFields(int row) {
+            String[] fields = getLine(row).split(",", -1);
+            if (fields.length >= FIELD_COUNT) {
+                return fields;
+            }
+            String[] padded = Arrays.copyOf(fields, FIELD_COUNT);
+            Arrays.fill(padded, fields.length, FIELD_COUNT, "");
+            return padded;
+        }
+
+        public String getUserId(int row) {
+            return field(getLine(row), ID);
+        }
+    }
+}
@@ -0,0 +1,253 @@
+package main.java.com.hallbooking.common.repository;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.regex.Pattern;
+
+// Search over an account file for the admin screens' filter. Per file it keeps an inverted index
+// from the words of each searchable field (name, email, phone, address, nationality, status) to
+// the users holding them, plus prefix maps of whole IDs and emails. Both are sorted maps, so every
+// word, ID or email starting with what has been typed so far is one range, and a search costs the
+// size of its answer rather than of the file.
+// Writers keep it current: after writing a user's line and invalidating UserDirectory they pass
+// the new line to put, or the ID to remove. A file changed by a writer that does not is noticed
+// by its UserDirectory version having moved on, and indexed again on the next search.
+public class UserSearchIndex {
+    private static final UserSearchIndex INSTANCE = new UserSearchIndex();
+    private static final Pattern NON_WORD = Pattern.compile("[^\\p{L}\\p{N}]+");
+    private static final int[] WORD_FIELDS = {UserIndex.EMAIL, UserIndex.PHONE, UserIndex.NAME,
+            UserIndex.ADDRESS, UserIndex.NATIONALITY, UserIndex.STATUS};
+
+    // Ranks, best first
+    private static final int WHOLE_FIELD = 0;
+    private static final int FIELD_PREFIX = 1;
+    private static final int WHOLE_WORDS = 2;
+    private static final int WORD_PREFIXES = 3;
+
+    private final Map<String, FileSearch> files = new ConcurrentHashMap<>();
+
+    public static UserSearchIndex getInstance() {
+        return INSTANCE;
+    }
+
+    // IDs of the users of fileName matching value in the criteria field, best match first: the whole
+    // field, then the field's start, then whole words, then words starting with each word of value;
+    // ties in file order. Every word of value has to match. A value with no words matches every
+    // user, in file order; an unknown criteria matches none.
+    public List<String> search(String fileName, String criteria, String value) {
+        int field = UserIndex.fieldOf(criteria);
+        if (field == UserIndex.UNSORTED) {
+            return new ArrayList<>();
+        }
+        String query = value.trim().toLowerCase();
+        FileSearch search = current(fileName);
+        synchronized (search) {
+            return search.search(field, query, words(query));
+        }
+    }
+
+    // Indexes the user's line in place of any earlier one; call after writing it and invalidating UserDirectory
+    public void put(String fileName, String line) {
+        update(fileName, search -> search.put(line));
+    }
+
+    // Drops the user; call after writing the file without them and invalidating UserDirectory
+    public void remove(String fileName, String userId) {
+        update(fileName, search -> search.remove(userId));
+    }
+
+    private void update(String fileName, Consumer<FileSearch> change) {
+        FileSearch search = files.get(fileName);
+        if (search == null) {
+            return; // built from the file when first searched
+        }
+        long version = UserDirectory.getInstance().getVersion(fileName);
+        synchronized (search) {
+            // Only this one write since the index was current: apply it; otherwise read the file again
+            if (version == search.version + 1) {
+                change.accept(search);
+                search.version = version;
+            } else {
+                files.remove(fileName, search);
+            }
+        }
+    }
+
+    private FileSearch current(String fileName) {
+        long version = UserDirectory.getInstance().getVersion(fileName);
+        FileSearch search = files.get(fileName);
+        if (search != null) {
+            synchronized (search) {
+                // Rebuilt once replaced and removed users outnumber the rest
+                if (search.version == version && search.dead <= search.lines.size() / 2) {
+                    return search;
+                }
+            }
+        }
+        // Lines read after the version, so at worst they are newer than it and the next search reads them again
+        search = new FileSearch(version);
+        for (String line : UserDirectory.getInstance().getLines(fileName)) {
+            // First line wins, as in UserDirectory
+            if (!search.ids.containsKey(UserIndex.field(line, UserIndex.ID).toUpperCase())) {
+                search.put(line);
+            }
+        }
+        files.put(fileName, search);
+        return search;
+    }
+
+    private static List<String> words(String text) {
+        List<String> words = new ArrayList<>();
+        for (String word : NON_WORD.split(text.toLowerCase())) {
+            if (!word.isEmpty()) {
+                words.add(word);
+            }
+        }
+        return words;
+    }
+
+    // Users are numbered in the order they were indexed. A user replaced or removed leaves their
+    // number behind as a null line, which searches skip, rather than being taken out of every
+    // posting list. Posting lists are int arrays holding their length in slot 0.
+    private static class FileSearch {
+        // UserDirectory version of the file this index reflects
+        long version;
+        // Number -> stored line, null once replaced or removed
+        final List<String> lines = new ArrayList<>();
+        int dead;
+        // Upper-cased ID -> number, and lower-cased email -> numbers, for prefixes typed from the start
+        final TreeMap<String, Integer> ids = new TreeMap<>();
+        final TreeMap<String, int[]> emails = new TreeMap<>();
+        // Field -> word -> numbers of the users whose field holds it
+        final Map<Integer, TreeMap<String, int[]>> words = new HashMap<>();
+
+        FileSearch(long version) {
+            this.version = version;
+            for (int field : WORD_FIELDS) {
+                words.put(field, new TreeMap<>());
+            }
+        }
+
+        List<String> search(int field, String query, List<String> queryWords) {
+            if (field != UserIndex.ID && queryWords.isEmpty()) {
+                List<String> all = new ArrayList<>(lines.size() - dead);
+                for (String line : lines) {
+                    if (line != null) {
+                        all.add(UserIndex.field(line, UserIndex.ID));
+                    }
+                }
+                return all;
+            }
+
+            BitSet matches = new BitSet();
+            // Users holding every word of the query whole
+            BitSet wholeWords = null;
+            if (field == UserIndex.ID) {
+                startingWith(ids, query.toUpperCase()).values().forEach(matches::set);
+            } else {
+                TreeMap<String, int[]> index = words.get(field);
+                for (int i = 0; i < queryWords.size(); i++) {
+                    String word = queryWords.get(i);
+                    BitSet prefixed = collect(startingWith(index, word).values());
+                    BitSet whole = collect(index.containsKey(word) ? List.of(index.get(word)) : List.of());
+                    if (i == 0) {
+                        matches = prefixed;
+                        wholeWords = whole;
+                    } else {
+                        matches.and(prefixed);
+                        wholeWords.and(whole);
+                    }
+                }
+                if (field == UserIndex.EMAIL) {
+                    matches.or(collect(startingWith(emails, query).values()));
+                }
+            }
+
+            List<List<String>> ranks = List.of(new ArrayList<>(), new ArrayList<>(), new ArrayList<>(), new ArrayList<>());
+            for (int number = matches.nextSetBit(0); number >= 0; number = matches.nextSetBit(number + 1)) {
+                String line = lines.get(number);
+                if (line == null) {
+                    continue;
+                }
+                String fieldValue = UserIndex.field(line, field).toLowerCase();
+                int rank = fieldValue.equals(query) ? WHOLE_FIELD
+                        : fieldValue.startsWith(query) ? FIELD_PREFIX
+                        : wholeWords != null && wholeWords.get(number) ? WHOLE_WORDS
+                        : WORD_PREFIXES;
+                ranks.get(rank).add(UserIndex.field(line, UserIndex.ID));
+            }
+            List<String> ranked = new ArrayList<>();
+            ranks.forEach(ranked::addAll);
+            return ranked;
+        }
+
+        void put(String line) {
+            if (!UserIndex.isComplete(line)) {
+                return;
+            }
+            String key = UserIndex.field(line, UserIndex.ID).toUpperCase();
+            int number = lines.size();
+            lines.add(line);
+            Integer previous = ids.put(key, number);
+            if (previous != null) {
+                lines.set(previous, null);
+                dead++;
+            }
+            post(emails, UserIndex.field(line, UserIndex.EMAIL).toLowerCase(), number);
+            for (int field : WORD_FIELDS) {
+                TreeMap<String, int[]> index = words.get(field);
+                for (String word : words(UserIndex.field(line, field))) {
+                    post(index, word, number);
+                }
+            }
+        }
+
+        void remove(String userId) {
+            Integer number = ids.remove(userId.toUpperCase());
+            if (number != null) {
+                lines.set(number, null);
+                dead++;
+            }
+        }
+
+        private static void post(TreeMap<String, int[]> index, String key, int number) {
+            int[] postings = index.get(key);
+            if (postings == null) {
+                index.put(key, new int[]{1, number});
+                return;
+            }
+            int count = postings[0];
+            if (postings[count] == number) {
+                return; // the word is in the field twice
+            }
+            if (count + 1 == postings.length) {
+                postings = Arrays.copyOf(postings, postings.length * 2);
+                index.put(key, postings);
+            }
+            postings[count + 1] = number;
+            postings[0] = count + 1;
+        }
+
+        private static BitSet collect(Collection<int[]> postingLists) {
+            BitSet numbers = new BitSet();
+            for (int[] postings : postingLists) {
+                for (int i = 1; i <= postings[0]; i++) {
+                    numbers.set(postings[i]);
+                }
+            }
+            return numbers;
+        }
+
+        private static <V> Map<String, V> startingWith(TreeMap<String, V> index, String prefix) {
+            return index.subMap(prefix, true, prefix + Character.MAX_VALUE, false);
+        }
+    }
+}
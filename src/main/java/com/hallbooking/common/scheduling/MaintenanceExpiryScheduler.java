@@ -0,0 +1,156 @@
+package main.java.com.hallbooking.common.scheduling;
+
+import main.java.com.hallbooking.common.index.MaintenanceIndex;
+import main.java.com.hallbooking.common.logging.Logger;
+import main.java.com.hallbooking.common.models.Issue;
+import main.java.com.hallbooking.common.repository.IssueRepository;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+// Closes an IN_PROGRESS issue when the last maintenance window recorded for it ends. Each window's
+// end is registered as MaintenanceScheduler records it, onto one daemon thread whose delay queue is
+// ordered by deadline, so nothing runs until the earliest end arrives. Issues falling due together
+// are closed by a single IssueRepository transition.
+// On first use the windows already in MaintenanceIndex are registered, and issues whose maintenance
+// ended while the application was closed are closed before getInstance returns.
+// A transition that fails leaves its issues due, and is tried again after a delay that doubles
+// with each failure in a row, up to five minutes.
+public class MaintenanceExpiryScheduler {
+    private static final Logger LOG = Logger.getLogger(MaintenanceExpiryScheduler.class);
+
+    private static final long FIRST_RETRY_MILLIS = 1_000;
+    private static final long MAX_RETRY_MILLIS = 5 * 60_000;
+
+    private static volatile MaintenanceExpiryScheduler instance;
+
+    private final ScheduledExecutorService timer;
+    // issue ID -> end of the latest window registered for it, until the issue falls due
+    private final ConcurrentHashMap<String, LocalDateTime> latestEnds = new ConcurrentHashMap<>();
+    // Issues whose last window has ended, waiting for the next transition
+    private final Set<String> due = ConcurrentHashMap.newKeySet();
+    // Guarded by this, as closeDue runs on the timer and, once, on the first caller's thread
+    private long retryDelayMillis = FIRST_RETRY_MILLIS;
+    private boolean retryScheduled;
+
+    private MaintenanceExpiryScheduler() {
+        ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(1, runnable -> {
+            Thread thread = new Thread(runnable, "maintenance-expiry");
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.setRemoveOnCancelPolicy(true);
+        timer = executor;
+    }
+
+    public static MaintenanceExpiryScheduler getInstance() {
+        MaintenanceExpiryScheduler current = instance;
+        if (current == null) {
+            synchronized (MaintenanceExpiryScheduler.class) {
+                current = instance;
+                if (current == null) {
+                    current = new MaintenanceExpiryScheduler();
+                    current.registerRecorded();
+                    instance = current;
+                }
+            }
+        }
+        return current;
+    }
+
+    // Closes the issue when end arrives, unless a later window is registered for it by then
+    public void register(String issueId, LocalDateTime end) {
+        LocalDateTime latest = latestEnds.merge(issueId, end, (a, b) -> a.isAfter(b) ? a : b);
+        if (!latest.equals(end)) {
+            return;
+        }
+        long delay = Math.max(0, Duration.between(LocalDateTime.now(), end).toMillis());
+        timer.schedule(() -> expire(issueId, end), delay, TimeUnit.MILLISECONDS);
+    }
+
+    // Issues waiting for their maintenance to end
+    public int pendingCount() {
+        return latestEnds.size();
+    }
+
+    private void expire(String issueId, LocalDateTime end) {
+        // False when a later window has been registered since; its own task closes the issue
+        if (!latestEnds.remove(issueId, end)) {
+            return;
+        }
+        due.add(issueId);
+        // Queued behind every task already due, so the first of them to run closes them all
+        timer.execute(this::closeDue);
+    }
+
+    private synchronized void closeDue() {
+        Set<String> closing = new HashSet<>();
+        for (Iterator<String> it = due.iterator(); it.hasNext(); ) {
+            closing.add(it.next());
+            it.remove();
+        }
+        if (closing.isEmpty()) {
+            return;
+        }
+        try {
+            List<Issue> closed = IssueRepository.getInstance().transition(closing, Issue.IssueStatus.IN_PROGRESS, Issue.IssueStatus.CLOSED);
+            if (!closed.isEmpty()) {
+                LOG.info("Closed " + closed.size() + " issue(s) whose maintenance has ended: " + closing);
+            }
+            retryDelayMillis = FIRST_RETRY_MILLIS;
+        } catch (IOException | UncheckedIOException e) {
+            // The repository failed to load or the transition failed. Back in the queue, except issues
+            // given a later window meanwhile, whose own task closes them
+            closing.removeIf(latestEnds::containsKey);
+            due.addAll(closing);
+            if (retryScheduled) {
+                LOG.error("Could not close issues " + closing + "; a retry is already scheduled", e);
+                return;
+            }
+            LOG.error("Could not close issues " + closing + "; retrying in " + retryDelayMillis + " ms", e);
+            retryScheduled = true;
+            timer.schedule(this::retryDue, retryDelayMillis, TimeUnit.MILLISECONDS);
+            retryDelayMillis = Math.min(retryDelayMillis * 2, MAX_RETRY_MILLIS);
+        }
+    }
+
+    private synchronized void retryDue() {
+        retryScheduled = false;
+        closeDue();
+    }
+
+    private void registerRecorded() {
+        Set<String> inProgress = new HashSet<>();
+        for (Issue issue : IssueRepository.getInstance().getIssues(Issue.IssueStatus.IN_PROGRESS)) {
+            inProgress.add(issue.getId());
+        }
+        Map<String, LocalDateTime> ends = new HashMap<>();
+        MaintenanceIndex.getInstance().forEach(window -> {
+            if (inProgress.contains(window.getIssueId())) {
+                ends.merge(window.getIssueId(), window.getEnd(), (a, b) -> a.isAfter(b) ? a : b);
+            }
+        });
+
+        LocalDateTime now = LocalDateTime.now();
+        ends.forEach((issueId, end) -> {
+            if (end.isAfter(now)) {
+                register(issueId, end);
+            } else {
+                due.add(issueId);
+            }
+        });
+        closeDue();
+    }
+}
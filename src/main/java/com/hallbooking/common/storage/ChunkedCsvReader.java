@@ -0,0 +1,81 @@
+package main.java.com.hallbooking.common.storage;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.function.Predicate;
+
+// Walks a CSV file a chunk at a time through one reused buffer, without creating a String per line.
+// A line cut off at the end of a chunk is moved to the front of the buffer and finished by the next
+// read; the buffer grows for a line longer than itself. Nothing is memory-mapped, so the file is
+// free to be renamed or truncated as soon as scan returns.
+public class ChunkedCsvReader {
+    private static final int DEFAULT_CHUNK = 1024 * 1024;
+
+    private final int chunk;
+
+    public ChunkedCsvReader() {
+        this(DEFAULT_CHUNK);
+    }
+
+    public ChunkedCsvReader(int chunk) {
+        this.chunk = chunk;
+    }
+
+    // Calls visitor for each non-blank line until it returns false
+    public void scan(Path path, Predicate<CsvRecord> visitor) throws IOException {
+        if (!Files.exists(path)) {
+            return;
+        }
+        CsvRecord record = new CsvRecord();
+        ByteBuffer buffer = ByteBuffer.allocate((int) Math.min(chunk, Math.max(1, Files.size(path))));
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            // Bytes before scanned hold no newline
+            int scanned = 0;
+            while (true) {
+                if (!buffer.hasRemaining()) {
+                    // One line fills the whole buffer
+                    ByteBuffer larger = ByteBuffer.allocate(buffer.capacity() * 2);
+                    buffer.flip();
+                    larger.put(buffer);
+                    buffer = larger;
+                }
+                boolean end = channel.read(buffer) < 0;
+                int limit = buffer.position();
+                int lineStart = 0;
+                for (int i = scanned; i < limit; i++) {
+                    if (buffer.get(i) == '\n') {
+                        if (!visit(record, buffer, lineStart, i, visitor)) {
+                            return;
+                        }
+                        lineStart = i + 1;
+                    }
+                }
+                if (end) {
+                    // Final line without a trailing newline
+                    visit(record, buffer, lineStart, limit, visitor);
+                    return;
+                }
+                // Keep the unfinished line, moved to the front
+                buffer.flip();
+                buffer.position(lineStart);
+                buffer.compact();
+                scanned = limit - lineStart;
+            }
+        }
+    }
+
+    private boolean visit(CsvRecord record, ByteBuffer buffer, int start, int end, Predicate<CsvRecord> visitor) {
+        if (end > start && buffer.get(end - 1) == '\r') {
+            end--;
+        }
+        if (end == start) {
+            return true; // blank line
+        }
+        record.reset(buffer, start, end);
+        return visitor.test(record);
+    }
+}
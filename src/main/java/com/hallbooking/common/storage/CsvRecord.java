@@ -0,0 +1,226 @@
+package main.java.com.hallbooking.common.storage;
+
+import main.java.com.hallbooking.common.utils.DateTimeUtils;
+
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+
+// One line of a CSV file as ChunkedCsvReader reads it, described by byte offsets into its buffer.
+// The same instance is reused for every line, so it is only valid inside the visitor call;
+// the typed getters parse straight from the bytes and only field() and line() build Strings.
+public final class CsvRecord {
+    private static final double[] POWERS_OF_TEN = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+            1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+
+    private ByteBuffer buffer;
+    private int lineStart;
+    private int lineEnd;
+    private int fieldCount;
+    private int[] fieldStarts = new int[16];
+    private int[] fieldEnds = new int[16];
+
+    CsvRecord() {
+    }
+
+    // Splits buffer[start, end) on commas, matching String.split(",") minus its trailing-empty trimming
+    void reset(ByteBuffer buffer, int start, int end) {
+        this.buffer = buffer;
+        this.lineStart = start;
+        this.lineEnd = end;
+        fieldCount = 0;
+        int fieldStart = start;
+        for (int i = start; i < end; i++) {
+            if (buffer.get(i) == ',') {
+                addField(fieldStart, i);
+                fieldStart = i + 1;
+            }
+        }
+        addField(fieldStart, end);
+    }
+
+    private void addField(int start, int end) {
+        if (fieldCount == fieldStarts.length) {
+            fieldStarts = java.util.Arrays.copyOf(fieldStarts, fieldCount * 2);
+            fieldEnds = java.util.Arrays.copyOf(fieldEnds, fieldCount * 2);
+        }
+        fieldStarts[fieldCount] = start;
+        fieldEnds[fieldCount] = end;
+        fieldCount++;
+    }
+
+    public int fieldCount() {
+        return fieldCount;
+    }
+
+    public int fieldLength(int index) {
+        return fieldEnds[index] - fieldStarts[index];
+    }
+
+    public String field(int index) {
+        return decode(fieldStarts[index], fieldEnds[index]);
+    }
+
+    public String line() {
+        return decode(lineStart, lineEnd);
+    }
+
+    // Compares without materialising the field; ASCII-only fast path, decoded comparison otherwise
+    public boolean fieldEquals(int index, String value) {
+        int start = fieldStarts[index];
+        int length = fieldEnds[index] - start;
+        if (length != value.length()) {
+            return isAscii(value) ? false : field(index).equals(value);
+        }
+        for (int i = 0; i < length; i++) {
+            char c = value.charAt(i);
+            if (c > 0x7F) {
+                return field(index).equals(value);
+            }
+            if (buffer.get(start + i) != c) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public int intField(int index) {
+        long value = longField(index);
+        if (value < Integer.MIN_VALUE || value > Integer.MAX_VALUE) {
+            return Integer.parseInt(field(index)); // throws NumberFormatException with the usual message
+        }
+        return (int) value;
+    }
+
+    public long longField(int index) {
+        int start = fieldStarts[index];
+        int end = fieldEnds[index];
+        boolean negative = start < end && buffer.get(start) == '-';
+        int i = negative ? start + 1 : start;
+        // Up to 18 digits can never overflow a long
+        if (i == end || end - i > 18) {
+            return Long.parseLong(field(index));
+        }
+        long value = 0;
+        for (; i < end; i++) {
+            int digit = buffer.get(i) - '0';
+            if (digit < 0 || digit > 9) {
+                return Long.parseLong(field(index));
+            }
+            value = value * 10 + digit;
+        }
+        return negative ? -value : value;
+    }
+
+    // Plain decimals such as "600.0" or "-12.50"; anything else goes through Double.parseDouble
+    public double doubleField(int index) {
+        int start = fieldStarts[index];
+        int end = fieldEnds[index];
+        boolean negative = start < end && buffer.get(start) == '-';
+        int i = negative ? start + 1 : start;
+        long mantissa = 0;
+        int digits = 0;
+        int fractionDigits = -1;
+        for (; i < end; i++) {
+            byte b = buffer.get(i);
+            if (b == '.' && fractionDigits < 0) {
+                fractionDigits = 0;
+                continue;
+            }
+            int digit = b - '0';
+            if (digit < 0 || digit > 9) {
+                return Double.parseDouble(field(index));
+            }
+            mantissa = mantissa * 10 + digit;
+            digits++;
+            if (fractionDigits >= 0) {
+                fractionDigits++;
+            }
+        }
+        int scale = Math.max(fractionDigits, 0);
+        // Exact while the mantissa fits in 53 bits and 10^scale is exactly representable
+        if (digits == 0 || digits > 15 || scale >= POWERS_OF_TEN.length) {
+            return Double.parseDouble(field(index));
+        }
+        double value = mantissa / POWERS_OF_TEN[scale];
+        return negative ? -value : value;
+    }
+
+    public BigDecimal decimalField(int index) {
+        int start = fieldStarts[index];
+        int end = fieldEnds[index];
+        boolean negative = start < end && buffer.get(start) == '-';
+        int i = negative ? start + 1 : start;
+        long unscaled = 0;
+        int digits = 0;
+        int scale = -1;
+        for (; i < end; i++) {
+            byte b = buffer.get(i);
+            if (b == '.' && scale < 0) {
+                scale = 0;
+                continue;
+            }
+            int digit = b - '0';
+            if (digit < 0 || digit > 9) {
+                return new BigDecimal(field(index));
+            }
+            unscaled = unscaled * 10 + digit;
+            digits++;
+            if (scale >= 0) {
+                scale++;
+            }
+        }
+        if (digits == 0 || digits > 18) {
+            return new BigDecimal(field(index));
+        }
+        return BigDecimal.valueOf(negative ? -unscaled : unscaled, Math.max(scale, 0));
+    }
+
+    // Fields in the "yyyy-MM-dd HH:mm" layout used by every data file
+    public LocalDateTime dateTimeField(int index) {
+        int s = fieldStarts[index];
+        if (fieldEnds[index] - s != 16 || buffer.get(s + 4) != '-' || buffer.get(s + 7) != '-'
+                || buffer.get(s + 10) != ' ' || buffer.get(s + 13) != ':') {
+            return DateTimeUtils.parseDateTime(field(index)); // throws DateTimeParseException
+        }
+        int year = digits(s, 4);
+        int month = digits(s + 5, 2);
+        int day = digits(s + 8, 2);
+        int hour = digits(s + 11, 2);
+        int minute = digits(s + 14, 2);
+        if ((year | month | day | hour | minute) < 0) {
+            return DateTimeUtils.parseDateTime(field(index));
+        }
+        return LocalDateTime.of(year, month, day, hour, minute);
+    }
+
+    private int digits(int start, int count) {
+        int value = 0;
+        for (int i = start; i < start + count; i++) {
+            int digit = buffer.get(i) - '0';
+            if (digit < 0 || digit > 9) {
+                return -1;
+            }
+            value = value * 10 + digit;
+        }
+        return value;
+    }
+
+    private String decode(int start, int end) {
+        byte[] bytes = new byte[end - start];
+        buffer.get(start, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static boolean isAscii(String value) {
+        for (int i = 0; i < value.length(); i++) {
+            if (value.charAt(i) > 0x7F) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,239 @@
+package main.java.com.hallbooking.common.storage;
+
+import main.java.com.hallbooking.common.logging.Logger;
+import java.io.*;
+import java.nio.charset.Charset;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+// The original storage layout: each data file is rewritten in full on every update.
+// Rewrites go to a uniquely named temp file that is renamed over the original, so concurrent
+// rewrites of different files never share a scratch file and readers see either version.
+public class CsvStorageEngine implements StorageEngine {
+    private static final Logger LOG = Logger.getLogger(CsvStorageEngine.class);
+    private static final String JOURNAL_PREFIX = "txn-";
+    private static final String JOURNAL_SUFFIX = ".journal";
+
+    private final String dataDirectory;
+
+    public CsvStorageEngine(String dataDirectory) {
+        this.dataDirectory = dataDirectory;
+        try {
+            recover();
+        } catch (IOException e) {
+            LOG.error("Error recovering unfinished transactions in " + dataDirectory, e);
+        }
+    }
+
+    @Override
+    public boolean exists(String fileName) {
+        return new File(dataDirectory + fileName).exists();
+    }
+
+    @Override
+    public List<String> readLines(String fileName) throws IOException {
+        List<String> lines = new ArrayList<>();
+        File file = new File(dataDirectory + fileName);
+        if (!file.exists()) {
+            return lines;
+        }
+        try (BufferedReader reader = new BufferedReader(new FileReader(file))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lines.add(line);
+            }
+        }
+        return lines;
+    }
+
+    @Override
+    public void writeLines(String fileName, List<String> lines) throws IOException {
+        Path temp = writeTemp(fileName, lines);
+        replace(temp, Paths.get(dataDirectory + fileName));
+    }
+
+    @Override
+    public void appendLine(String fileName, String line) throws IOException {
+        // Create the file if it does not exist
+        new File(dataDirectory + fileName).createNewFile();
+        try (BufferedWriter writer = new BufferedWriter(new FileWriter(dataDirectory + fileName, true))) {
+            writer.write(line);
+            writer.newLine();
+        }
+    }
+
+    @Override
+    public boolean deleteLine(String fileName, String lineToDelete) throws IOException {
+        List<String> lines = readLines(fileName);
+        for (int i = 0; i < lines.size(); i++) {
+            if (lines.get(i).trim().equals(lineToDelete.trim())) {
+                lines.remove(i);
+                writeLines(fileName, lines);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public void exportCsv(String fileName) {
+        // Already stored as CSV
+    }
+
+    @Override
+    public void importCsv(String fileName, String sourcePath) throws IOException {
+        writeLines(fileName, Files.readAllLines(Paths.get(sourcePath)));
+    }
+
+    // Stages every rewrite in a temp file, records the plan in a journal, then renames and appends.
+    // The journal's closing "C" line is the commit point: recover() finishes a committed plan and
+    // throws away one that never got that far.
+    @Override
+    public void commit(List<FileOperation> operations) throws IOException {
+        Path journal = Paths.get(dataDirectory + JOURNAL_PREFIX + UUID.randomUUID() + JOURNAL_SUFFIX);
+        List<String> entries = new ArrayList<>();
+        Map<String, Long> expectedSizes = new HashMap<>();
+        List<Path> temps = new ArrayList<>();
+        try {
+            for (FileOperation operation : operations) {
+                String fileName = operation.getFileName();
+                if (operation.getKind() == FileOperation.Kind.WRITE) {
+                    Path temp = writeTemp(fileName, operation.getLines());
+                    temps.add(temp);
+                    entries.add(String.join("\t", "W", temp.getFileName().toString(), fileName));
+                    expectedSizes.put(fileName, byteLength(operation.getLines()));
+                } else {
+                    // Appends carry the file size they expect to find, so replaying one is idempotent
+                    long sizeBefore = expectedSizes.computeIfAbsent(fileName,
+                            name -> new File(dataDirectory + name).length());
+                    String line = operation.getLines().get(0);
+                    entries.add(String.join("\t", "A", fileName, String.valueOf(sizeBefore), line));
+                    expectedSizes.put(fileName, sizeBefore + byteLength(List.of(line)));
+                }
+            }
+            entries.add("C");
+            writeSynced(journal, entries);
+        } catch (IOException e) {
+            for (Path temp : temps) {
+                Files.deleteIfExists(temp);
+            }
+            throw e;
+        }
+        replay(entries);
+        Files.delete(journal);
+    }
+
+    private void recover() throws IOException {
+        Path directory = Paths.get(dataDirectory);
+        if (!Files.isDirectory(directory)) {
+            return;
+        }
+        try (DirectoryStream<Path> journals = Files.newDirectoryStream(directory, JOURNAL_PREFIX + "*" + JOURNAL_SUFFIX)) {
+            for (Path journal : journals) {
+                List<String> entries = Files.readAllLines(journal);
+                if (!entries.isEmpty() && entries.get(entries.size() - 1).equals("C")) {
+                    LOG.warn("Completing interrupted transaction " + journal.getFileName());
+                    replay(entries);
+                } else {
+                    LOG.warn("Discarding uncommitted transaction " + journal.getFileName());
+                    for (String entry : entries) {
+                        String[] parts = entry.split("\t", 3);
+                        if (parts[0].equals("W") && parts.length == 3) {
+                            Files.deleteIfExists(Paths.get(dataDirectory + parts[1]));
+                        }
+                    }
+                }
+                Files.delete(journal);
+            }
+        }
+    }
+
+    // Consecutive appends to one file go out in a single write
+    private void replay(List<String> entries) throws IOException {
+        String appendFile = null;
+        List<String> pending = new ArrayList<>();
+        for (String entry : entries) {
+            String[] parts = entry.split("\t", 4);
+            if (parts[0].equals("A")) {
+                if (!parts[1].equals(appendFile)) {
+                    appendLines(appendFile, pending);
+                    appendFile = parts[1];
+                }
+                // Lines already on disk from an interrupted replay are skipped; the run resumes at
+                // the first line whose expected size matches the file
+                if (!pending.isEmpty() || new File(dataDirectory + parts[1]).length() == Long.parseLong(parts[2])) {
+                    pending.add(parts[3]);
+                }
+            } else if (parts[0].equals("W")) {
+                appendLines(appendFile, pending);
+                appendFile = null;
+                Path temp = Paths.get(dataDirectory + parts[1]);
+                if (Files.exists(temp)) {
+                    replace(temp, Paths.get(dataDirectory + parts[2]));
+                }
+            }
+        }
+        appendLines(appendFile, pending);
+    }
+
+    // Empties lines once they are written
+    private void appendLines(String fileName, List<String> lines) throws IOException {
+        if (lines.isEmpty()) {
+            return;
+        }
+        new File(dataDirectory + fileName).createNewFile();
+        try (BufferedWriter writer = new BufferedWriter(new FileWriter(dataDirectory + fileName, true))) {
+            for (String line : lines) {
+                writer.write(line);
+                writer.newLine();
+            }
+        }
+        lines.clear();
+    }
+
+    private Path writeTemp(String fileName, List<String> lines) throws IOException {
+        Path temp = Files.createTempFile(Paths.get(dataDirectory), fileName + ".", ".tmp");
+        try (BufferedWriter writer = Files.newBufferedWriter(temp, Charset.defaultCharset())) {
+            for (String line : lines) {
+                writer.write(line);
+                writer.newLine();
+            }
+        } catch (IOException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+        return temp;
+    }
+
+    private void replace(Path temp, Path target) throws IOException {
+        Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private void writeSynced(Path path, List<String> lines) throws IOException {
+        try (FileOutputStream out = new FileOutputStream(path.toFile());
+             Writer writer = new BufferedWriter(new OutputStreamWriter(out, Charset.defaultCharset()))) {
+            for (String line : lines) {
+                writer.write(line);
+                writer.write(System.lineSeparator());
+            }
+            writer.flush();
+            out.getFD().sync();
+        }
+    }
+
+    private long byteLength(List<String> lines) {
+        long length = 0;
+        for (String line : lines) {
+            length += (line + System.lineSeparator()).getBytes(Charset.defaultCharset()).length;
+        }
+        return length;
+    }
+}
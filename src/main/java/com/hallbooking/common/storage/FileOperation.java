@@ -0,0 +1,34 @@
+package main.java.com.hallbooking.common.storage;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// One staged change inside a transaction: either a full rewrite of a file or a single appended line
+public class FileOperation {
+    public enum Kind {
+        WRITE,
+        APPEND
+    }
+
+    private final Kind kind;
+    private final String fileName;
+    private final List<String> lines;
+
+    private FileOperation(Kind kind, String fileName, List<String> lines) {
+        this.kind = kind;
+        this.fileName = fileName;
+        this.lines = lines;
+    }
+
+    public static FileOperation write(String fileName, List<String> lines) {
+        return new FileOperation(Kind.WRITE, fileName, new ArrayList<>(lines));
+    }
+
+    public static FileOperation append(String fileName, String line) {
+        return new FileOperation(Kind.APPEND, fileName, List.of(line));
+    }
+
+    public Kind getKind() { return kind; }
+    public String getFileName() { return fileName; }
+    public List<String> getLines() { return lines; }
+}
@@ -0,0 +1,102 @@
+package main.java.com.hallbooking.common.storage;
+
+import main.java.com.hallbooking.common.logging.Logger;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+// Staging area opened by FileHandler.beginTransaction. Reads see the transaction's own staged
+// writes; nothing reaches the storage engine until commit(). close() releases the file locks.
+public class FileTransaction implements AutoCloseable {
+    private static final Logger LOG = Logger.getLogger(FileTransaction.class);
+
+    private final StorageEngine engine;
+    private final Set<String> lockedFiles;
+    private final Map<String, List<String>> staged = new HashMap<>();
+    // Lines appended to files that have not been read whole into staged; read() adds them to the stored lines
+    private final Map<String, List<String>> appended = new HashMap<>();
+    private final List<FileOperation> operations = new ArrayList<>();
+    private final List<Runnable> commitHooks = new ArrayList<>();
+    private final Runnable release;
+    private boolean closed;
+
+    public FileTransaction(StorageEngine engine, Set<String> lockedFiles, Runnable release) {
+        this.engine = engine;
+        this.lockedFiles = lockedFiles;
+        this.release = release;
+    }
+
+    public List<String> read(String fileName) throws IOException {
+        checkLocked(fileName);
+        List<String> lines = staged.get(fileName);
+        if (lines != null) {
+            return new ArrayList<>(lines);
+        }
+        List<String> stored = new ArrayList<>(engine.readLines(fileName));
+        stored.addAll(appended.getOrDefault(fileName, List.of()));
+        return stored;
+    }
+
+    public void write(String fileName, List<String> lines) {
+        checkLocked(fileName);
+        staged.put(fileName, new ArrayList<>(lines));
+        appended.remove(fileName);
+        operations.add(FileOperation.write(fileName, lines));
+    }
+
+    public void append(String fileName, String line) {
+        checkLocked(fileName);
+        List<String> lines = staged.get(fileName);
+        if (lines != null) {
+            lines.add(line);
+        } else {
+            appended.computeIfAbsent(fileName, name -> new ArrayList<>()).add(line);
+        }
+        operations.add(FileOperation.append(fileName, line));
+    }
+
+    // Runs after a successful commit, while the transaction's locks are still held
+    public void onCommit(Runnable hook) {
+        commitHooks.add(hook);
+    }
+
+    // Returns false, with nothing applied, if the engine could not commit
+    public boolean commit() {
+        try {
+            if (!operations.isEmpty()) {
+                engine.commit(operations);
+            }
+        } catch (IOException e) {
+            LOG.error("Error committing transaction on files: " + lockedFiles, e);
+            return false;
+        } finally {
+            // Committed or discarded, so later reads go to the engine again
+            operations.clear();
+            staged.clear();
+            appended.clear();
+        }
+        for (Runnable hook : commitHooks) {
+            hook.run();
+        }
+        commitHooks.clear();
+        return true;
+    }
+
+    // Releases the locks; anything staged but not committed is discarded
+    @Override
+    public void close() {
+        if (!closed) {
+            closed = true;
+            release.run();
+        }
+    }
+
+    private void checkLocked(String fileName) {
+        if (!lockedFiles.contains(fileName)) {
+            throw new IllegalStateException("File " + fileName + " is not part of this transaction");
+        }
+    }
+}
@@ -0,0 +1,425 @@
+package main.java.com.hallbooking.common.storage;
+
+import main.java.com.hallbooking.common.logging.Logger;
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+// Append-only storage: data/<file> is the last snapshot (plain CSV) and data/<file>.log holds the
+// mutations made since. Each update costs one small sequential write to the log, and the snapshot
+// is rewritten only once compactEvery records have piled up.
+//
+// Log records, one per line:
+//   A<TAB>line             append line
+//   D<TAB>index<TAB>line   delete the row at index
+//   U<TAB>index<TAB>line   replace the row at index
+//   R                      clear the table (followed by A records)
+//   T<TAB>txn<TAB>record   record belonging to a multi-file transaction; only replayed once the
+//                          transaction id has been written to data/commits.log
+// A transaction id is dropped from data/commits.log once every file it touched has been compacted.
+public class LogStorageEngine implements StorageEngine {
+    private static final Logger LOG = Logger.getLogger(LogStorageEngine.class);
+    private static final String LOG_SUFFIX = ".log";
+    private static final String COMPACTING_SUFFIX = ".log.compacting";
+    private static final String SNAPSHOT_TEMP_SUFFIX = ".snapshot.tmp";
+    private static final String COMMITS_FILE = "commits.log";
+    private static final String COMMITS_TEMP_FILE = "commits.log.tmp";
+
+    private final String dataDirectory;
+    private final int compactEvery;
+    private final Map<String, Table> tables = new HashMap<>();
+    private final Set<String> committedTransactions = new HashSet<>();
+    // Committed transaction id -> files whose logs still hold its records
+    private final Map<String, Set<String>> transactionFiles = new HashMap<>();
+
+    public LogStorageEngine(String dataDirectory, int compactEvery) {
+        this.dataDirectory = dataDirectory;
+        this.compactEvery = compactEvery;
+        try {
+            Path commits = Paths.get(dataDirectory + COMMITS_FILE);
+            if (Files.exists(commits)) {
+                committedTransactions.addAll(Files.readAllLines(commits));
+            }
+            findTransactionFiles();
+            if (committedTransactions.retainAll(transactionFiles.keySet())) {
+                writeCommits();
+            }
+        } catch (IOException e) {
+            LOG.warn("Error reading transaction commits: " + e.getMessage());
+        }
+    }
+
+    // Every log on disk, loaded or not, may still need its transactions' commit lines
+    private void findTransactionFiles() throws IOException {
+        File[] logs = new File(dataDirectory).listFiles((dir, name) -> !name.equals(COMMITS_FILE)
+                && (name.endsWith(LOG_SUFFIX) || name.endsWith(COMPACTING_SUFFIX)));
+        if (logs == null) {
+            return;
+        }
+        for (File log : logs) {
+            String name = log.getName();
+            String fileName = name.substring(0, name.length()
+                    - (name.endsWith(LOG_SUFFIX) ? LOG_SUFFIX : COMPACTING_SUFFIX).length());
+            for (String record : Files.readAllLines(log.toPath())) {
+                String[] parts = record.split("\t", 3);
+                if (parts.length == 3 && parts[0].equals("T") && committedTransactions.contains(parts[1])) {
+                    transactionFiles.computeIfAbsent(parts[1], id -> new HashSet<>()).add(fileName);
+                }
+            }
+        }
+    }
+
+    @Override
+    public synchronized boolean exists(String fileName) {
+        return tables.containsKey(fileName)
+                || new File(dataDirectory + fileName).exists()
+                || new File(dataDirectory + fileName + LOG_SUFFIX).exists();
+    }
+
+    @Override
+    public synchronized List<String> readLines(String fileName) throws IOException {
+        return new ArrayList<>(table(fileName).rows);
+    }
+
+    @Override
+    public synchronized void writeLines(String fileName, List<String> lines) throws IOException {
+        Table table = table(fileName);
+        List<String> records = diff(table.rows, lines);
+        if (records == null) {
+            // Not expressible as a few appends, deletes or in-place updates
+            table.rows = new ArrayList<>(lines);
+            compact(fileName, table);
+            return;
+        }
+        for (String record : records) {
+            apply(table.rows, record);
+        }
+        log(fileName, table, records);
+    }
+
+    @Override
+    public synchronized void appendLine(String fileName, String line) throws IOException {
+        Table table = table(fileName);
+        String record = "A\t" + line;
+        apply(table.rows, record);
+        log(fileName, table, List.of(record));
+    }
+
+    @Override
+    public synchronized boolean deleteLine(String fileName, String lineToDelete) throws IOException {
+        Table table = table(fileName);
+        for (int i = 0; i < table.rows.size(); i++) {
+            if (table.rows.get(i).trim().equals(lineToDelete.trim())) {
+                String record = "D\t" + i + "\t" + table.rows.get(i);
+                apply(table.rows, record);
+                log(fileName, table, List.of(record));
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public synchronized void exportCsv(String fileName) throws IOException {
+        Table table = table(fileName);
+        if (table.pendingRecords > 0 || !new File(dataDirectory + fileName).exists()) {
+            compact(fileName, table);
+        }
+    }
+
+    @Override
+    public synchronized void importCsv(String fileName, String sourcePath) throws IOException {
+        Table table = table(fileName);
+        table.rows = new ArrayList<>(Files.readAllLines(Paths.get(sourcePath)));
+        compact(fileName, table);
+    }
+
+    @Override
+    public synchronized void commit(List<FileOperation> operations) throws IOException {
+        // Work out every file's records against scratch copies first, so a failure changes nothing
+        Map<String, List<String>> scratch = new LinkedHashMap<>();
+        Map<String, List<String>> recordsByFile = new LinkedHashMap<>();
+        Set<String> rewritten = new HashSet<>();
+        for (FileOperation operation : operations) {
+            String fileName = operation.getFileName();
+            if (!scratch.containsKey(fileName)) {
+                scratch.put(fileName, new ArrayList<>(table(fileName).rows));
+                recordsByFile.put(fileName, new ArrayList<>());
+            }
+            List<String> rows = scratch.get(fileName);
+            List<String> records;
+            if (operation.getKind() == FileOperation.Kind.APPEND) {
+                records = List.of("A\t" + operation.getLines().get(0));
+            } else {
+                records = diff(rows, operation.getLines());
+                if (records == null) {
+                    rewritten.add(fileName);
+                    records = new ArrayList<>();
+                    records.add("R");
+                    for (String line : operation.getLines()) {
+                        records.add("A\t" + line);
+                    }
+                }
+            }
+            for (String record : records) {
+                apply(rows, record);
+            }
+            recordsByFile.get(fileName).addAll(records);
+        }
+
+        if (recordsByFile.size() == 1) {
+            String fileName = recordsByFile.keySet().iterator().next();
+            Table table = table(fileName);
+            table.rows = scratch.get(fileName);
+            if (rewritten.contains(fileName)) {
+                // An R record and its appends could be torn part way, so a rewrite goes straight to a new snapshot
+                compact(fileName, table);
+            } else {
+                log(fileName, table, recordsByFile.get(fileName));
+            }
+            return;
+        }
+
+        String transactionId = UUID.randomUUID().toString();
+        for (Map.Entry<String, List<String>> entry : recordsByFile.entrySet()) {
+            List<String> tagged = new ArrayList<>();
+            for (String record : entry.getValue()) {
+                tagged.add("T\t" + transactionId + "\t" + record);
+            }
+            writeLog(entry.getKey(), tagged, true);
+        }
+        // Commit point: until this line is on disk, replay ignores the tagged records above, which is
+        // also what keeps an R record in a transaction from being replayed without all its appends
+        try (FileOutputStream out = new FileOutputStream(dataDirectory + COMMITS_FILE, true)) {
+            out.write((transactionId + System.lineSeparator()).getBytes());
+            out.getFD().sync();
+        }
+        committedTransactions.add(transactionId);
+        transactionFiles.put(transactionId, new HashSet<>(recordsByFile.keySet()));
+
+        for (Map.Entry<String, List<String>> entry : recordsByFile.entrySet()) {
+            Table table = table(entry.getKey());
+            table.rows = scratch.get(entry.getKey());
+            table.pendingRecords += entry.getValue().size();
+            if (table.pendingRecords >= compactEvery) {
+                compact(entry.getKey(), table);
+            }
+        }
+    }
+
+    // Folds every pending log into its snapshot, e.g. before handing data/*.txt to other tools
+    public synchronized void compactAll() throws IOException {
+        for (Map.Entry<String, Table> entry : tables.entrySet()) {
+            if (entry.getValue().pendingRecords > 0) {
+                compact(entry.getKey(), entry.getValue());
+            }
+        }
+    }
+
+    private Table table(String fileName) throws IOException {
+        Table table = tables.get(fileName);
+        if (table == null) {
+            table = load(fileName);
+            tables.put(fileName, table);
+        }
+        return table;
+    }
+
+    private Table load(String fileName) throws IOException {
+        Path snapshot = Paths.get(dataDirectory + fileName);
+        Path log = Paths.get(dataDirectory + fileName + LOG_SUFFIX);
+        Path compacting = Paths.get(dataDirectory + fileName + COMPACTING_SUFFIX);
+        Path snapshotTemp = Paths.get(dataDirectory + fileName + SNAPSHOT_TEMP_SUFFIX);
+
+        // Recover from a compaction that was interrupted part way
+        if (Files.exists(snapshotTemp)) {
+            // The new snapshot never replaced the old one, so any retired log still applies
+            Files.delete(snapshotTemp);
+        } else if (Files.exists(compacting)) {
+            // The new snapshot is in place and already contains these records
+            Files.delete(compacting);
+        }
+
+        Table table = new Table();
+        if (Files.exists(snapshot)) {
+            table.rows.addAll(Files.readAllLines(snapshot));
+        }
+        table.pendingRecords += replay(compacting, table.rows);
+        table.pendingRecords += replay(log, table.rows);
+        return table;
+    }
+
+    private int replay(Path log, List<String> rows) throws IOException {
+        if (!Files.exists(log)) {
+            return 0;
+        }
+        int replayed = 0;
+        for (String record : Files.readAllLines(log)) {
+            if (apply(rows, record)) {
+                replayed++;
+            } else {
+                // Most likely a torn final write; everything before it is intact
+                LOG.warn("Skipping unreadable log record in " + log + ": " + record);
+            }
+        }
+        return replayed;
+    }
+
+    private boolean apply(List<String> rows, String record) {
+        String[] parts = record.split("\t", 3);
+        try {
+            switch (parts[0]) {
+                case "A":
+                    rows.add(record.substring(2));
+                    return true;
+                case "D":
+                    rows.remove(Integer.parseInt(parts[1]));
+                    return true;
+                case "U":
+                    rows.set(Integer.parseInt(parts[1]), parts[2]);
+                    return true;
+                case "R":
+                    rows.clear();
+                    return true;
+                case "T":
+                    // Records of a transaction that never committed are skipped, not reported
+                    return !committedTransactions.contains(parts[1]) || apply(rows, parts[2]);
+                default:
+                    return false;
+            }
+        } catch (RuntimeException e) {
+            return false;
+        }
+    }
+
+    // Expresses the change from current to updated as log records, or null if a snapshot is cheaper
+    private List<String> diff(List<String> current, List<String> updated) {
+        List<String> records = new ArrayList<>();
+        if (updated.size() == current.size()) {
+            for (int i = 0; i < current.size(); i++) {
+                if (!current.get(i).equals(updated.get(i))) {
+                    records.add("U\t" + i + "\t" + updated.get(i));
+                }
+            }
+        } else if (updated.size() < current.size()) {
+            // Rows removed: updated must be an in-order subsequence of current
+            int j = 0;
+            List<Integer> removed = new ArrayList<>();
+            for (int i = 0; i < current.size(); i++) {
+                if (j < updated.size() && current.get(i).equals(updated.get(j))) {
+                    j++;
+                } else {
+                    removed.add(i);
+                }
+            }
+            if (j != updated.size()) {
+                return null;
+            }
+            // Delete from the back so earlier indexes stay valid during replay
+            for (int k = removed.size() - 1; k >= 0; k--) {
+                int index = removed.get(k);
+                records.add("D\t" + index + "\t" + current.get(index));
+            }
+        } else {
+            // Rows added: current must be a prefix of updated
+            for (int i = 0; i < current.size(); i++) {
+                if (!current.get(i).equals(updated.get(i))) {
+                    return null;
+                }
+            }
+            for (int i = current.size(); i < updated.size(); i++) {
+                records.add("A\t" + updated.get(i));
+            }
+        }
+        return records.size() <= compactEvery ? records : null;
+    }
+
+    private void log(String fileName, Table table, List<String> records) throws IOException {
+        if (records.isEmpty()) {
+            return;
+        }
+        writeLog(fileName, records, false);
+        table.pendingRecords += records.size();
+        if (table.pendingRecords >= compactEvery) {
+            compact(fileName, table);
+        }
+    }
+
+    // With sync, the records are on disk before this returns, as they must be before a commit point
+    private void writeLog(String fileName, List<String> records, boolean sync) throws IOException {
+        FileOutputStream out = new FileOutputStream(dataDirectory + fileName + LOG_SUFFIX, true);
+        try (BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(out))) {
+            for (String record : records) {
+                writer.write(record);
+                writer.newLine();
+            }
+            if (sync) {
+                writer.flush();
+                out.getFD().sync();
+            }
+        }
+    }
+
+    private void compact(String fileName, Table table) throws IOException {
+        Path snapshot = Paths.get(dataDirectory + fileName);
+        Path log = Paths.get(dataDirectory + fileName + LOG_SUFFIX);
+        Path compacting = Paths.get(dataDirectory + fileName + COMPACTING_SUFFIX);
+        Path snapshotTemp = Paths.get(dataDirectory + fileName + SNAPSHOT_TEMP_SUFFIX);
+
+        // 1. write the new snapshot aside, 2. retire the live log, 3. swap the snapshot in, 4. drop the
+        // retired log. load() can tell from which of the files survive how far a crash got.
+        Files.write(snapshotTemp, table.rows);
+        if (Files.exists(log)) {
+            Files.move(log, compacting, StandardCopyOption.REPLACE_EXISTING);
+        }
+        Files.move(snapshotTemp, snapshot, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        Files.deleteIfExists(compacting);
+        table.pendingRecords = 0;
+        pruneCommits(fileName);
+    }
+
+    // The file's logs are gone, so transactions no other log refers to no longer need their commit
+    // lines. commits.log is replaced whole; a crash before the swap only leaves lines that are unused.
+    private void pruneCommits(String fileName) throws IOException {
+        boolean pruned = false;
+        for (Iterator<Map.Entry<String, Set<String>>> it = transactionFiles.entrySet().iterator(); it.hasNext(); ) {
+            Map.Entry<String, Set<String>> entry = it.next();
+            if (entry.getValue().remove(fileName) && entry.getValue().isEmpty()) {
+                it.remove();
+                committedTransactions.remove(entry.getKey());
+                pruned = true;
+            }
+        }
+        if (pruned) {
+            writeCommits();
+        }
+    }
+
+    private void writeCommits() throws IOException {
+        Path temp = Paths.get(dataDirectory + COMMITS_TEMP_FILE);
+        try (FileOutputStream out = new FileOutputStream(temp.toFile())) {
+            for (String transactionId : committedTransactions) {
+                out.write((transactionId + System.lineSeparator()).getBytes());
+            }
+            out.getFD().sync();
+        }
+        Files.move(temp, Paths.get(dataDirectory + COMMITS_FILE),
+                StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static class Table {
+        List<String> rows = new ArrayList<>();
+        int pendingRecords;
+    }
+}
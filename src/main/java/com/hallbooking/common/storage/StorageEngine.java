@@ -0,0 +1,29 @@
+package main.java.com.hallbooking.common.storage;
+
+import java.io.IOException;
+import java.util.List;
+
+// Backend behind FileHandler; every data file is a list of CSV lines addressed by its file name
+public interface StorageEngine {
+
+    boolean exists(String fileName);
+
+    List<String> readLines(String fileName) throws IOException;
+
+    void writeLines(String fileName, List<String> lines) throws IOException;
+
+    void appendLine(String fileName, String line) throws IOException;
+
+    // Removes the first line equal to lineToDelete (ignoring surrounding whitespace)
+    boolean deleteLine(String fileName, String lineToDelete) throws IOException;
+
+    // Leaves data/<fileName> as a plain CSV file holding the current contents. Readers call it under
+    // a shared lock, so it must be safe to run concurrently and cheap when the file is already current.
+    void exportCsv(String fileName) throws IOException;
+
+    // Replaces the contents of fileName with the lines of an external CSV file
+    void importCsv(String fileName, String sourcePath) throws IOException;
+
+    // Applies all operations, possibly across several files, or none of them if the process dies part way
+    void commit(List<FileOperation> operations) throws IOException;
+}
@@ -0,0 +1,141 @@
+package main.java.com.hallbooking.common.storage;
+
+import java.util.Collection;
+import java.util.TreeSet;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+// Read/write locks for data files, striped by file name so the lock table stays fixed in size.
+// Multi-file lockers always take stripes in ascending order, which rules out lock-order deadlocks.
+public class StripedFileLocks {
+    private final Stripe[] stripes;
+
+    public StripedFileLocks(int stripeCount) {
+        stripes = new Stripe[stripeCount];
+        for (int i = 0; i < stripeCount; i++) {
+            stripes[i] = new Stripe();
+        }
+    }
+
+    public int stripeFor(String fileName) {
+        return Math.floorMod(fileName.hashCode(), stripes.length);
+    }
+
+    public void lockRead(String fileName) {
+        acquire(stripes[stripeFor(fileName)], false);
+    }
+
+    public void unlockRead(String fileName) {
+        stripes[stripeFor(fileName)].lock.readLock().unlock();
+    }
+
+    public void lockWrite(String fileName) {
+        acquire(stripes[stripeFor(fileName)], true);
+    }
+
+    public void unlockWrite(String fileName) {
+        stripes[stripeFor(fileName)].lock.writeLock().unlock();
+    }
+
+    // Write-locks every stripe covering fileNames; returns the stripes to hand back to unlockWrite
+    public int[] lockWrite(Collection<String> fileNames) {
+        TreeSet<Integer> ordered = new TreeSet<>();
+        for (String fileName : fileNames) {
+            ordered.add(stripeFor(fileName));
+        }
+        int[] locked = new int[ordered.size()];
+        int i = 0;
+        for (int stripe : ordered) {
+            acquire(stripes[stripe], true);
+            locked[i++] = stripe;
+        }
+        return locked;
+    }
+
+    public void unlockWrite(int[] locked) {
+        for (int i = locked.length - 1; i >= 0; i--) {
+            stripes[locked[i]].lock.writeLock().unlock();
+        }
+    }
+
+    private void acquire(Stripe stripe, boolean write) {
+        Lock lock = write ? stripe.lock.writeLock() : stripe.lock.readLock();
+        stripe.acquisitions.incrementAndGet();
+        if (lock.tryLock()) {
+            return;
+        }
+        long start = System.nanoTime();
+        lock.lock();
+        stripe.contended.incrementAndGet();
+        stripe.waitNanos.addAndGet(System.nanoTime() - start);
+    }
+
+    public LockStats getStats() {
+        long acquisitions = 0;
+        long contended = 0;
+        long waitNanos = 0;
+        long maxStripeWaitNanos = 0;
+        for (Stripe stripe : stripes) {
+            acquisitions += stripe.acquisitions.get();
+            contended += stripe.contended.get();
+            long stripeWait = stripe.waitNanos.get();
+            waitNanos += stripeWait;
+            maxStripeWaitNanos = Math.max(maxStripeWaitNanos, stripeWait);
+        }
+        return new LockStats(stripes.length, acquisitions, contended, waitNanos, maxStripeWaitNanos);
+    }
+
+    public void resetStats() {
+        for (Stripe stripe : stripes) {
+            stripe.acquisitions.set(0);
+            stripe.contended.set(0);
+            stripe.waitNanos.set(0);
+        }
+    }
+
+    private static class Stripe {
+        final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+        final AtomicLong acquisitions = new AtomicLong();
+        final AtomicLong contended = new AtomicLong();
+        final AtomicLong waitNanos = new AtomicLong();
+    }
+
+    public static class LockStats {
+        private final int stripes;
+        private final long acquisitions;
+        private final long contended;
+        private final long waitNanos;
+        private final long maxStripeWaitNanos;
+
+        LockStats(int stripes, long acquisitions, long contended, long waitNanos, long maxStripeWaitNanos) {
+            this.stripes = stripes;
+            this.acquisitions = acquisitions;
+            this.contended = contended;
+            this.waitNanos = waitNanos;
+            this.maxStripeWaitNanos = maxStripeWaitNanos;
+        }
+
+        public int getStripes() { return stripes; }
+        public long getAcquisitions() { return acquisitions; }
+        public long getContended() { return contended; }
+        public long getWaitNanos() { return waitNanos; }
+        public long getMaxStripeWaitNanos() { return maxStripeWaitNanos; }
+
+        public double getContentionRate() {
+            return acquisitions == 0 ? 0.0 : (double) contended / acquisitions;
+        }
+
+        @Override
+        public String toString() {
+            return "LockStats{" +
+                    "stripes=" + stripes +
+                    ", acquisitions=" + acquisitions +
+                    ", contended=" + contended +
+                    ", contentionRate=" + String.format("%.4f", getContentionRate()) +
+                    ", waitMillis=" + waitNanos / 1_000_000 +
+                    ", maxStripeWaitMillis=" + maxStripeWaitNanos / 1_000_000 +
+                    '}';
+        }
+    }
+}
@@ -1,44 +1,192 @@
 package main.java.com.hallbooking.common.utils;
 
+import main.java.com.hallbooking.common.logging.Logger;
+import main.java.com.hallbooking.common.storage.CsvRecord;
+import main.java.com.hallbooking.common.storage.ChunkedCsvReader;
+import main.java.com.hallbooking.common.storage.CsvStorageEngine;
+import main.java.com.hallbooking.common.storage.FileTransaction;
+import main.java.com.hallbooking.common.storage.LogStorageEngine;
+import main.java.com.hallbooking.common.storage.StorageEngine;
+import main.java.com.hallbooking.common.storage.StripedFileLocks;
+
 import java.io.*;
+import java.nio.file.Paths;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 import java.util.function.Function;
+import java.util.function.Predicate;
 
 public class FileHandler {
-    private static final String DATA_DIRECTORY = "data/";
+    private static final Logger LOG = Logger.getLogger(FileHandler.class);
+
+    // Overridable so benchmarks and tools can point the handler at a scratch data set
+    private static final String DATA_DIRECTORY = System.getProperty("hallbooking.data.dir", "data") + "/";
+
+    private static StorageEngine storageEngine;
+
+    private static final StripedFileLocks LOCKS = new StripedFileLocks(Integer.getInteger("hallbooking.lock.stripes", 16));
+    // Files declared by the transaction the thread is in, whose write locks it already holds; null outside one
+    private static final ThreadLocal<Set<String>> TRANSACTION_FILES = new ThreadLocal<>();
 
     static {
         // Ensure the data directory exists
         new File(DATA_DIRECTORY).mkdirs();
+        storageEngine = createStorageEngine(System.getProperty("hallbooking.storage", "csv"));
+        LOG.info("Using data directory " + new File(DATA_DIRECTORY).getAbsolutePath());
+    }
+
+    // "csv" rewrites whole files on update, "log" appends mutations and compacts periodically
+    private static StorageEngine createStorageEngine(String name) {
+        if ("log".equalsIgnoreCase(name)) {
+            int compactEvery = Integer.getInteger("hallbooking.storage.compactEvery", 1000);
+            return new LogStorageEngine(DATA_DIRECTORY, compactEvery);
+        }
+        return new CsvStorageEngine(DATA_DIRECTORY);
+    }
+
+    public static StorageEngine getStorageEngine() {
+        return storageEngine;
+    }
+
+    public static void setStorageEngine(StorageEngine engine) {
+        storageEngine = engine;
+    }
+
+    public static String getDataDirectory() {
+        return DATA_DIRECTORY;
+    }
+
+    // Lock contention counters, for sizing the stripe count under concurrent load
+    public static StripedFileLocks.LockStats getLockStats() {
+        return LOCKS.getStats();
+    }
+
+    public static void resetLockStats() {
+        LOCKS.resetStats();
+    }
+
+    // Takes the write locks of every file in fileNames and returns a transaction to stage changes in.
+    // List every file the caller reads as well as writes, so the whole check-then-write sequence runs
+    // under the locks, and use it in try-with-resources so the locks are always released:
+    //   try (FileTransaction transaction = FileHandler.beginTransaction(files)) { ...; transaction.commit(); }
+    // That includes files read by commit hooks, e.g. to load an index. Inside a transaction, touching
+    // a file it did not declare throws: taking that lock then could break the stripe order and deadlock.
+    public static FileTransaction beginTransaction(Collection<String> fileNames) {
+        Set<String> declared = TRANSACTION_FILES.get();
+        if (declared != null) {
+            // Nested: covered by the enclosing transaction's locks, which it releases
+            fileNames.forEach(fileName -> checkDeclared(declared, fileName));
+            return new FileTransaction(storageEngine, new HashSet<>(fileNames), () -> { });
+        }
+        int[] locked = LOCKS.lockWrite(fileNames);
+        TRANSACTION_FILES.set(new HashSet<>(fileNames));
+        return new FileTransaction(storageEngine, new HashSet<>(fileNames), () -> {
+            TRANSACTION_FILES.remove();
+            LOCKS.unlockWrite(locked);
+        });
+    }
+
+    private static void checkDeclared(Set<String> declared, String fileName) {
+        if (!declared.contains(fileName)) {
+            throw new IllegalStateException("File " + fileName + " is used inside a transaction that did not declare it");
+        }
+    }
+
+    private static void lockRead(String fileName) {
+        Set<String> declared = TRANSACTION_FILES.get();
+        if (declared == null) {
+            LOCKS.lockRead(fileName);
+        } else {
+            checkDeclared(declared, fileName);
+        }
+    }
+
+    private static void unlockRead(String fileName) {
+        if (TRANSACTION_FILES.get() == null) {
+            LOCKS.unlockRead(fileName);
+        }
+    }
+
+    private static void lockWrite(String fileName) {
+        Set<String> declared = TRANSACTION_FILES.get();
+        if (declared == null) {
+            LOCKS.lockWrite(fileName);
+        } else {
+            checkDeclared(declared, fileName);
+        }
+    }
+
+    private static void unlockWrite(String fileName) {
+        if (TRANSACTION_FILES.get() == null) {
+            LOCKS.unlockWrite(fileName);
+        }
     }
 
     public static <T> List<T> readFromFile(String fileName, Function<String, T> parser) {
         List<T> items = new ArrayList<>();
-        File file = new File(DATA_DIRECTORY + fileName);
-        System.out.println(fileName);
-        System.out.println(file);
-        System.out.println("current working directory:" + new File(".").getAbsolutePath());
-
-        if (!file.exists()) {
-            System.out.println("File not found: " + file.getPath());
+        if (!storageEngine.exists(fileName)) {
+            LOG.debug(() -> "File not found: " + new File(DATA_DIRECTORY + fileName).getAbsolutePath());
             return items; // Return empty list if file doesn't exist
-        } else {
-            System.out.println("Reading file: " + file.getPath());
         }
+        LOG.debug(() -> "Reading file: " + new File(DATA_DIRECTORY + fileName).getAbsolutePath());
 
-        try (BufferedReader reader = new BufferedReader(new FileReader(file))) {
-            String line;
-            while ((line = reader.readLine()) != null) {
+        lockRead(fileName);
+        try {
+            for (String line : storageEngine.readLines(fileName)) {
                 items.add(parser.apply(line));
             }
         } catch (IOException e) {
-            System.err.println("Error reading from file: " + fileName);
-            e.printStackTrace();
+            LOG.error("Error reading from file: " + fileName, e);
+        } finally {
+            unlockRead(fileName);
         }
         return items;
     }
 
+    // Allocation-light read: visits each line of the file as a CsvRecord over a reused buffer until the
+    // visitor returns false. Records are reused between calls, so copy out what you need to keep.
+    // A failed read throws rather than ending early, so callers never mistake part of a file for all of it.
+    public static void scanFile(String fileName, Predicate<CsvRecord> visitor) throws IOException {
+        lockRead(fileName);
+        try {
+            // The reader reads data/<fileName> itself, so pending log records are folded into it first.
+            // That is a no-op unless a write left some, and the engine serializes it, so readers share the lock.
+            storageEngine.exportCsv(fileName);
+            new ChunkedCsvReader().scan(Paths.get(DATA_DIRECTORY + fileName), visitor);
+        } finally {
+            unlockRead(fileName);
+        }
+    }
+
+    // Like readFromFile, but the parser pulls typed fields from the record; null results are dropped
+    public static <T> List<T> readRecords(String fileName, Function<CsvRecord, T> parser) throws IOException {
+        List<T> items = new ArrayList<>();
+        scanFile(fileName, record -> {
+            T item = parser.apply(record);
+            if (item != null) {
+                items.add(item);
+            }
+            return true;
+        });
+        return items;
+    }
+
+    // Parses only the first record accepted by match, or returns null
+    public static <T> T findRecord(String fileName, Predicate<CsvRecord> match, Function<CsvRecord, T> parser) throws IOException {
+        List<T> found = new ArrayList<>(1);
+        scanFile(fileName, record -> {
+            if (match.test(record)) {
+                found.add(parser.apply(record));
+                return false;
+            }
+            return true;
+        });
+        return found.isEmpty() ? null : found.get(0);
+    }
+
     // New method to read scheduler IDs from a file
     public static List<String> readSchedulerIdsFromFile(String fileName) {
         return readFromFile(fileName, line -> line.split(",")[0].trim()); // Get the first field (ID)
@@ -46,59 +194,63 @@ public class FileHandler {
 
 
     public static <T> void writeToFile(String fileName, List<T> items, Function<T, String> formatter) {
-        try (BufferedWriter writer = new BufferedWriter(new FileWriter(DATA_DIRECTORY + fileName))) {
-            for (T item : items) {
-                writer.write(formatter.apply(item));
-                writer.newLine();
-            }
+        List<String> lines = new ArrayList<>(items.size());
+        for (T item : items) {
+            lines.add(formatter.apply(item));
+        }
+        lockWrite(fileName);
+        try {
+            storageEngine.writeLines(fileName, lines);
         } catch (IOException e) {
-            System.err.println("Error writing to file: " + fileName);
-            e.printStackTrace();
+            LOG.error("Error writing to file: " + fileName, e);
+        } finally {
+            unlockWrite(fileName);
         }
     }
 
     public static void appendToFile(String fileName, String content) {
+        lockWrite(fileName);
         try {
-            // Create the file if it does not exist
-            new File(DATA_DIRECTORY + fileName).createNewFile();
-            try (BufferedWriter writer = new BufferedWriter(new FileWriter(DATA_DIRECTORY + fileName, true))) {
-                writer.write(content);
-                writer.newLine();
-            }
+            storageEngine.appendLine(fileName, content);
         } catch (IOException e) {
-            System.err.println("Error appending to file: " + fileName);
-            e.printStackTrace();
+            LOG.error("Error appending to file: " + fileName, e);
+        } finally {
+            unlockWrite(fileName);
         }
     }
 
     public static boolean deleteFromFile(String fileName, String lineToDelete) {
-        File inputFile = new File(DATA_DIRECTORY + fileName);
-        File tempFile = new File(DATA_DIRECTORY + "temp.txt");
-
-        boolean found = false;
-        try (BufferedReader reader = new BufferedReader(new FileReader(inputFile));
-             BufferedWriter writer = new BufferedWriter(new FileWriter(tempFile))) {
-
-            String currentLine;
-            while ((currentLine = reader.readLine()) != null) {
-                if (currentLine.trim().equals(lineToDelete.trim())) {
-                    found = true;
-                    continue;
-                }
-                writer.write(currentLine);
-                writer.newLine();
-            }
+        lockWrite(fileName);
+        try {
+            return storageEngine.deleteLine(fileName, lineToDelete);
         } catch (IOException e) {
-            System.err.println("Error modifying file: " + fileName);
-            e.printStackTrace();
+            LOG.error("Error modifying file: " + fileName, e);
             return false;
+        } finally {
+            unlockWrite(fileName);
         }
+    }
 
-        if (found) {
-            return inputFile.delete() && tempFile.renameTo(inputFile);
-        } else {
-            tempFile.delete();
-            return false;
+    // Brings data/<fileName> up to date as a plain CSV file
+    public static void exportToCsv(String fileName) {
+        lockWrite(fileName);
+        try {
+            storageEngine.exportCsv(fileName);
+        } catch (IOException e) {
+            LOG.error("Error exporting file: " + fileName, e);
+        } finally {
+            unlockWrite(fileName);
+        }
+    }
+
+    public static void importFromCsv(String fileName, String sourcePath) {
+        lockWrite(fileName);
+        try {
+            storageEngine.importCsv(fileName, sourcePath);
+        } catch (IOException e) {
+            LOG.error("Error importing file: " + fileName + " from " + sourcePath, e);
+        } finally {
+            unlockWrite(fileName);
         }
     }
 }
@@ -0,0 +1,62 @@
+package main.java.com.hallbooking.common.utils;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+// Snowflake-style IDs: milliseconds since 2024-01-01 in the top bits, then a 10-bit node number
+// and a 12-bit sequence within the millisecond. IDs from one process are unique and increasing,
+// and processes started with different -Dhallbooking.id.node values never collide.
+// The last timestamp and sequence handed out share one AtomicLong advanced by compare-and-set.
+// When a millisecond's 4096 sequence numbers run out, or the clock steps back, IDs carry on from
+// the last timestamp instead of waiting for the clock to catch up.
+public final class IdGenerator {
+    public enum Entity {
+        BOOKING("B"),
+        RECEIPT("R"),
+        ISSUE("I"),
+        MAINTENANCE("M");
+
+        private final String prefix;
+
+        Entity(String prefix) {
+            this.prefix = prefix;
+        }
+
+        public String getPrefix() {
+            return prefix;
+        }
+    }
+
+    private static final long EPOCH_MILLIS = 1_704_067_200_000L;  // 2024-01-01T00:00Z
+    private static final int NODE_BITS = 10;
+    private static final int SEQUENCE_BITS = 12;
+    private static final long NODE = Math.floorMod(Long.getLong("hallbooking.id.node", 0L), 1L << NODE_BITS);
+
+    // (timestamp << SEQUENCE_BITS) | sequence of the last ID handed out
+    private static final AtomicLong LAST = new AtomicLong();
+
+    private IdGenerator() {
+    }
+
+    public static String next(Entity entity) {
+        return entity.prefix + nextId();
+    }
+
+    public static long nextId() {
+        long now = (System.currentTimeMillis() - EPOCH_MILLIS) << SEQUENCE_BITS;
+        long last;
+        long next;
+        do {
+            last = LAST.get();
+            // A sequence overflow carries into the timestamp
+            next = Math.max(last + 1, now);
+        } while (!LAST.compareAndSet(last, next));
+        long timestamp = next >>> SEQUENCE_BITS;
+        long sequence = next & ((1L << SEQUENCE_BITS) - 1);
+        return (timestamp << (NODE_BITS + SEQUENCE_BITS)) | (NODE << SEQUENCE_BITS) | sequence;
+    }
+
+    // When the ID was issued, in epoch milliseconds
+    public static long timestampOf(long id) {
+        return (id >>> (NODE_BITS + SEQUENCE_BITS)) + EPOCH_MILLIS;
+    }
+}
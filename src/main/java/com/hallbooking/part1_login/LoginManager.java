@@ -1,15 +1,15 @@
 package main.java.com.hallbooking.part1_login;
 
+import main.java.com.hallbooking.common.logging.Logger;
 import main.java.com.hallbooking.common.exceptions.CustomExceptions.*;
 import main.java.com.hallbooking.common.models.User;
-import main.java.com.hallbooking.common.utils.FileHandler;
+import main.java.com.hallbooking.common.repository.UserDirectory;
 
-import java.util.List;
 import java.util.Optional;
 import java.util.function.Function;
-import java.util.stream.Stream;
 
 public class LoginManager {
+    private static final Logger LOG = Logger.getLogger(LoginManager.class);
     private static final String USERS_FILE = "users.txt";
     private static final String CUSTOMERS_FILE = "customers.txt";
     private static final String SCHEDULERS_FILE = "schedulers.txt";
@@ -18,11 +18,11 @@ public class LoginManager {
     private static String loggedInCustomerId;
 
     public User login(String userId, String password) throws InvalidCredentialsException, UserNotFoundException {
-        System.out.println("Debug: Attempting login for userId: " + userId);
+        LOG.debug(() -> "Attempting login for userId: " + userId);
 
         // Check for super admin
         if (userId.equals("admin") && password.equals("123")) {
-            System.out.println("Debug: Super admin login successful");
+            LOG.debug("Super admin login successful");
             return new SuperAdmin();
         }
 
@@ -30,24 +30,23 @@ public class LoginManager {
         Optional<User> user = findUser(userId);
         if (user.isPresent()) {
             User foundUser = user.get();
-            System.out.println("Debug: User found. ID: " + foundUser.getId() + ", Type: " + foundUser.getUserType() + ", Status: " + foundUser.getStatus());
-            System.out.println("Debug: Stored password: " + foundUser.getPassword() + ", Provided password: " + password);
+            LOG.debug(() -> "User found. ID: " + foundUser.getId() + ", Type: " + foundUser.getUserType() + ", Status: " + foundUser.getStatus());
 
             if ("Blocked".equalsIgnoreCase(foundUser.getStatus())) {
-                System.out.println("Debug: User is blocked");
+                LOG.debug("User is blocked");
                 throw new InvalidCredentialsException("Your account is blocked. Please contact admin.");  // Change the message
             }
 
             if (password.equals(foundUser.getPassword())) {
-                System.out.println("Debug: Password match successful");
+                LOG.debug("Password match successful");
                 setLoggedInUserId(foundUser);
                 return foundUser;
             } else {
-                System.out.println("Debug: Password mismatch");
+                LOG.debug("Password mismatch");
                 throw new InvalidCredentialsException("Invalid username or password");  // Keep this message for invalid credentials
             }
         } else {
-            System.out.println("Debug: User not found for ID: " + userId);
+            LOG.debug(() -> "User not found for ID: " + userId);
             throw new UserNotFoundException(userId);
         }
     }
@@ -56,44 +55,47 @@ public class LoginManager {
     private void setLoggedInUserId(User user) {
         if ("Scheduler".equals(user.getUserType())) {
             loggedInSchedulerId = user.getId();
-            System.out.println("Debug: Logged in Scheduler ID: " + loggedInSchedulerId);
+            LOG.debug(() -> "Logged in Scheduler ID: " + loggedInSchedulerId);
         } else if ("Customer".equals(user.getUserType())) {
             loggedInCustomerId = user.getId();
-            System.out.println("Debug: Logged in Customer ID: " + loggedInCustomerId);
+            LOG.debug(() -> "Logged in Customer ID: " + loggedInCustomerId);
         }
     }
 
     private Optional<User> findUser(String userId) {
-        System.out.println("Debug: Searching for user with ID: " + userId);
-        return Stream.of(
-                        FileHandler.readFromFile(USERS_FILE, this::parseUser),
-                        FileHandler.readFromFile(CUSTOMERS_FILE, this::parseCustomer),
-                        FileHandler.readFromFile(SCHEDULERS_FILE, this::parseScheduler)
-                )
-                .flatMap(List::stream)
-                .peek(u -> System.out.println("Debug: Checking user: " + u.getId()))
-                .filter(u -> u.getId().equals(userId))
-                .findFirst();
+        LOG.debug(() -> "Searching for user with ID: " + userId);
+        // Same precedence as before: users, then customers, then schedulers; only the match is parsed
+        UserDirectory directory = UserDirectory.getInstance();
+        String line = directory.findLine(USERS_FILE, userId);
+        if (line != null) {
+            return Optional.of(parseUser(line));
+        }
+        line = directory.findLine(CUSTOMERS_FILE, userId);
+        if (line != null) {
+            return Optional.of(parseCustomer(line));
+        }
+        line = directory.findLine(SCHEDULERS_FILE, userId);
+        if (line != null) {
+            return Optional.of(parseScheduler(line));
+        }
+        return Optional.empty();
     }
 
     private User parseUser(String line) {
         String[] parts = line.split(",");
         if (parts.length < 9) throw new IllegalArgumentException("Invalid user data format.");
-        System.out.println("Debug: Parsing user line: " + line);
         return new AdminOrManager(parts[0], parts[1], parts[2], parts[3], parts[4], parts[5], parts[6], parts[7], parts[8]);
     }
 
     private User parseCustomer(String line) {
         String[] parts = line.split(",");
         if (parts.length < 9) throw new IllegalArgumentException("Invalid customer data format.");
-        System.out.println("Debug: Parsing customer line: " + line);
         return new Customer(parts[0], parts[1], parts[2], parts[3], parts[4], parts[5], parts[6], parts[7], parts[8]);
     }
 
     private User parseScheduler(String line) {
         String[] parts = line.split(",");
         if (parts.length < 9) throw new IllegalArgumentException("Invalid scheduler data format.");
-        System.out.println("Debug: Parsing scheduler line: " + line);
         return new Scheduler(parts[0], parts[1], parts[2], parts[3], parts[4], parts[5], parts[6], parts[7], parts[8]);
     }
 
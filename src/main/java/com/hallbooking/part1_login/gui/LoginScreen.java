@@ -1,7 +1,9 @@
 package main.java.com.hallbooking.part1_login.gui;
 
 import main.java.com.hallbooking.common.exceptions.CustomExceptions;
+import main.java.com.hallbooking.common.logging.Logger;
 import main.java.com.hallbooking.common.models.User;
+import main.java.com.hallbooking.common.scheduling.MaintenanceExpiryScheduler;
 import main.java.com.hallbooking.part1_login.LoginManager;
 import main.java.com.hallbooking.part4_customer.gui.CompleteRegistrationGUI;
 import main.java.com.hallbooking.part5_manager.gui.ManagerDashboardScreen;
@@ -9,8 +11,11 @@ import main.java.com.hallbooking.part5_manager.gui.ManagerDashboardScreen;
 import javax.swing.*;
 import javax.swing.border.LineBorder;
 import java.awt.*;
+import java.io.UncheckedIOException;
 
 public class LoginScreen extends JFrame {
+    private static final Logger LOG = Logger.getLogger(LoginScreen.class);
+
     private JTextField userIdField;
     private JPasswordField passwordField;
     private JButton loginButton;
@@ -225,6 +230,13 @@ public class LoginScreen extends JFrame {
     }
 
     public static void main(String[] args) {
+        // Closes maintenance issues as their windows end, for as long as the application runs
+        try {
+            MaintenanceExpiryScheduler.getInstance();
+        } catch (UncheckedIOException e) {
+            // Tried again by the first screen that reads the issues
+            LOG.error("Could not start closing ended maintenance", e);
+        }
         SwingUtilities.invokeLater(() -> {
             try {
                 UIManager.setLookAndFeel(UIManager.getSystemLookAndFeelClassName());
@@ -1,6 +1,9 @@
 package main.java.com.hallbooking.part2_admin;
 
+import main.java.com.hallbooking.common.logging.Logger;
 import main.java.com.hallbooking.common.models.User;
+import main.java.com.hallbooking.common.repository.UserDirectory;
+import main.java.com.hallbooking.common.repository.UserSearchIndex;
 import main.java.com.hallbooking.common.utils.FileHandler;
 import main.java.com.hallbooking.common.exceptions.CustomExceptions.*;
 
@@ -8,13 +11,16 @@ import java.util.List;
 import java.util.stream.Collectors;
 
 public class AdminManager {
+    private static final Logger LOG = Logger.getLogger(AdminManager.class);
     private static final String USERS_FILE = "users.txt";
     private static final String SCHEDULERS_FILE = "schedulers.txt";
     private static final String CUSTOMERS_FILE = "customers.txt";
 
     // Load users from file
     public List<User> loadUsersFromFile(String fileName) {
-        return FileHandler.readFromFile(fileName, this::parseUser);
+        return UserDirectory.getInstance().getLines(fileName).stream()
+                .map(this::parseUser)
+                .collect(Collectors.toList());
     }
 
     // Create user with full name for userType
@@ -46,8 +52,7 @@ public class AdminManager {
         }
 
         // Ensure ID uniqueness
-        List<User> users = loadUsersFromFile(fileName);
-        if (users.stream().anyMatch(u -> u.getId().equals(user.getId()))) {
+        if (UserDirectory.getInstance().findLine(fileName, user.getId()) != null) {
             throw new InvalidInputException("User ID already exists");
         }
 
@@ -55,7 +60,10 @@ public class AdminManager {
         validateUserFields(user);
 
         // Append the user to the corresponding file with full user type
-        FileHandler.appendToFile(fileName, formatUser(user, userType));
+        String line = formatUser(user, userType);
+        FileHandler.appendToFile(fileName, line);
+        UserDirectory.getInstance().invalidate(fileName);
+        UserSearchIndex.getInstance().put(fileName, line);
     }
 
     private String determineUserFile(String userId) {
@@ -100,6 +108,8 @@ public class AdminManager {
 
         // Write updated users back to the file
         FileHandler.writeToFile(fileName, users, this::formatUser);
+        UserDirectory.getInstance().invalidate(fileName);
+        UserSearchIndex.getInstance().put(fileName, formatUser(existingUser));
     }
 
 
@@ -146,6 +156,8 @@ public class AdminManager {
 
         users.remove(userToDelete);
         FileHandler.writeToFile(fileName, users, u -> formatUser(u, userToDelete.getUserType()));
+        UserDirectory.getInstance().invalidate(fileName);
+        UserSearchIndex.getInstance().remove(fileName, userId);
     }
 
     // Block a user
@@ -158,11 +170,12 @@ public class AdminManager {
         updateUserStatus(userId, "Unblocked");
     }
 
-    // Filter users based on criteria
+    // Users matching value in the criteria field, best match first (see UserSearchIndex)
     public List<User> filterUsers(String fileName, String criteria, String value) {
-        List<User> users = loadUsersFromFile(fileName);
-        return users.stream()
-                .filter(u -> matchesCriteria(u, criteria, value))
+        return UserSearchIndex.getInstance().search(fileName, criteria, value).stream()
+                .map(userId -> UserDirectory.getInstance().findLine(fileName, userId))
+                .filter(line -> line != null)
+                .map(this::parseUser)
                 .collect(Collectors.toList());
     }
 
@@ -200,6 +213,8 @@ public class AdminManager {
 
         // Write the updated list of users back to the file
         FileHandler.writeToFile(fileName, users, this::formatUser);
+        UserDirectory.getInstance().invalidate(fileName);
+        UserSearchIndex.getInstance().put(fileName, formatUser(userToUpdate));
     }
 
     // Determine file based on user ID prefix
@@ -243,7 +258,7 @@ public class AdminManager {
         user.setStatus(parts[7].equals("Blocked") ? "Blocked" : "Unblocked");
 
         // Debugging output
-        System.out.println("Parsed user: " + user.getId() + ", Status: " + user.getStatus() + ", UserType: " + user.getUserType());
+        LOG.debug(() -> "Parsed user: " + user.getId() + ", Status: " + user.getStatus() + ", UserType: " + user.getUserType());
 
         return user;
     }
@@ -264,35 +279,10 @@ public class AdminManager {
 
     // Find user by ID in a specific file
     private User getUserById(String fileName, String userId) {
-        List<User> users = loadUsersFromFile(fileName);
-        return users.stream()
-                .filter(u -> u.getId().equals(userId))
-                .findFirst()
-                .orElse(null);
+        String line = UserDirectory.getInstance().findLine(fileName, userId);
+        return line != null ? parseUser(line) : null;
     }
 
-    // Match users based on criteria for filtering
-    private boolean matchesCriteria(User user, String criteria, String value) {
-        if (value.isEmpty()) {
-            return true; // Include all users if no value is provided
-        }
-        switch (criteria.toLowerCase()) {
-            case "nationality":
-                return user.getNationality().toLowerCase().contains(value.toLowerCase());
-            case "id":
-                return user.getId().toLowerCase().contains(value.toLowerCase());
-            case "name":
-                return user.getName().toLowerCase().contains(value.toLowerCase());
-            case "email":
-                return user.getEmail().toLowerCase().contains(value.toLowerCase());
-            case "phone":
-                return user.getPhoneNumber().toLowerCase().contains(value.toLowerCase());
-            case "address":
-                return user.getAddress().toLowerCase().contains(value.toLowerCase());
-            default:
-                return false;
-        }
-    }
 
     // Validate user fields during creation
     private void validateUserFields(User user) throws InvalidInputException {
@@ -1,6 +1,9 @@
 package main.java.com.hallbooking.part2_admin;
 
+import main.java.com.hallbooking.common.logging.Logger;
 import main.java.com.hallbooking.common.models.User;
+import main.java.com.hallbooking.common.repository.UserDirectory;
+import main.java.com.hallbooking.common.repository.UserSearchIndex;
 import main.java.com.hallbooking.common.utils.FileHandler;
 import main.java.com.hallbooking.common.exceptions.CustomExceptions.*;
 
@@ -8,13 +11,16 @@ import java.util.List;
 import java.util.stream.Collectors;
 
 public class ExtraAdminManager {
+    private static final Logger LOG = Logger.getLogger(ExtraAdminManager.class);
     private static final String USERS_FILE = "users.txt";
     private static final String SCHEDULERS_FILE = "schedulers.txt";
     private static final String CUSTOMERS_FILE = "customers.txt";
 
     // Load users from file
     public List<User> loadUsersFromFile(String fileName) {
-        return FileHandler.readFromFile(fileName, this::parseUser);
+        return UserDirectory.getInstance().getLines(fileName).stream()
+                .map(this::parseUser)
+                .collect(Collectors.toList());
     }
 
     // Create user with full name for userType
@@ -42,8 +48,7 @@ public class ExtraAdminManager {
         }
 
         // Ensure ID uniqueness
-        List<User> users = loadUsersFromFile(fileName);
-        if (users.stream().anyMatch(u -> u.getId().equals(user.getId()))) {
+        if (UserDirectory.getInstance().findLine(fileName, user.getId()) != null) {
             throw new InvalidInputException("User ID already exists");
         }
 
@@ -51,7 +56,10 @@ public class ExtraAdminManager {
         validateUserFields(user);
 
         // Append the user to the corresponding file with full user type
-        FileHandler.appendToFile(fileName, formatUser(user, userType));
+        String line = formatUser(user, userType);
+        FileHandler.appendToFile(fileName, line);
+        UserDirectory.getInstance().invalidate(fileName);
+        UserSearchIndex.getInstance().put(fileName, line);
     }
 
     // Edit user without changing the user type
@@ -97,6 +105,8 @@ public class ExtraAdminManager {
 
         // Write updated users back to the file
         FileHandler.writeToFile(fileName, users, this::formatUser);
+        UserDirectory.getInstance().invalidate(fileName);
+        UserSearchIndex.getInstance().put(fileName, formatUser(existingUser));
     }
 
     // This method converts a line from the file into a User object
@@ -142,6 +152,8 @@ public class ExtraAdminManager {
 
         users.remove(userToDelete);
         FileHandler.writeToFile(fileName, users, u -> formatUser(u, userToDelete.getUserType()));
+        UserDirectory.getInstance().invalidate(fileName);
+        UserSearchIndex.getInstance().remove(fileName, userId);
     }
 
     // Block a user
@@ -154,11 +166,12 @@ public class ExtraAdminManager {
         updateUserStatus(userId, "Unblocked");
     }
 
-    // Filter users based on criteria
+    // Users matching value in the criteria field, best match first (see UserSearchIndex)
     public List<User> filterUsers(String fileName, String criteria, String value) {
-        List<User> users = loadUsersFromFile(fileName);
-        return users.stream()
-                .filter(u -> matchesCriteria(u, criteria, value))
+        return UserSearchIndex.getInstance().search(fileName, criteria, value).stream()
+                .map(userId -> UserDirectory.getInstance().findLine(fileName, userId))
+                .filter(line -> line != null)
+                .map(this::parseUser)
                 .collect(Collectors.toList());
     }
 
@@ -197,6 +210,8 @@ public class ExtraAdminManager {
 
         // Write the updated list of users back to the file
         FileHandler.writeToFile(fileName, users, this::formatUser);
+        UserDirectory.getInstance().invalidate(fileName);
+        UserSearchIndex.getInstance().put(fileName, formatUser(userToUpdate));
     }
 
     // Determine file based on user ID prefix
@@ -237,7 +252,7 @@ public class ExtraAdminManager {
         user.setStatus(parts[7].equals("Blocked") ? "Blocked" : "Unblocked");
 
         // Debugging output
-        System.out.println("Parsed user: " + user.getId() + ", Status: " + user.getStatus() + ", UserType: " + user.getUserType());
+        LOG.debug(() -> "Parsed user: " + user.getId() + ", Status: " + user.getStatus() + ", UserType: " + user.getUserType());
 
         return user;
     }
@@ -258,35 +273,10 @@ public class ExtraAdminManager {
 
     // Find user by ID in a specific file
     private User getUserById(String fileName, String userId) {
-        List<User> users = loadUsersFromFile(fileName);
-        return users.stream()
-                .filter(u -> u.getId().equals(userId))
-                .findFirst()
-                .orElse(null);
+        String line = UserDirectory.getInstance().findLine(fileName, userId);
+        return line != null ? parseUser(line) : null;
     }
 
-    // Match users based on criteria for filtering
-    private boolean matchesCriteria(User user, String criteria, String value) {
-        if (value.isEmpty()) {
-            return true; // Include all users if no value is provided
-        }
-        switch (criteria.toLowerCase()) {
-            case "nationality":
-                return user.getNationality().toLowerCase().contains(value.toLowerCase());
-            case "id":
-                return user.getId().toLowerCase().contains(value.toLowerCase());
-            case "name":
-                return user.getName().toLowerCase().contains(value.toLowerCase());
-            case "email":
-                return user.getEmail().toLowerCase().contains(value.toLowerCase());
-            case "phone":
-                return user.getPhoneNumber().toLowerCase().contains(value.toLowerCase());
-            case "address":
-                return user.getAddress().toLowerCase().contains(value.toLowerCase());
-            default:
-                return false;
-        }
-    }
 
     // Validate user fields during creation
     private void validateUserFields(User user) throws InvalidInputException {
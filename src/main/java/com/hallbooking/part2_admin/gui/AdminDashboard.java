@@ -10,8 +10,6 @@ import javax.swing.border.EmptyBorder;
 import java.awt.*;
 import java.awt.geom.RoundRectangle2D;
 import java.util.List;
-import java.util.stream.Collectors;
-import javax.swing.table.DefaultTableModel;
 
 public class AdminDashboard extends JFrame {
     private AdminManager adminManager;
@@ -19,10 +17,12 @@ public class AdminDashboard extends JFrame {
     private JComboBox<String> userTypeDropdown;
     private JButton addUserButton, cancelButton, logoutButton;
     private JTable userTable;
-    private DefaultTableModel tableModel;
+    private UserTableModel tableModel;
     private JTabbedPane tabbedPane;
     private String selectedFileType;
 
+    private static final List<String> USER_TYPES = List.of("Customer", "Scheduler", "Manager", "Admin");
+
     private final Color BACKGROUND_COLOR = new Color(230, 240, 250); // Light blue background
     private final Color PRIMARY_COLOR = new Color(41, 128, 185);
     private final Color TEXT_COLOR = Color.WHITE;
@@ -124,7 +124,7 @@ public class AdminDashboard extends JFrame {
             return;
         }
 
-        String userId = (String) tableModel.getValueAt(selectedRow, 0);  // Get the selected user's ID
+        String userId = tableModel.getUserId(selectedRow);  // Get the selected user's ID
 
         try {
             if (block) {
@@ -134,7 +134,7 @@ public class AdminDashboard extends JFrame {
                 adminManager.unblockUser(userId);  // Call to unblock user
                 JOptionPane.showMessageDialog(this, "User unblocked successfully!");
             }
-            loadUsersIntoTable(userTypeDropdown.getSelectedItem().toString());  // Refresh the table
+            tableModel.refresh();  // Refresh the table
         } catch (Exception e) {
             JOptionPane.showMessageDialog(this, "Failed to change user status", "Error", JOptionPane.ERROR_MESSAGE);
         }
@@ -176,7 +176,7 @@ public class AdminDashboard extends JFrame {
         gbc.gridwidth = 1;  // Resetting grid width
         panel.add(filterLabel, gbc);
 
-        JComboBox<String> filterDropdown = new JComboBox<>(new String[]{"ID", "Name", "Email", "Phone", "Address", "Nationality"});
+        JComboBox<String> filterDropdown = new JComboBox<>(new String[]{"ID", "Name", "Email", "Phone", "Address", "Nationality", "Status"});
         gbc.gridx = 1;
         gbc.gridwidth = 1;
         panel.add(filterDropdown, gbc);
@@ -267,8 +267,10 @@ public class AdminDashboard extends JFrame {
 
 
     private void setupUserTable() {
-        tableModel = new DefaultTableModel(new String[]{"ID", "Name", "Email", "Phone", "Address", "Nationality", "Status"}, 0);
+        tableModel = new UserTableModel("AdminDashboard.users",
+                e -> JOptionPane.showMessageDialog(this, "Failed to load users", "Error", JOptionPane.ERROR_MESSAGE));
         userTable = new JTable(tableModel);
+        tableModel.attachTo(userTable);
         userTable.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
     }
 
@@ -316,78 +318,27 @@ public class AdminDashboard extends JFrame {
     }
 
     private void filterUsers(String criteria, String value) {
-        try {
-            // Use the currently selected file type, which is determined by the button clicked (not a dropdown)
-            String selectedUserType = selectedFileType;  // `selectedFileType` is updated by button clicks
-
-            List<User> filteredUsers;
-
-            // Check which type of file (user type) is selected by the button
-            switch (selectedUserType) {
-                case "Customer":
-                    filteredUsers = adminManager.filterUsers("customers.txt", criteria, value);
-                    break;
-                case "Scheduler":
-                    filteredUsers = adminManager.filterUsers("schedulers.txt", criteria, value);
-                    break;
-                case "Manager":
-                    filteredUsers = adminManager.filterUsers("users.txt", criteria, value).stream()
-                            .filter(user -> user.getId().startsWith("M") && !user.getUserType().equalsIgnoreCase("Admin"))
-                            .collect(Collectors.toList());
-                    break;
-                case "Admin":
-                    filteredUsers = adminManager.filterUsers("users.txt", criteria, value).stream()
-                            .filter(user -> user.getId().startsWith("A") && !user.getUserType().equalsIgnoreCase("Manager"))
-                            .collect(Collectors.toList());
-                    break;
-                default:
-                    JOptionPane.showMessageDialog(this, "Unknown user type selected.", "Error", JOptionPane.ERROR_MESSAGE);
-                    return;
-            }
-
-            tableModel.setRowCount(0);  // Clear the table
-
-            // Add filtered users to the table
-            for (User user : filteredUsers) {
-                tableModel.addRow(new Object[]{user.getId(), user.getName(), user.getEmail(), user.getPhoneNumber(), user.getAddress(), user.getNationality(), user.getStatus()});
-            }
-
-        } catch (Exception e) {
-            JOptionPane.showMessageDialog(this, "Failed to filter users", "Error", JOptionPane.ERROR_MESSAGE);
+        // Use the currently selected file type, which is determined by the button clicked (not a dropdown)
+        String selectedUserType = selectedFileType;  // `selectedFileType` is updated by button clicks
+        if (!USER_TYPES.contains(selectedUserType)) {
+            JOptionPane.showMessageDialog(this, "Unknown user type selected.", "Error", JOptionPane.ERROR_MESSAGE);
+            return;
         }
+        tableModel.filter(criteria, value);
     }
 
+    // Lists the user type in the background; only the rows on screen are ever read into the table
     private void loadUsersIntoTable(String userType) {
-        try {
-            List<User> users;
-            switch (userType) {
-                case "Customer":
-                    users = adminManager.loadUsersFromFile("customers.txt");
-                    break;
-                case "Scheduler":
-                    users = adminManager.loadUsersFromFile("schedulers.txt");
-                    break;
-                case "Manager":
-                    users = adminManager.loadUsersFromFile("users.txt").stream()
-                            .filter(user -> user.getId().startsWith("M"))
-                            .collect(Collectors.toList());
-                    break;
-                case "Admin":
-                    users = adminManager.loadUsersFromFile("users.txt").stream()
-                            .filter(user -> user.getId().startsWith("A"))
-                            .collect(Collectors.toList());
-                    break;
-                default:
-                    throw new IllegalArgumentException("Unknown user type");
-            }
-
-            tableModel.setRowCount(0);  // Clear the table
-            for (User user : users) {
-                tableModel.addRow(new Object[]{user.getId(), user.getName(), user.getEmail(), user.getPhoneNumber(), user.getAddress(), user.getNationality(), user.getStatus()});
-            }
-
-        } catch (Exception e) {
-            JOptionPane.showMessageDialog(this, "Failed to load users", "Error", JOptionPane.ERROR_MESSAGE);
+        switch (userType) {
+            case "Manager":
+                tableModel.show(getFileName(userType), "M");
+                break;
+            case "Admin":
+                tableModel.show(getFileName(userType), "A");
+                break;
+            default:
+                tableModel.show(getFileName(userType), "");
+                break;
         }
     }
 
@@ -398,7 +349,7 @@ public class AdminDashboard extends JFrame {
             return;
         }
 
-        String userId = (String) tableModel.getValueAt(selectedRow, 0);  // Get the selected user's ID
+        String userId = tableModel.getUserId(selectedRow);  // Get the selected user's ID
 
         // Find the user by ID across all user files
         User user = adminManager.getUserByIdAcrossFiles(userId);
@@ -434,7 +385,7 @@ public class AdminDashboard extends JFrame {
                     adminManager.editUserById(user);
 
                     JOptionPane.showMessageDialog(this, "User updated successfully!");
-                    loadUsersIntoTable(userTypeDropdown.getSelectedItem().toString());  // Reload table after updating
+                    tableModel.refresh();  // Reload table after updating
                 } catch (Exception e) {
                     JOptionPane.showMessageDialog(this, "Failed to update user", "Error", JOptionPane.ERROR_MESSAGE);
                 }
@@ -449,12 +400,12 @@ public class AdminDashboard extends JFrame {
             return;
         }
 
-        String userId = (String) tableModel.getValueAt(selectedRow, 0);
+        String userId = tableModel.getUserId(selectedRow);
 
         try {
             adminManager.deleteUser(userId);
             JOptionPane.showMessageDialog(this, "User deleted successfully!");
-            loadUsersIntoTable(userTypeDropdown.getSelectedItem().toString());  // Reload the table to reflect the changes
+            tableModel.refresh();  // Reload the table to reflect the changes
         } catch (Exception e) {
             JOptionPane.showMessageDialog(this, "Failed to delete user", "Error", JOptionPane.ERROR_MESSAGE);
         }
@@ -485,6 +436,7 @@ public class AdminDashboard extends JFrame {
         int confirm = JOptionPane.showConfirmDialog(this, "Are you sure you want to logout?",
                 "Logout Confirmation", JOptionPane.YES_NO_OPTION);
         if (confirm == JOptionPane.YES_OPTION) {
+            tableModel.cancel();
             this.dispose(); // Close the dashboard window
             if (logoutCallback != null) { // Check if the logout callback is set
                 logoutCallback.onLogout(); // Trigger the callback to handle logout
@@ -0,0 +1,152 @@
+package main.java.com.hallbooking.part2_admin.gui;
+
+import main.java.com.hallbooking.common.gui.BackgroundLoader;
+import main.java.com.hallbooking.common.repository.UserIndex;
+
+import javax.swing.*;
+import javax.swing.table.AbstractTableModel;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Consumer;
+
+// The admin screens' user table, a window onto a UserIndex listing. Rows are parsed a page at a
+// time as the table paints them and only the last few pages are kept, so a file of any size opens
+// at the cost of the rows on screen. Showing a file, filtering and sorting (click a column header)
+// ask UserIndex for a new listing in the background and swap it in when it is ready.
+// Use it from the EDT only.
+public class UserTableModel extends AbstractTableModel {
+    private static final String[] COLUMNS = {"ID", "Name", "Email", "Phone", "Address", "Nationality", "Status"};
+    private static final int[] FIELDS = {UserIndex.ID, UserIndex.NAME, UserIndex.EMAIL, UserIndex.PHONE,
+            UserIndex.ADDRESS, UserIndex.NATIONALITY, UserIndex.STATUS};
+    private static final int PAGE_SIZE = 200;
+    private static final int CACHED_PAGES = 16;
+
+    private final BackgroundLoader<UserIndex.Listing> loader;
+    private UserIndex.Listing listing = UserIndex.Listing.EMPTY;
+    private final Map<Integer, Object[][]> pages = new LinkedHashMap<>(CACHED_PAGES, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Integer, Object[][]> eldest) {
+            return size() > CACHED_PAGES;
+        }
+    };
+
+    // What is shown: nothing until show() names a file
+    private String fileName;
+    private String idPrefix = "";
+    private String criteria = "";
+    private String value = "";
+    private int sortColumn = -1;
+    private boolean ascending = true;
+
+    public UserTableModel(String name, Consumer<Exception> onError) {
+        loader = new BackgroundLoader<UserIndex.Listing>(name)
+                .onChunk(listings -> setListing(listings.get(listings.size() - 1)))
+                .onError(onError);
+    }
+
+    // Lists the users of fileName whose ID starts with idPrefix, in file order and unfiltered
+    public void show(String fileName, String idPrefix) {
+        this.fileName = fileName;
+        this.idPrefix = idPrefix;
+        criteria = "";
+        value = "";
+        sortColumn = -1;
+        ascending = true;
+        refresh();
+    }
+
+    // Keeps the users whose criteria field has a word starting with each word of value, as
+    // UserSearchIndex.search matches them, listed best match first until a column is sorted
+    public void filter(String criteria, String value) {
+        this.criteria = criteria;
+        this.value = value;
+        refresh();
+    }
+
+    // Sorts by the column, or reverses the order if it is already sorted by it
+    public void sortBy(int column) {
+        ascending = column != sortColumn || !ascending;
+        sortColumn = column;
+        refresh();
+    }
+
+    // Lists again with the same file, filter and order, e.g. after a user was changed
+    public void refresh() {
+        if (fileName == null) {
+            return;
+        }
+        String fileName = this.fileName;
+        String idPrefix = this.idPrefix;
+        String criteria = this.criteria;
+        String value = this.value;
+        int sortField = sortColumn < 0 ? UserIndex.UNSORTED : FIELDS[sortColumn];
+        boolean ascending = this.ascending;
+        loader.load(sink -> sink.publish(UserIndex.getInstance().list(fileName, idPrefix, criteria, value, sortField, ascending)));
+    }
+
+    public void cancel() {
+        loader.cancel();
+    }
+
+    // Sorts the model when one of the table's column headers is clicked
+    public void attachTo(JTable table) {
+        table.getTableHeader().addMouseListener(new MouseAdapter() {
+            @Override
+            public void mouseClicked(MouseEvent e) {
+                int column = table.columnAtPoint(e.getPoint());
+                if (column >= 0) {
+                    sortBy(table.convertColumnIndexToModel(column));
+                }
+            }
+        });
+    }
+
+    public String getUserId(int row) {
+        return listing.getUserId(row);
+    }
+
+    @Override
+    public int getRowCount() {
+        return listing.size();
+    }
+
+    @Override
+    public int getColumnCount() {
+        return COLUMNS.length;
+    }
+
+    @Override
+    public String getColumnName(int column) {
+        return COLUMNS[column];
+    }
+
+    @Override
+    public Object getValueAt(int row, int column) {
+        Object[][] page = pages.computeIfAbsent(row / PAGE_SIZE, this::loadPage);
+        return page[row % PAGE_SIZE][column];
+    }
+
+    private void setListing(UserIndex.Listing listing) {
+        this.listing = listing;
+        pages.clear();
+        fireTableDataChanged();
+    }
+
+    private Object[][] loadPage(int page) {
+        int first = page * PAGE_SIZE;
+        Object[][] rows = new Object[Math.min(PAGE_SIZE, listing.size() - first)][];
+        for (int i = 0; i < rows.length; i++) {
+            String[] fields = listing.getFields(first + i);
+            Object[] row = new Object[FIELDS.length];
+            for (int column = 0; column < FIELDS.length; column++) {
+                row[column] = fields[FIELDS[column]];
+            }
+            // As AdminManager reads it: anything but Blocked is Unblocked
+            row[row.length - 1] = "Blocked".equals(fields[UserIndex.STATUS]) ? "Blocked" : "Unblocked";
+            rows[i] = row;
+        }
+        return rows;
+    }
+}
@@ -1,54 +1,51 @@
 package main.java.com.hallbooking.part3_scheduler;
 
+import main.java.com.hallbooking.common.index.FuzzyIndex;
+import main.java.com.hallbooking.common.logging.Logger;
 import main.java.com.hallbooking.common.models.Hall;
+import main.java.com.hallbooking.common.repository.HallRepository;
+import main.java.com.hallbooking.common.utils.FileHandler;
 
-import java.io.BufferedReader;
-import java.io.FileReader;
 import java.io.IOException;
-import java.math.BigDecimal;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.stream.Collectors;
 
 public class FilterHall {
+    private static final Logger LOG = Logger.getLogger(FilterHall.class);
+
+    private static final int MAX_EDIT_DISTANCE = 2;
+
     private List<Hall> halls;
+    private Indexes indexes;
 
     public FilterHall() {
         halls = new ArrayList<>();
     }
 
-    public void loadHallsFromFile(String filename) {
-        try (BufferedReader br = new BufferedReader(new FileReader(filename))) {
-            String line;
-            while ((line = br.readLine()) != null) {
-                String[] parts = line.split(",");
-                if (parts.length == 5) {
-                    halls.add(new Hall(
-                            parts[0],
-                            Hall.HallType.valueOf(parts[1].replace(" ", "_")),
-                            Integer.parseInt(parts[2]),
-                            new BigDecimal(parts[3]),
-                            parts[4]
-                    ));
-                }
+    public synchronized void loadHallsFromFile(String filename) {
+        indexes = null;
+        if (filename.equals(HallRepository.HALL_FILE)) {
+            // The live hall list is already parsed in the shared catalog
+            halls.addAll(HallRepository.getInstance().getAllHalls());
+        } else {
+            try {
+                halls.addAll(FileHandler.readRecords(filename, HallRepository::parseHall));
+            } catch (IOException e) {
+                LOG.error("Error reading halls from file: " + filename, e);
             }
-        } catch (IOException e) {
-            e.printStackTrace();
         }
     }
 
+    // ID, type and location matches come back closest first; capacity and rate keep file order
     public List<Hall> filterHalls(String criteria, String value) {
         switch (criteria.toLowerCase()) {
             case "all":
                 return new ArrayList<>(halls);
             case "id":
-                return halls.stream()
-                        .filter(h -> fuzzyMatchString(h.getId(), value))
-                        .collect(Collectors.toList());
+                return indexes().byId.search(value, MAX_EDIT_DISTANCE);
             case "type":
-                return halls.stream()
-                        .filter(h -> fuzzyMatchString(h.getType().name(), value))
-                        .collect(Collectors.toList());
+                return indexes().byType.search(value, MAX_EDIT_DISTANCE);
             case "capacity":
                 return halls.stream()
                         .filter(h -> fuzzyMatchNumber(h.getCapacity(), value, 0.2))  // 20% tolerance
@@ -58,21 +55,13 @@ public class FilterHall {
                         .filter(h -> fuzzyMatchNumber(h.getRate().doubleValue(), value, 0.2))  // 20% tolerance
                         .collect(Collectors.toList());
             case "location":
-                return halls.stream()
-                        .filter(h -> fuzzyMatchString(h.getLocation(), value))
-                        .collect(Collectors.toList());
+                return indexes().byLocation.search(value, MAX_EDIT_DISTANCE);
             default:
-                System.out.println("Invalid filter criteria: " + criteria);
+                LOG.warn("Invalid filter criteria: " + criteria);
                 return new ArrayList<>();
         }
     }
 
-    private boolean fuzzyMatchString(String s1, String s2) {
-        s1 = s1.toLowerCase();
-        s2 = s2.toLowerCase();
-        return s1.contains(s2) || s2.contains(s1) || levenshteinDistance(s1, s2) <= 2;
-    }
-
     private boolean fuzzyMatchNumber(double value, String input, double tolerance) {
         try {
             double inputValue = Double.parseDouble(input);
@@ -84,31 +73,26 @@ public class FilterHall {
         }
     }
 
-    private int levenshteinDistance(String s1, String s2) {
-        int[][] dp = new int[s1.length() + 1][s2.length() + 1];
-
-        for (int i = 0; i <= s1.length(); i++) {
-            for (int j = 0; j <= s2.length(); j++) {
-                if (i == 0) {
-                    dp[i][j] = j;
-                }
-                else if (j == 0) {
-                    dp[i][j] = i;
-                }
-                else {
-                    dp[i][j] = min(dp[i - 1][j - 1]
-                                    + (s1.charAt(i - 1) == s2.charAt(j - 1) ? 0 : 1),
-                            dp[i - 1][j] + 1,
-                            dp[i][j - 1] + 1);
-                }
-            }
+    // Built on first use after the hall list changes
+    private synchronized Indexes indexes() {
+        if (indexes == null) {
+            indexes = new Indexes(halls);
         }
-
-        return dp[s1.length()][s2.length()];
+        return indexes;
     }
 
-    private int min(int a, int b, int c) {
-        return Math.min(Math.min(a, b), c);
+    // A value matches a hall field when either contains the other or they are at most
+    // MAX_EDIT_DISTANCE edits apart, ignoring case
+    private static class Indexes {
+        final FuzzyIndex<Hall> byId;
+        final FuzzyIndex<Hall> byType;
+        final FuzzyIndex<Hall> byLocation;
+
+        Indexes(List<Hall> halls) {
+            byId = new FuzzyIndex<>(halls, Hall::getId);
+            byType = new FuzzyIndex<>(halls, h -> h.getType().name());
+            byLocation = new FuzzyIndex<>(halls, Hall::getLocation);
+        }
     }
 
     public List<Hall> getAllHalls() {
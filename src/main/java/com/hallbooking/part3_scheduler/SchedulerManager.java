@@ -1,9 +1,15 @@
 package main.java.com.hallbooking.part3_scheduler;
 
+import main.java.com.hallbooking.common.index.MaintenanceIndex;
+import main.java.com.hallbooking.common.index.OccupancyCalendar;
+import main.java.com.hallbooking.common.logging.Logger;
 import main.java.com.hallbooking.common.models.Hall;
+import main.java.com.hallbooking.common.models.MaintenanceWindow;
 import main.java.com.hallbooking.common.exceptions.CustomExceptions.*;
+import main.java.com.hallbooking.common.repository.HallRepository;
 import main.java.com.hallbooking.common.utils.FileHandler;
 import main.java.com.hallbooking.common.utils.DateTimeUtils;
+import main.java.com.hallbooking.common.utils.IdGenerator;
 
 import java.io.*;
 import java.math.BigDecimal;
@@ -13,47 +19,41 @@ import java.time.format.DateTimeFormatter;
 import java.time.format.DateTimeParseException;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.UUID;
 
 public class SchedulerManager {
+    private static final Logger LOG = Logger.getLogger(SchedulerManager.class);
     private static final String HALL_FILE = "hall.txt";
     private static final String HALL_AVAILABILITY_FILE = "hallAvailability.txt";
-    private static final String Availability = "data/hallAvailability.txt";
-    private static final String MAINTENANCE_FILE = "maintenance.txt";
-    private static final String BOOKING_FILE = "data/bookings.txt";
-
-    private static final String MAINTENANCE = "data/maintenance.txt";
+    private static final String BOOKING_FILE = "bookings.txt";
     private static boolean isInitialized = false;  // Add this line
 
-    private static List<Hall> halls;
+    private final HallRepository hallRepository = HallRepository.getInstance();
 
     public SchedulerManager() {
         if (!isInitialized) {
             initializeDefaultHalls();
             isInitialized = true;
         }
-        loadHalls();
-
     }
 
     private void initializeDefaultHalls() {
         File file = new File(HALL_FILE);
-        System.out.println("Checking halls file: " + HALL_FILE);
+        LOG.info("Checking halls file: " + HALL_FILE);
 
         if (!file.exists() || file.length() == 0) {
             // File doesn't exist or is empty
-            List<Hall> existingHalls = FileHandler.readFromFile(HALL_FILE, this::parseHall);
+            List<Hall> existingHalls = hallRepository.getAllHalls();
 
             if (existingHalls.isEmpty()) {
                 // Only create default halls if there are no existing halls
                 List<Hall> defaultHalls = createDefaultHalls();
-                FileHandler.writeToFile(HALL_FILE, defaultHalls, this::formatHall);
-                System.out.println("Created and wrote default halls to " + HALL_FILE);
+                hallRepository.saveHalls(defaultHalls);
+                LOG.info("Created and wrote default halls to " + HALL_FILE);
             } else {
-                System.out.println("Existing halls found. Not creating default halls.");
+                LOG.info("Existing halls found. Not creating default halls.");
             }
         } else {
-            System.out.println("Hall file exists and is not empty. Using existing data.");
+            LOG.info("Hall file exists and is not empty. Using existing data.");
         }
     }
     private List<Hall> createDefaultHalls() {
@@ -64,19 +64,16 @@ public class SchedulerManager {
         return defaultHalls;
     }
 
-    private void loadHalls() {
-        halls = FileHandler.readFromFile(HALL_FILE, this::parseHall);
-    }
-
     public void addHall(Hall hall) throws InvalidInputException {
         validateHallUniqueness(hall);
         setDefaultHallProperties(hall);
+        List<Hall> halls = getHalls();
         halls.add(hall);
-        saveHalls();
+        hallRepository.saveHalls(halls);
     }
 
     private void validateHallUniqueness(Hall hall) throws InvalidInputException {
-        if (halls.stream().anyMatch(h -> h.getId().equals(hall.getId()))) {
+        if (hallRepository.contains(hall.getId())) {
             throw new InvalidInputException("Hall ID already exists");
         }
     }
@@ -104,20 +101,23 @@ public class SchedulerManager {
     }
 
     public void updateHall(Hall updatedHall) throws HallNotFoundException {
-        Hall hallToUpdate = getHallById(updatedHall.getId());
-        updateHallDetails(hallToUpdate, updatedHall);
-        saveHalls();
-        System.out.println("Hall updated successfully. New location: " + hallToUpdate.getLocation());
+        Hall existingHall = getHallById(updatedHall.getId());
+        // The cached hall is shared, so swap in an updated copy instead of editing it in place
+        Hall hallToUpdate = updateHallDetails(existingHall, updatedHall);
+        List<Hall> halls = getHalls();
+        halls.replaceAll(h -> h == existingHall ? hallToUpdate : h);
+        hallRepository.saveHalls(halls);
+        LOG.info("Hall updated successfully. New location: " + hallToUpdate.getLocation());
     }
 
-    private void updateHallDetails(Hall existingHall, Hall newHall) {
-        existingHall.setType(newHall.getType());
-        existingHall.setLocation(newHall.getLocation().isEmpty() ? existingHall.getLocation() : newHall.getLocation());
+    private Hall updateHallDetails(Hall existingHall, Hall newHall) {
+        return new Hall(existingHall.getId(), newHall.getType(), existingHall.getCapacity(), existingHall.getRate(),
+                newHall.getLocation().isEmpty() ? existingHall.getLocation() : newHall.getLocation());
     }
 
     public void deleteHall(String hallId) throws HallNotFoundException, InvalidInputException {
         // First, check if the hall exists
-        if (!halls.stream().anyMatch(h -> h.getId().equals(hallId))) {
+        if (!hallRepository.contains(hallId)) {
             throw new HallNotFoundException(hallId);
         }
 
@@ -127,43 +127,30 @@ public class SchedulerManager {
         }
 
         // If we've reached here, the hall exists and has no bookings
+        List<Hall> halls = getHalls();
         boolean removed = halls.removeIf(h -> h.getId().equals(hallId));
         if (removed) {
-            saveHalls(); // Save updated hall list
+            hallRepository.saveHalls(halls); // Save updated hall list
 
             // Remove the hall from HallAvailability.txt
-            try {
-                File availabilityFile = new File(Availability);
-                List<String> lines = new ArrayList<>();
-
-                // Read all lines from the file
-                BufferedReader reader = new BufferedReader(new FileReader(availabilityFile));
-                String line;
-                while ((line = reader.readLine()) != null) {
-                    // Split the line by commas to extract the hallId (first part)
-                    String[] parts = line.split(",");
-                    String availableHallId = parts[0].trim();
-
-                    // If the hallId in the line does not match the hallId to delete, keep it
-                    if (!availableHallId.equals(hallId)) {
-                        lines.add(line);
-                    }
-                }
-                reader.close();
+            List<String> lines = new ArrayList<>();
+            for (String line : FileHandler.readFromFile(HALL_AVAILABILITY_FILE, l -> l)) {
+                // Split the line by commas to extract the hallId (first part)
+                String[] parts = line.split(",");
+                String availableHallId = parts[0].trim();
 
-                // Write the updated lines back to the file
-                BufferedWriter writer = new BufferedWriter(new FileWriter(availabilityFile));
-                for (String l : lines) {
-                    writer.write(l);
-                    writer.newLine();
+                // If the hallId in the line does not match the hallId to delete, keep it
+                if (!availableHallId.equals(hallId)) {
+                    lines.add(line);
                 }
-                writer.close();
-
-                System.out.println("Hall " + hallId + " has been successfully deleted from both records.");
-            } catch (IOException e) {
-                System.err.println("An error occurred while updating HallAvailability.txt: " + e.getMessage());
             }
 
+            // Write the updated lines back to the file
+            FileHandler.writeToFile(HALL_AVAILABILITY_FILE, lines, l -> l);
+            OccupancyCalendar.invalidate();
+
+            LOG.info("Hall " + hallId + " has been successfully deleted from both records.");
+
         } else {
             // This should never happen, but just in case
             throw new HallNotFoundException(hallId);
@@ -171,36 +158,24 @@ public class SchedulerManager {
     }
 
     private boolean isHallBooked(String hallId) {
-        File bookingFile = new File(BOOKING_FILE);
-
-        if (!bookingFile.exists()) {
-            return false; // If the file doesn't exist, assume no bookings
-        }
-
+        // A missing bookings file reads as empty, i.e. no bookings
         LocalDateTime now = LocalDateTime.now();
         DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm");
 
-        try (BufferedReader reader = new BufferedReader(new FileReader(bookingFile))) {
-            String line;
-            while ((line = reader.readLine()) != null) {
-                String[] parts = line.split(",\\s*");
-                if (parts.length >= 5 && parts[2].trim().equals(hallId)) {
-                    try {
-                        LocalDateTime bookingEndTime = LocalDateTime.parse(parts[4].trim(), formatter);
-                        if (bookingEndTime.isAfter(now)) {
-                            return true; // Hall has a future booking
-                        }
-                    } catch (DateTimeParseException e) {
-                        System.err.println("Error parsing date: " + e.getMessage());
-                        // If there's an error parsing the date, assume the booking is valid
-                        return true;
+        for (String line : FileHandler.readFromFile(BOOKING_FILE, l -> l)) {
+            String[] parts = line.split(",\\s*");
+            if (parts.length >= 5 && parts[2].trim().equals(hallId)) {
+                try {
+                    LocalDateTime bookingEndTime = LocalDateTime.parse(parts[4].trim(), formatter);
+                    if (bookingEndTime.isAfter(now)) {
+                        return true; // Hall has a future booking
                     }
+                } catch (DateTimeParseException e) {
+                    LOG.warn("Error parsing date: " + e.getMessage());
+                    // If there's an error parsing the date, assume the booking is valid
+                    return true;
                 }
             }
-        } catch (IOException e) {
-            System.err.println("Error reading booking file: " + e.getMessage());
-            // If there's an error reading the file, err on the side of caution
-            return true;
         }
 
         return false; // Hall is not booked for any future dates
@@ -214,14 +189,15 @@ public class SchedulerManager {
     }
 
     public List<Hall> getHalls() {
-        return new ArrayList<>(halls);
+        return new ArrayList<>(HallRepository.getInstance().getAllHalls());
     }
 
     public static Hall getHallById(String hallId) throws HallNotFoundException {
-        return halls.stream()
-                .filter(h -> h.getId().equals(hallId))
-                .findFirst()
-                .orElseThrow(() -> new HallNotFoundException(hallId));
+        Hall hall = HallRepository.getInstance().getHall(hallId);
+        if (hall == null) {
+            throw new HallNotFoundException(hallId);
+        }
+        return hall;
     }
 
     public void setHallAvailability(String hallId, LocalDateTime startDateTime, LocalDateTime endDateTime)
@@ -229,6 +205,7 @@ public class SchedulerManager {
         validateAvailabilityInput(hallId, startDateTime, endDateTime);
         String availability = createAvailabilityRecord(hallId, startDateTime, endDateTime);
         FileHandler.appendToFile(HALL_AVAILABILITY_FILE, availability);
+        OccupancyCalendar.invalidate();
     }
 
     private void validateAvailabilityInput(String hallId, LocalDateTime startDateTime, LocalDateTime endDateTime)
@@ -273,9 +250,12 @@ public class SchedulerManager {
             throw new HallNotFoundException(hallId);
         }
         validateMaintenanceSchedule(startDateTime, endDateTime, hallId);
-        String maintenanceId = generateMaintenanceId();
-        String maintenanceRecord = createMaintenanceRecord(maintenanceId, hallId, startDateTime, endDateTime, remark);
-        FileHandler.appendToFile(MAINTENANCE_FILE, maintenanceRecord);
+        try {
+            MaintenanceIndex.getInstance().record(new MaintenanceWindow(generateMaintenanceId(), hallId,
+                    startDateTime, endDateTime, "", "", remark));
+        } catch (IOException e) {
+            throw new InvalidBookingException("The maintenance could not be saved. Please try again.");
+        }
     }
 
     public class MaintenanceScheduleConflictException extends Exception {
@@ -298,7 +278,7 @@ public class SchedulerManager {
                     DateTimeUtils.formatDateTime(startDateTime),
                     DateTimeUtils.formatDateTime(endDateTime));
         }
-        if (hasScheduledMaintenance(hallId, startDateTime.toLocalDate(), endDateTime.toLocalDate())) {
+        if (MaintenanceIndex.getInstance().overlaps(hallId, startDateTime, endDateTime)) {
             throw new MaintenanceScheduleConflictException("Hall already has scheduled maintenance during this period");
         }
         if (isAvailabilityAlreadySet(hallId, startDateTime.toLocalDate(), endDateTime.toLocalDate())) {
@@ -306,155 +286,40 @@ public class SchedulerManager {
         }
     }
 
-    private String createMaintenanceRecord(String maintenanceId, String hallId, LocalDateTime startDateTime, LocalDateTime endDateTime, String remark) {
-        return String.join(",", maintenanceId, hallId,
-                DateTimeUtils.formatDateTime(startDateTime),
-                DateTimeUtils.formatDateTime(endDateTime),
-                remark);
-    }
-
-    private void saveHalls() {
-        FileHandler.writeToFile(HALL_FILE, halls, this::formatHall);
-    }
-
-    private Hall parseHall(String line) {
-        String[] parts = line.split(",");
-        return new Hall(
-                parts[0].trim(),
-                Hall.HallType.valueOf(parts[1].trim().toUpperCase().replace(' ', '_')),
-                Integer.parseInt(parts[2].trim()),
-                new BigDecimal(parts[3].trim()),
-                parts[4].trim()
-        );
-    }
-
-    private String formatHall(Hall hall) {
-        return String.format("%s,%s,%d,%.2f,%s",
-                hall.getId(),
-                hall.getType().toString(),  // Write the enum value as is
-                hall.getCapacity(),
-                hall.getRate(),
-                hall.getLocation());
-    }
-
     private boolean hallExists(String hallId) {
-        return halls.stream().anyMatch(h -> h.getId().equals(hallId));
+        return hallRepository.contains(hallId);
     }
 
     private boolean isOverlappingWithBooking(String hallId, LocalDateTime start, LocalDateTime end) {
-        File bookingFile = new File(BOOKING_FILE);
-        if (!bookingFile.exists()) {
-            System.out.println("Booking file not found. Assuming no overlapping bookings.");
-            return false;
-        }
-
-        try (BufferedReader reader = new BufferedReader(new FileReader(bookingFile))) {
-            String line;
-            while ((line = reader.readLine()) != null) {
-                String[] bookingDetails = line.split(",");
-                if (bookingDetails.length < 4) continue;
-
-                String bookingHallId = bookingDetails[1].trim();
-                LocalDateTime bookingStart = LocalDateTime.parse(bookingDetails[2].trim());
-                LocalDateTime bookingEnd = LocalDateTime.parse(bookingDetails[3].trim());
-
-                if (hallId.equals(bookingHallId) &&
-                        !(end.isBefore(bookingStart) || start.isAfter(bookingEnd))) {
-                    return true;
-                }
-            }
-        } catch (IOException | DateTimeParseException e) {
-            System.err.println("Error checking for overlapping bookings: " + e.getMessage());
-        }
-        return false;
+        return OccupancyCalendar.getInstance().isBooked(hallId, start, end);
     }
 
     private boolean hasActiveBookings(String hallId) {
-        File bookingFile = new File(BOOKING_FILE);
-        if (!bookingFile.exists()) {
-            System.out.println("Booking file not found. Assuming no active bookings.");
-            return false;
-        }
-
-        try (BufferedReader reader = new BufferedReader(new FileReader(bookingFile))) {
-            String line;
-            while ((line = reader.readLine()) != null) {
-                String[] bookingDetails = line.split(",");
-                if (bookingDetails.length > 1 && bookingDetails[1].trim().equals(hallId)) {
-                    return true;
-                }
+        for (String line : FileHandler.readFromFile(BOOKING_FILE, l -> l)) {
+            String[] bookingDetails = line.split(",");
+            if (bookingDetails.length > 1 && bookingDetails[1].trim().equals(hallId)) {
+                return true;
             }
-        } catch (IOException e) {
-            System.err.println("Error checking for active bookings: " + e.getMessage());
         }
         return false;
     }
 
+    // Any maintenance window of the hall that has not ended yet
     private boolean hasScheduledMaintenance(String hallId) {
-        LocalDate now = LocalDate.now();
-        LocalDate futureDate = now.plusYears(1);
-        return hasScheduledMaintenance(hallId, now, futureDate);
-    }
-
-    private boolean hasScheduledMaintenance(String hallId, LocalDate startDate, LocalDate endDate) {
-        File maintenanceFile = new File(MAINTENANCE);
-        if (!maintenanceFile.exists()) {
-            System.out.println("Maintenance file not found. Assuming no scheduled maintenance.");
-            return false;
-        }
-
-        try (BufferedReader reader = new BufferedReader(new FileReader(maintenanceFile))) {
-            String line;
-            while ((line = reader.readLine()) != null) {
-                String[] maintenanceDetails = line.split(",");
-                String existingHallId = maintenanceDetails[1].trim();
-                LocalDate maintenanceStart = LocalDate.parse(maintenanceDetails[2].substring(0, 10));
-                LocalDate maintenanceEnd = LocalDate.parse(maintenanceDetails[3].substring(0, 10));
-
-                if (existingHallId.equals(hallId) && !(endDate.isBefore(maintenanceStart) || startDate.isAfter(maintenanceEnd))) {
-                    return true;
-                }
-            }
-        } catch (IOException e) {
-            System.err.println("Error checking for scheduled maintenance: " + e.getMessage());
-        }
-        return false;
+        return MaintenanceIndex.getInstance().hasMaintenanceAfter(hallId, LocalDateTime.now());
     }
 
     private boolean isAvailabilityAlreadySet(String hallId, LocalDate startDate, LocalDate endDate) {
-        File availabilityFile = new File(Availability);
-        if (!availabilityFile.exists()) {
-            System.out.println("Availability file not found. Assuming no availabilities set.");
-            return false; // Assume available if the file does not exist
-        }
-
-        try (BufferedReader reader = new BufferedReader(new FileReader(availabilityFile))) {
-            String line;
-            while ((line = reader.readLine()) != null) {
-                String[] parts = line.split(",");
-                if (parts.length != 3) continue; // Skip invalid lines
-
-                String existingHallId = parts[0].trim();
-                // Parse only the date part (first 10 characters) from the date-time string
-                LocalDate existingStartDate = LocalDate.parse(parts[1].trim().substring(0, 10)); // "2024-09-23"
-                LocalDate existingEndDate = LocalDate.parse(parts[2].trim().substring(0, 10));   // "2024-09-23"
-
-                if (existingHallId.equals(hallId)) {
-                    // Check for date overlap
-                    if (!(endDate.isBefore(existingStartDate) || startDate.isAfter(existingEndDate))) {
-                        System.out.println("Hall ID " + hallId + " is already booked for these dates.");
-                        return true; // Overlap detected
-                    }
-                }
-            }
-        } catch (IOException | DateTimeParseException e) {
-            System.err.println("Error checking for existing availability: " + e.getMessage());
+        // Any availability window touching one of the dates, read from the hall's slot calendar
+        if (OccupancyCalendar.getInstance().hasAvailabilityOn(hallId, startDate, endDate)) {
+            LOG.info("Hall ID " + hallId + " is already booked for these dates.");
+            return true;
         }
-        return false; // No overlap found
+        return false;
     }
 
     private String generateMaintenanceId() {
-        return "M" + UUID.randomUUID().toString().substring(0, 8).toUpperCase();
+        return IdGenerator.next(IdGenerator.Entity.MAINTENANCE);
     }
 }
 
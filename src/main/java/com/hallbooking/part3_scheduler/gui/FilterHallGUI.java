@@ -24,7 +24,7 @@ public class FilterHallGUI extends JFrame {
     public FilterHallGUI(JFrame parentFrame) {
         this.parentFrame = parentFrame;
         system = new FilterHall();
-        system.loadHallsFromFile("data/hall.txt");
+        system.loadHallsFromFile("hall.txt");
 
         setTitle("Filter Halls");
         setSize(1000, 800); // Adjusted to a larger size
@@ -195,6 +195,8 @@ public class FilterHallGUI extends JFrame {
             message = "Showing all halls";
         } else if (resultCount == 0) {
             message = "No matching results found";
+        } else if (criteria.equals("ID") || criteria.equals("Type") || criteria.equals("Location")) {
+            message = "Found " + resultCount + " matching or similar results, closest first";
         } else {
             message = "Found " + resultCount + " matching or similar results";
         }
@@ -1,9 +1,12 @@
 package main.java.com.hallbooking.part3_scheduler.gui;
 
 import main.java.com.hallbooking.part3_scheduler.HallManager;
+import main.java.com.hallbooking.common.gui.BackgroundLoader;
+import main.java.com.hallbooking.common.gui.OccupancyMonthDialog;
 import main.java.com.hallbooking.common.models.Hall;
 import main.java.com.hallbooking.common.exceptions.CustomExceptions.*;
 import main.java.com.hallbooking.common.utils.DateTimeUtils;
+import main.java.com.hallbooking.common.utils.FileHandler;
 import main.java.com.hallbooking.part3_scheduler.SchedulerManager;
 
 import javax.swing.*;
@@ -14,9 +17,6 @@ import java.awt.*;
 import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
 import java.awt.geom.RoundRectangle2D;
-import java.io.BufferedReader;
-import java.io.FileReader;
-import java.io.IOException;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
@@ -30,7 +30,8 @@ public class HallAvailabilityScreen extends JFrame {
     private JComboBox<String> startTimeComboBox, endTimeComboBox;
     private JTable availabilityTable;
     private DefaultTableModel tableModel;
-    private JButton setAvailabilityButton, backButton;
+    private BackgroundLoader<Object[]> availabilityLoader;
+    private JButton setAvailabilityButton, monthViewButton, backButton;
     private JFrame parentFrame;  // Reference to parent frame (SchedulerDashboard)
 
     // Custom colors
@@ -73,6 +74,7 @@ public class HallAvailabilityScreen extends JFrame {
         add(mainPanel);
 
         setAvailabilityButton.addActionListener(e -> setHallAvailability());
+        monthViewButton.addActionListener(e -> new OccupancyMonthDialog(this, true).setVisible(true));
         backButton.addActionListener(e -> goBack());
     }
 
@@ -125,6 +127,7 @@ public class HallAvailabilityScreen extends JFrame {
         String[] columnNames = {"Hall ID", "Start Date/Time", "End Date/Time"};
         tableModel = new DefaultTableModel(columnNames, 0);
         availabilityTable = new JTable(tableModel);
+        availabilityLoader = BackgroundLoader.forTable("HallAvailabilityScreen.availability", tableModel);
         styleTable(availabilityTable);
 
         JScrollPane scrollPane = new JScrollPane(availabilityTable);
@@ -139,9 +142,11 @@ public class HallAvailabilityScreen extends JFrame {
         panel.setBackground(BACKGROUND_COLOR);
 
         setAvailabilityButton = createStyledButton("Set Availability");
+        monthViewButton = createStyledButton("Month View");
         backButton = createStyledButton("Back to Dashboard");
 
         panel.add(setAvailabilityButton);
+        panel.add(monthViewButton);
         panel.add(backButton);
 
         return panel;
@@ -221,18 +226,16 @@ public class HallAvailabilityScreen extends JFrame {
         });
     }
 
+    // Clears the table and refills it in the background
     private void loadAvailabilityData() {
-        tableModel.setRowCount(0); // Clear existing data
-
-        try (BufferedReader reader = new BufferedReader(new FileReader("data/hallAvailability.txt"))) {
-            String line;
-            while ((line = reader.readLine()) != null) {
-                String[] data = line.split(",");
-                tableModel.addRow(data);
+        availabilityLoader.load(sink -> {
+            for (String line : FileHandler.readFromFile("hallAvailability.txt", l -> l)) {
+                if (sink.isCancelled()) {
+                    return;
+                }
+                sink.publish(line.split(","));
             }
-        } catch (IOException e) {
-            e.printStackTrace();
-        }
+        });
     }
 
     private void setHallAvailability() {
@@ -268,6 +271,7 @@ public class HallAvailabilityScreen extends JFrame {
 
     @Override
     public void dispose() {
+        availabilityLoader.cancel();
         super.dispose();
         parentFrame.setVisible(true); // Ensure the parent frame is visible when this window is closed
     }
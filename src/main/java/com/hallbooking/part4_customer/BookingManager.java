@@ -1,216 +1,320 @@
 package main.java.com.hallbooking.part4_customer;
 
+import main.java.com.hallbooking.common.index.BookingIndex;
+import main.java.com.hallbooking.common.index.HallQuery;
+import main.java.com.hallbooking.common.index.MaintenanceIndex;
+import main.java.com.hallbooking.common.index.OccupancyCalendar;
+import main.java.com.hallbooking.common.index.RevenueCube;
+import main.java.com.hallbooking.common.index.SlotReservations;
 import main.java.com.hallbooking.common.models.Hall;
+import main.java.com.hallbooking.common.repository.HallRepository;
+import main.java.com.hallbooking.common.storage.FileTransaction;
 import main.java.com.hallbooking.common.utils.DateTimeUtils;
 import main.java.com.hallbooking.common.utils.FileHandler;
+import main.java.com.hallbooking.common.utils.IdGenerator;
 import main.java.com.hallbooking.common.exceptions.CustomExceptions.*;
 
+import java.io.IOException;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
 import java.time.format.DateTimeFormatter;
 import java.time.format.DateTimeParseException;
+import java.util.HashMap;
 import java.util.List;
 import java.util.ArrayList;
-import java.io.IOException;
-import java.nio.file.Files;
-import java.nio.file.Paths;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
 import java.util.stream.Collectors;
 
 public class BookingManager {
     private static final String BOOKINGS_FILE = "bookings.txt";
-    private static final String HALLS_FILE = "hall.txt";
     private static final String HISTORY_FILE = "history.txt";
-    private static final String MAINTENANCE_FILE = "data/maintenance.txt";
+    private static final String MAINTENANCE_FILE = "maintenance.txt";
+    // Booking and cancelling hold these: the files they change, plus the ones their commit hooks
+    // read if they have to load RevenueCube or build OccupancyCalendar
+    private static final List<String> BOOKING_TRANSACTION_FILES = transactionFiles(BOOKINGS_FILE, MAINTENANCE_FILE);
+    private static final List<String> CANCEL_TRANSACTION_FILES = transactionFiles(BOOKINGS_FILE, HISTORY_FILE);
+
+    // How bookHalls treats a batch in which some requests cannot be booked
+    public enum BatchMode {
+        ALL_OR_NOTHING,  // book nothing unless every request can be booked
+        BEST_EFFORT      // book every request that can be, report the rest
+    }
 
-    public void bookHall(String customerId, String hallId, LocalDateTime startDateTime, LocalDateTime endDateTime)
+    // Returns the new booking's ID
+    public String bookHall(String customerId, String hallId, LocalDateTime startDateTime, LocalDateTime endDateTime)
             throws InvalidBookingException, HallNotFoundException {
-        if (!isHallAvailable(hallId, startDateTime, endDateTime)) {
-            throw new InvalidBookingException("Hall is not available for the selected time slot.");
+        BookingOutcome outcome = bookHalls(List.of(new BookingRequest(customerId, hallId, startDateTime, endDateTime)),
+                BatchMode.ALL_OR_NOTHING).get(0);
+        if (outcome.getError() instanceof HallNotFoundException) {
+            throw (HallNotFoundException) outcome.getError();
         }
-
-        if (isHallUnderMaintenance(hallId, startDateTime, endDateTime)) {
-            throw new InvalidBookingException("The selected hall is under maintenance during the requested time.");
+        if (outcome.getError() != null) {
+            throw (InvalidBookingException) outcome.getError();
         }
 
-        double totalRate = calculateBookingPrice(hallId, startDateTime, endDateTime);
+        finalizeBooking(customerId, hallId, outcome.getPrice(), startDateTime, endDateTime);
+        return outcome.getBookingId();
+    }
 
-        String bookingId = generateBookingId();
-        String booking = String.join(",", bookingId, customerId, hallId,
-                DateTimeUtils.formatDateTime(startDateTime),
-                DateTimeUtils.formatDateTime(endDateTime), String.valueOf(totalRate));
-        FileHandler.appendToFile(BOOKINGS_FILE, booking);
+    // Books several halls and slots at once. Each slot is first claimed in SlotReservations and
+    // checked against the resident calendar without any lock, so callers booking different halls or
+    // times do that work side by side, and one that collides with a booking still in progress fails
+    // at once instead of queueing behind it. Only the maintenance check and the append run under the
+    // file locks, and every booked row is written by a single commit. Outcomes are in request order.
+    public List<BookingOutcome> bookHalls(List<BookingRequest> requests, BatchMode mode) {
+        List<BookingOutcome> outcomes = new ArrayList<>(requests.size());
+        Map<String, Hall> halls = new HashMap<>();
+        Map<String, List<BookingRequest>> acceptedByHall = new HashMap<>();
+        SlotReservations reservations = SlotReservations.getInstance();
+        List<SlotReservations.Reservation> held = new ArrayList<>();
 
-        finalizeBooking(customerId, hallId, totalRate, startDateTime, endDateTime);
-    }
+        try {
+            for (BookingRequest request : requests) {
+                try {
+                    Hall hall = halls.get(request.getHallId());
+                    if (hall == null) {
+                        hall = getHallById(request.getHallId());
+                        halls.put(hall.getId(), hall);
+                    }
+                    double price = calculateBookingPrice(hall, request.getStartDateTime(), request.getEndDateTime());
+                    checkBatchOverlap(request, acceptedByHall.getOrDefault(hall.getId(), List.of()));
+                    SlotReservations.Reservation reservation = reservations.tryReserve(hall.getId(),
+                            request.getStartDateTime(), request.getEndDateTime());
+                    if (reservation == null) {
+                        throw new InvalidBookingException("Another customer is booking this hall for an overlapping time slot.");
+                    }
+                    held.add(reservation);
+                    // Only after the claim: a booker that got there first is either still holding its
+                    // claim or already in the calendar, since claims are released after the commit.
+                    // The calendar is fetched here too, as one fetched earlier may have been dropped
+                    // by invalidate and missed bookings committed since
+                    if (OccupancyCalendar.getInstance().isBooked(hall.getId(), request.getStartDateTime(), request.getEndDateTime())) {
+                        throw new InvalidBookingException("Hall is not available for the selected time slot.");
+                    }
+                    acceptedByHall.computeIfAbsent(hall.getId(), id -> new ArrayList<>()).add(request);
+                    outcomes.add(BookingOutcome.booked(request, generateBookingId(), price));
+                } catch (HallNotFoundException | InvalidBookingException e) {
+                    outcomes.add(BookingOutcome.failed(request, e));
+                }
+            }
+            if (mode == BatchMode.ALL_OR_NOTHING && outcomes.stream().anyMatch(outcome -> !outcome.isBooked())) {
+                return rejectBooked(outcomes, "Not booked: another booking in the batch could not be made.");
+            }
 
-    public boolean isHallUnderMaintenance(String hallId, LocalDateTime bookingStart, LocalDateTime bookingEnd) {
-        List<MaintenanceRecord> maintenanceRecords = readMaintenanceRecords();
+            // Maintenance is scheduled without going through the claims, so it is checked while
+            // maintenance.txt is held through to the append
+            try (FileTransaction transaction = FileHandler.beginTransaction(BOOKING_TRANSACTION_FILES)) {
+                MaintenanceIndex maintenance = MaintenanceIndex.getInstance();
+                outcomes.replaceAll(outcome -> outcome.isBooked() && maintenance.overlaps(outcome.getRequest().getHallId(),
+                        outcome.getRequest().getStartDateTime(), outcome.getRequest().getEndDateTime())
+                        ? BookingOutcome.failed(outcome.getRequest(),
+                                new InvalidBookingException("The selected hall is under maintenance during the requested time."))
+                        : outcome);
+
+                List<BookingOutcome> booked = outcomes.stream().filter(BookingOutcome::isBooked).collect(Collectors.toList());
+                if (booked.isEmpty()) {
+                    return outcomes;
+                }
+                if (mode == BatchMode.ALL_OR_NOTHING && booked.size() < outcomes.size()) {
+                    return rejectBooked(outcomes, "Not booked: another booking in the batch could not be made.");
+                }
 
-        for (MaintenanceRecord record : maintenanceRecords) {
-            if (record.hallId.equals(hallId)) {
-                if (isTimeOverlap(bookingStart, bookingEnd, record.startTime, record.endTime)) {
-                    return true;
+                for (BookingOutcome outcome : booked) {
+                    BookingRequest request = outcome.getRequest();
+                    transaction.append(BOOKINGS_FILE, String.join(",", outcome.getBookingId(), request.getCustomerId(),
+                            request.getHallId(), DateTimeUtils.formatDateTime(request.getStartDateTime()),
+                            DateTimeUtils.formatDateTime(request.getEndDateTime()), String.valueOf(outcome.getPrice())));
+                }
+                transaction.onCommit(() -> {
+                    for (BookingOutcome outcome : booked) {
+                        BookingRequest request = outcome.getRequest();
+                        BookingIndex.getInstance().add(outcome.getBookingId(), request.getCustomerId(), request.getHallId(),
+                                request.getStartDateTime(), request.getEndDateTime(), outcome.getPrice());
+                        RevenueCube.getInstance().addBooking(outcome.getBookingId(), request.getHallId(),
+                                request.getStartDateTime(), outcome.getPrice());
+                        OccupancyCalendar.getInstance().addBooking(request.getHallId(), request.getStartDateTime(), request.getEndDateTime());
+                    }
+                });
+                if (!transaction.commit()) {
+                    return rejectBooked(outcomes, "The booking could not be saved. Please try again.");
                 }
             }
+            return outcomes;
+        } finally {
+            // Committed slots are in the calendar by now, so their claims are no longer needed
+            held.forEach(reservations::release);
         }
-        return false;
     }
 
-    private boolean isTimeOverlap(LocalDateTime start1, LocalDateTime end1, LocalDateTime start2, LocalDateTime end2) {
-        return start1.isBefore(end2) && start2.isBefore(end1);
+    private static List<String> transactionFiles(String... changed) {
+        Set<String> files = new TreeSet<>(List.of(changed));
+        files.addAll(BookingIndex.SOURCE_FILES);
+        files.addAll(RevenueCube.SOURCE_FILES);
+        files.addAll(OccupancyCalendar.SOURCE_FILES);
+        return List.copyOf(files);
     }
 
-    private List<MaintenanceRecord> readMaintenanceRecords() {
-        List<MaintenanceRecord> records = new ArrayList<>();
-        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm");
-
-        try {
-            List<String> lines = Files.readAllLines(Paths.get(MAINTENANCE_FILE));
-            for (String line : lines) {
-                String[] parts = line.split(",");
-                if (parts.length >= 3) {
-                    String hallId = parts[0];
-                    LocalDateTime startTime = LocalDateTime.parse(parts[1], formatter);
-                    LocalDateTime endTime = LocalDateTime.parse(parts[2], formatter);
-                    records.add(new MaintenanceRecord(hallId, startTime, endTime));
-                }
+    private void checkBatchOverlap(BookingRequest request, List<BookingRequest> acceptedForHall)
+            throws InvalidBookingException {
+        for (BookingRequest accepted : acceptedForHall) {
+            if (isTimeOverlap(request.getStartDateTime(), request.getEndDateTime(),
+                    accepted.getStartDateTime(), accepted.getEndDateTime())) {
+                throw new InvalidBookingException("The time slot overlaps another booking in the same batch.");
             }
-        } catch (IOException e) {
-            System.err.println("Error reading maintenance file: " + e.getMessage());
         }
+    }
 
-        return records;
+    private boolean isTimeOverlap(LocalDateTime start1, LocalDateTime end1, LocalDateTime start2, LocalDateTime end2) {
+        return start1.isBefore(end2) && start2.isBefore(end1);
     }
 
-    private static class MaintenanceRecord {
-        String hallId;
-        LocalDateTime startTime;
-        LocalDateTime endTime;
+    // Turns every outcome still marked booked into a failure with the given reason
+    private List<BookingOutcome> rejectBooked(List<BookingOutcome> outcomes, String reason) {
+        outcomes.replaceAll(outcome -> outcome.isBooked()
+                ? BookingOutcome.failed(outcome.getRequest(), new InvalidBookingException(reason))
+                : outcome);
+        return outcomes;
+    }
 
-        MaintenanceRecord(String hallId, LocalDateTime startTime, LocalDateTime endTime) {
-            this.hallId = hallId;
-            this.startTime = startTime;
-            this.endTime = endTime;
-        }
+    public boolean isHallUnderMaintenance(String hallId, LocalDateTime bookingStart, LocalDateTime bookingEnd) {
+        // Answered from the per-hall maintenance index instead of rereading maintenance.txt
+        return MaintenanceIndex.getInstance().overlaps(hallId, bookingStart, bookingEnd);
     }
 
     public void cancelBooking(String bookingId) throws BookingNotFoundException, InvalidBookingException {
-        // Read the list of bookings from the file
-        List<String> bookings = FileHandler.readFromFile(BOOKINGS_FILE, line -> line);
-
-        // Find the booking to cancel
-        String bookingToCancel = bookings.stream()
-                .filter(b -> b.startsWith(bookingId))
-                .findFirst()
-                .orElseThrow(() -> new BookingNotFoundException(bookingId));
-
-        // Extract and parse the start time (4th field in the comma-separated booking string)
-        String bookingStartTime = bookingToCancel.split(",")[3]; // Start time is at index 3
+        // The booking leaves bookings.txt and lands in history.txt together, or not at all
+        try (FileTransaction transaction = FileHandler.beginTransaction(CANCEL_TRANSACTION_FILES)) {
+            // Read the list of bookings from the file
+            List<String> bookings = transaction.read(BOOKINGS_FILE);
+
+            // Find the booking to cancel
+            String bookingToCancel = bookings.stream()
+                    .filter(b -> b.startsWith(bookingId))
+                    .findFirst()
+                    .orElseThrow(() -> new BookingNotFoundException(bookingId));
+
+            // Extract and parse the start time (4th field in the comma-separated booking string)
+            String bookingStartTime = bookingToCancel.split(",")[3]; // Start time is at index 3
+
+            LocalDateTime bookingStart;
+            try {
+                // Assuming DateTimeUtils expects format 'yyyy-MM-dd HH:mm'
+                DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm");
+                bookingStart = LocalDateTime.parse(bookingStartTime, formatter);
+            } catch (DateTimeParseException e) {
+                throw new InvalidBookingException("Invalid booking start time format.");
+            }
 
-        LocalDateTime bookingStart;
-        try {
-            // Assuming DateTimeUtils expects format 'yyyy-MM-dd HH:mm'
-            DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm");
-            bookingStart = LocalDateTime.parse(bookingStartTime, formatter);
-        } catch (DateTimeParseException e) {
-            throw new InvalidBookingException("Invalid booking start time format.");
-        }
+            // Check if the booking can be canceled (at least 3 days before start time)
+            if (LocalDateTime.now().plusDays(3).isAfter(bookingStart)) {
+                throw new InvalidBookingException("Bookings can only be canceled at least 3 days before the start time.");
+            }
 
-        // Check if the booking can be canceled (at least 3 days before start time)
-        if (LocalDateTime.now().plusDays(3).isAfter(bookingStart)) {
-            throw new InvalidBookingException("Bookings can only be canceled at least 3 days before the start time.");
+            // Remove the booking from the list and move it to the history file
+            bookings.remove(bookingToCancel);
+            transaction.write(BOOKINGS_FILE, bookings);
+            transaction.append(HISTORY_FILE, bookingToCancel);
+            String[] fields = bookingToCancel.split(",");
+            transaction.onCommit(() -> {
+                BookingIndex.getInstance().remove(fields[0]);
+                RevenueCube.getInstance().cancelBooking(fields[0], fields[2], bookingStart, Double.parseDouble(fields[5]));
+                OccupancyCalendar.getInstance().removeBooking(fields[2], bookingStart, DateTimeUtils.parseDateTime(fields[4]));
+            });
+
+            if (!transaction.commit()) {
+                throw new InvalidBookingException("The cancellation could not be saved. Please try again.");
+            }
+        } catch (IOException e) {
+            throw new InvalidBookingException("Unable to read bookings: " + e.getMessage());
         }
-
-        // Remove the booking from the list
-        bookings.remove(bookingToCancel);
-
-        // Write the updated bookings list back to the file
-        FileHandler.writeToFile(BOOKINGS_FILE, bookings, booking -> booking);
-
-        // Append the canceled booking to the history file
-        FileHandler.appendToFile(HISTORY_FILE, bookingToCancel);
     }
 
+    // The customer's bookings in order of start time, from their timeline in BookingIndex
     public List<String> getBookingsForCustomer(String customerId) {
-        List<String> bookings = FileHandler.readFromFile(BOOKINGS_FILE, line -> line);
-        return bookings.stream()
-                .filter(b -> b.split(",")[1].equals(customerId))
-                .collect(Collectors.toList());
+        return BookingIndex.getInstance().getCustomerBookings(customerId);
     }
 
-    public boolean isHallAvailable(String hallId, LocalDateTime start, LocalDateTime end) {
-        List<String> bookings = FileHandler.readFromFile(BOOKINGS_FILE, line -> line);
-        return bookings.stream().noneMatch(b -> {
-            String[] parts = b.split(",");
-
-            // Ensure the parts array has exactly 6 elements (Booking ID, Customer ID, Hall ID, Start, End, Price)
-            if (parts.length != 6) {
-                System.err.println("Invalid booking data: " + b);
-                return false;  // Skip this invalid entry
-            }
-
-            String bookedHallId = parts[2];
-            LocalDateTime bookedStart = DateTimeUtils.parseDateTime(parts[3]);
-            LocalDateTime bookedEnd = DateTimeUtils.parseDateTime(parts[4]);
+    public List<String> getPastBookingsForCustomer(String customerId) {
+        return BookingIndex.getInstance().getBookingsEndedBefore(customerId, LocalDateTime.now());
+    }
 
-            // Check for time overlap
-            return bookedHallId.equals(hallId) && (start.isBefore(bookedEnd) && end.isAfter(bookedStart));
-        });
+    public List<String> getFutureBookingsForCustomer(String customerId) {
+        return BookingIndex.getInstance().getBookingsStartingAfter(customerId, LocalDateTime.now());
     }
 
-    public Hall getHallById(String hallId) throws HallNotFoundException {
-        List<Hall> halls = FileHandler.readFromFile(HALLS_FILE, this::parseHall);
-        return halls.stream()
-                .filter(h -> h.getId().equals(hallId))
-                .findFirst()
-                .orElseThrow(() -> new HallNotFoundException(hallId));
+    public boolean isHallAvailable(String hallId, LocalDateTime start, LocalDateTime end) {
+        // Answered from the per-hall slot calendar, which asks BookingIndex only about partly covered slots
+        return !OccupancyCalendar.getInstance().isBooked(hallId, start, end);
     }
 
-    private Hall parseHall(String line) {
-        String[] parts = line.split(",");
-        return new Hall(parts[0], Hall.HallType.valueOf(parts[1]), Integer.parseInt(parts[2]),
-                new java.math.BigDecimal(parts[3]), parts[4]);
+    public Hall getHallById(String hallId) throws HallNotFoundException {
+        Hall hall = HallRepository.getInstance().getHall(hallId);
+        if (hall == null) {
+            throw new HallNotFoundException(hallId);
+        }
+        return hall;
     }
 
     private String generateBookingId() {
-        return "B" + System.currentTimeMillis();
+        return IdGenerator.next(IdGenerator.Entity.BOOKING);
     }
 
     public List<Hall> filterHalls(String type, int capacity, String location, double maxRate) {
-        List<Hall> halls = FileHandler.readFromFile(HALLS_FILE, this::parseHall);
-        return halls.stream()
-                .filter(hall -> (type.equals("Any") || hall.getType().name().equalsIgnoreCase(type)) &&
-                        (capacity == 0 || hall.getCapacity() >= capacity) &&
-                        (location.isEmpty() || hall.getLocation().equalsIgnoreCase(location)) &&
-                        (maxRate == 0 || hall.getRate().doubleValue() <= maxRate))
-                .collect(Collectors.toList());
+        return filterHalls(type, capacity, location, maxRate, null, null);
+    }
+
+    // As above, keeping only halls that are neither booked nor under maintenance in [start, end)
+    // when both are given. Answered by intersecting the hall catalog's search indexes.
+    public List<Hall> filterHalls(String type, int capacity, String location, double maxRate,
+                                  LocalDateTime start, LocalDateTime end) {
+        HallQuery query = new HallQuery();
+        if (!type.equals("Any")) {
+            Hall.HallType hallType = parseHallType(type);
+            if (hallType == null) {
+                return new ArrayList<>();
+            }
+            query.type(hallType);
+        }
+        if (capacity != 0) {
+            query.minCapacity(capacity);
+        }
+        if (!location.isEmpty()) {
+            query.location(location);
+        }
+        if (maxRate != 0) {
+            query.maxRate(maxRate);
+        }
+        if (start != null && end != null) {
+            query.freeBetween(start, end);
+        }
+        return HallRepository.getInstance().search(query);
+    }
+
+    private Hall.HallType parseHallType(String type) {
+        for (Hall.HallType hallType : Hall.HallType.values()) {
+            if (hallType.name().equalsIgnoreCase(type)) {
+                return hallType;
+            }
+        }
+        return null;
     }
 
     public List<Hall> getAllAvailableHalls() {
-        return FileHandler.readFromFile(HALLS_FILE, this::parseHall);
+        return new ArrayList<>(HallRepository.getInstance().getAllHalls());
     }
 
     public double calculateBookingPrice(String hallId, LocalDateTime startDateTime, LocalDateTime endDateTime) throws HallNotFoundException {
-        System.out.println("calculateBookingPrice called with hallId: " + hallId);
-
-        Hall hall = getHallById(hallId);
-        if (hall == null) {
-            System.out.println("Hall not found for ID: " + hallId);
-            throw new HallNotFoundException("Hall with ID " + hallId + " not found.");
-        }
-        System.out.println("Hall found: " + hall.toString());
+        // Straight lookup in the hall catalog; getHallById throws if the hall is unknown
+        return calculateBookingPrice(getHallById(hallId), startDateTime, endDateTime);
+    }
 
+    private double calculateBookingPrice(Hall hall, LocalDateTime startDateTime, LocalDateTime endDateTime) {
         long hours = DateTimeUtils.calculateHours(startDateTime, endDateTime);
-        System.out.println("Hours calculated: " + hours);
-
         double rate = hall.getRate().doubleValue();
-        System.out.println("Rate per hour: " + rate);
-
-        double totalPrice = rate * hours;
-        System.out.println("Total booking price calculated: " + totalPrice);
-
-        return totalPrice;
+        return rate * hours;
     }
 
     public void finalizeBooking(String customerId, String hallId, double totalPrice, LocalDateTime startDateTime, LocalDateTime endDateTime) {
@@ -219,6 +323,6 @@ public class BookingManager {
     }
 
     private String generateReceiptId() {
-        return "R" + System.currentTimeMillis();
+        return IdGenerator.next(IdGenerator.Entity.RECEIPT);
     }
 }
@@ -0,0 +1,37 @@
+package main.java.com.hallbooking.part4_customer;
+
+// The result of one request in a BookingManager.bookHalls batch: the new booking's ID and price,
+// or the exception that kept it from being booked
+public class BookingOutcome {
+    private final BookingRequest request;
+    private final String bookingId;
+    private final double price;
+    private final Exception error;
+
+    private BookingOutcome(BookingRequest request, String bookingId, double price, Exception error) {
+        this.request = request;
+        this.bookingId = bookingId;
+        this.price = price;
+        this.error = error;
+    }
+
+    static BookingOutcome booked(BookingRequest request, String bookingId, double price) {
+        return new BookingOutcome(request, bookingId, price, null);
+    }
+
+    static BookingOutcome failed(BookingRequest request, Exception error) {
+        return new BookingOutcome(request, null, 0, error);
+    }
+
+    public boolean isBooked() { return error == null; }
+    public BookingRequest getRequest() { return request; }
+    // Null unless booked
+    public String getBookingId() { return bookingId; }
+    public double getPrice() { return price; }
+    // HallNotFoundException or InvalidBookingException; null when booked
+    public Exception getError() { return error; }
+
+    public String getMessage() {
+        return error == null ? "Booked as " + bookingId : error.getMessage();
+    }
+}
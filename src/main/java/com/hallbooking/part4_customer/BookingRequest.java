@@ -0,0 +1,33 @@
+package main.java.com.hallbooking.part4_customer;
+
+import java.time.LocalDateTime;
+
+// One hall and time slot in a BookingManager.bookHalls batch
+public class BookingRequest {
+    private final String customerId;
+    private final String hallId;
+    private final LocalDateTime startDateTime;
+    private final LocalDateTime endDateTime;
+
+    public BookingRequest(String customerId, String hallId, LocalDateTime startDateTime, LocalDateTime endDateTime) {
+        this.customerId = customerId;
+        this.hallId = hallId;
+        this.startDateTime = startDateTime;
+        this.endDateTime = endDateTime;
+    }
+
+    public String getCustomerId() { return customerId; }
+    public String getHallId() { return hallId; }
+    public LocalDateTime getStartDateTime() { return startDateTime; }
+    public LocalDateTime getEndDateTime() { return endDateTime; }
+
+    @Override
+    public String toString() {
+        return "BookingRequest{" +
+                "customerId='" + customerId + '\'' +
+                ", hallId='" + hallId + '\'' +
+                ", start=" + startDateTime +
+                ", end=" + endDateTime +
+                '}';
+    }
+}
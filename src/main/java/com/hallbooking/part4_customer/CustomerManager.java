@@ -1,20 +1,23 @@
 package main.java.com.hallbooking.part4_customer;
 
+import main.java.com.hallbooking.common.logging.Logger;
 import main.java.com.hallbooking.common.models.User;
 import main.java.com.hallbooking.common.models.Issue;
+import main.java.com.hallbooking.common.repository.IssueRepository;
+import main.java.com.hallbooking.common.repository.UserDirectory;
+import main.java.com.hallbooking.common.repository.UserSearchIndex;
 import main.java.com.hallbooking.common.utils.FileHandler;
+import main.java.com.hallbooking.common.utils.IdGenerator;
 import main.java.com.hallbooking.common.exceptions.CustomExceptions.*;
 
+import java.io.IOException;
 import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
-import java.time.format.DateTimeParseException;
 import java.util.List;
 import java.util.Optional;
-import java.util.stream.Collectors;
 
 public class CustomerManager {
+    private static final Logger LOG = Logger.getLogger(CustomerManager.class);
     private static final String CUSTOMERS_FILE = "customers.txt";
-    private static final String ISSUES_FILE = "issues.txt";
     private BookingManager bookingManager;
 
     public CustomerManager() {
@@ -30,6 +33,8 @@ public class CustomerManager {
         if (existingCustomer.isPresent()) {
             customers.set(customers.indexOf(existingCustomer.get()), customer);
             FileHandler.writeToFile(CUSTOMERS_FILE, customers, this::formatCustomer);
+            UserDirectory.getInstance().invalidate(CUSTOMERS_FILE);
+            UserSearchIndex.getInstance().put(CUSTOMERS_FILE, formatCustomer(customer));
         } else {
             throw new UserNotFoundException(customer.getId());
         }
@@ -46,8 +51,11 @@ public class CustomerManager {
                 Issue.IssueStatus.OPEN,
                 null
         );
-        String issueCsv = newIssue.toCsvString();
-        FileHandler.appendToFile(ISSUES_FILE, issueCsv);
+        try {
+            IssueRepository.getInstance().add(newIssue);
+        } catch (IOException e) {
+            LOG.error("Error saving issue " + newIssue.getId(), e);
+        }
     }
 
     // Method to fetch all bookings for the customer from BookingManager
@@ -55,51 +63,14 @@ public class CustomerManager {
         return bookingManager.getBookingsForCustomer(customerId);
     }
 
+    // Bookings that have ended, oldest first
     public List<String> getPastBookings(String customerId) {
-        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm");
-
-        return bookingManager.getBookingsForCustomer(customerId).stream()
-                .filter(booking -> {
-                    String[] parts = booking.split(",");
-                    // Ensure there are enough parts before parsing
-                    if (parts.length >= 5) {
-                        LocalDateTime bookingEnd;
-                        try {
-                            // Parse the end time using the custom formatter
-                            bookingEnd = LocalDateTime.parse(parts[4], formatter);
-                        } catch (DateTimeParseException e) {
-                            System.err.println("Invalid date format in booking: " + booking);
-                            return false; // Skip this booking if the date format is invalid
-                        }
-                        return bookingEnd.isBefore(LocalDateTime.now());
-                    }
-                    return false; // Return false if there are not enough parts
-                })
-                .collect(Collectors.toList());
+        return bookingManager.getPastBookingsForCustomer(customerId);
     }
 
     // Method to fetch future bookings for the customer
     public List<String> getFutureBookings(String customerId) {
-        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm");
-
-        return bookingManager.getBookingsForCustomer(customerId).stream()
-                .filter(booking -> {
-                    String[] parts = booking.split(",");
-                    LocalDateTime bookingStart;
-
-                    try {
-                        // Parse the start time using the custom formatter
-                        bookingStart = LocalDateTime.parse(parts[3], formatter);
-                    } catch (DateTimeParseException e) {
-                        // Handle invalid date format
-                        System.err.println("Invalid date format in booking: " + booking);
-                        return false; // Exclude invalid entries from the result
-                    }
-
-                    // Return true for bookings that are in the future
-                    return bookingStart.isAfter(LocalDateTime.now());
-                })
-                .collect(Collectors.toList());
+        return bookingManager.getFutureBookingsForCustomer(customerId);
     }
 
     // Method to cancel a customer's booking via BookingManager
@@ -108,9 +79,9 @@ public class CustomerManager {
     }
 
     // Method to handle booking operations through BookingManager
-    public void bookHall(String customerId, String hallId, LocalDateTime startDateTime, LocalDateTime endDateTime)
+    public String bookHall(String customerId, String hallId, LocalDateTime startDateTime, LocalDateTime endDateTime)
             throws InvalidBookingException, HallNotFoundException {
-        bookingManager.bookHall(customerId, hallId, startDateTime, endDateTime);
+        return bookingManager.bookHall(customerId, hallId, startDateTime, endDateTime);
     }
 
     // Helper methods for customer profile management
@@ -140,7 +111,7 @@ public class CustomerManager {
 
     // Method to generate a unique issue ID
     private String generateIssueId() {
-        return "I" + System.currentTimeMillis();
+        return IdGenerator.next(IdGenerator.Entity.ISSUE);
     }
 
     // Getter for BookingManager
@@ -1,6 +1,7 @@
 package main.java.com.hallbooking.part4_customer.gui;
 
 import main.java.com.hallbooking.common.exceptions.CustomExceptions;
+import main.java.com.hallbooking.common.gui.OccupancyMonthDialog;
 import main.java.com.hallbooking.common.models.madeCalender;
 
 import javax.swing.*;
@@ -37,6 +38,11 @@ public class BookingScreen extends JFrame {
     private JComboBox<String> startTimeComboBox;
     private JComboBox<String> endTimeComboBox;
     private JLabel priceLabel;
+    private JComboBox<String> typeFilterComboBox;
+    private JTextField capacityFilterField;
+    private JTextField locationFilterField;
+    private JTextField maxRateFilterField;
+    private JCheckBox freeOnlyCheckBox;
     private JFrame customerDashboard;
 
     // Custom colors and styles
@@ -55,7 +61,7 @@ public class BookingScreen extends JFrame {
 
     private void initializeUI() {
         setTitle("Book a Hall");
-        setSize(800, 600);
+        setSize(900, 650);
         setLocationRelativeTo(null);
         setDefaultCloseOperation(JFrame.DISPOSE_ON_CLOSE);
         getContentPane().setBackground(BACKGROUND_COLOR);
@@ -100,6 +106,7 @@ public class BookingScreen extends JFrame {
 
         JScrollPane scrollPane = new JScrollPane(hallTable);
         scrollPane.setPreferredSize(new Dimension(500, 180));  // Reduce table size
+        panel.add(createSearchPanel(), BorderLayout.NORTH);
         panel.add(scrollPane, BorderLayout.CENTER);
 
         return panel;
@@ -137,9 +144,83 @@ private void styleTable(JTable table) {
         });
     }
 
+    // Type, minimum capacity, location and maximum rate, optionally limited to halls free for the
+    // dates and times chosen below
+    private JPanel createSearchPanel() {
+        JPanel panel = new JPanel(new FlowLayout(FlowLayout.LEFT, 8, 5));
+        panel.setBackground(BACKGROUND_COLOR);
+
+        Vector<String> types = new Vector<>();
+        types.add("Any");
+        for (Hall.HallType type : Hall.HallType.values()) {
+            types.add(type.name());
+        }
+        typeFilterComboBox = new JComboBox<>(types);
+        capacityFilterField = new JTextField(5);
+        locationFilterField = new JTextField(10);
+        maxRateFilterField = new JTextField(5);
+        freeOnlyCheckBox = new JCheckBox("Free at selected time");
+        freeOnlyCheckBox.setBackground(BACKGROUND_COLOR);
+
+        JButton searchButton = new JButton("Search");
+        searchButton.addActionListener(e -> searchHalls());
+        JButton clearButton = new JButton("Clear");
+        clearButton.addActionListener(e -> {
+            typeFilterComboBox.setSelectedIndex(0);
+            capacityFilterField.setText("");
+            locationFilterField.setText("");
+            maxRateFilterField.setText("");
+            freeOnlyCheckBox.setSelected(false);
+            loadHalls();
+        });
+
+        panel.add(new JLabel("Type:"));
+        panel.add(typeFilterComboBox);
+        panel.add(new JLabel("Min Capacity:"));
+        panel.add(capacityFilterField);
+        panel.add(new JLabel("Location:"));
+        panel.add(locationFilterField);
+        panel.add(new JLabel("Max Rate:"));
+        panel.add(maxRateFilterField);
+        panel.add(freeOnlyCheckBox);
+        panel.add(searchButton);
+        panel.add(clearButton);
+        return panel;
+    }
+
+    private void searchHalls() {
+        int capacity;
+        double maxRate;
+        try {
+            capacity = capacityFilterField.getText().isBlank() ? 0 : Integer.parseInt(capacityFilterField.getText().trim());
+            maxRate = maxRateFilterField.getText().isBlank() ? 0 : Double.parseDouble(maxRateFilterField.getText().trim());
+        } catch (NumberFormatException e) {
+            JOptionPane.showMessageDialog(this, "Capacity and rate must be numbers.", "Search Error", JOptionPane.ERROR_MESSAGE);
+            return;
+        }
+
+        LocalDateTime start = null;
+        LocalDateTime end = null;
+        if (freeOnlyCheckBox.isSelected()) {
+            if (startDatePicker.getSelectedDate() == null || endDatePicker.getSelectedDate() == null) {
+                JOptionPane.showMessageDialog(this, "Please select the start and end dates first.", "Search Error", JOptionPane.ERROR_MESSAGE);
+                return;
+            }
+            start = LocalDateTime.of(startDatePicker.getSelectedDate(), LocalTime.parse((String) startTimeComboBox.getSelectedItem()));
+            end = LocalDateTime.of(endDatePicker.getSelectedDate(), LocalTime.parse((String) endTimeComboBox.getSelectedItem()));
+        }
+
+        showHalls(bookingManager.filterHalls((String) typeFilterComboBox.getSelectedItem(), capacity,
+                locationFilterField.getText().trim(), maxRate, start, end));
+    }
+
     private void loadHalls() {
+        showHalls(bookingManager.getAllAvailableHalls());
+    }
+
+    private void showHalls(List<Hall> halls) {
         tableModel.setRowCount(0);
-        for (Hall hall : bookingManager.getAllAvailableHalls()) {
+        for (Hall hall : halls) {
             tableModel.addRow(new Object[]{
                     hall.getId(),
                     hall.getType(),
@@ -220,6 +301,11 @@ private void styleTable(JTable table) {
         bookButton.addActionListener(e -> bookHall());  // Trigger the booking process with conflict check
         panel.add(bookButton);
 
+        JButton monthViewButton = createStyledButton("Month View");
+        monthViewButton.setPreferredSize(new Dimension(170, 50));
+        monthViewButton.addActionListener(e -> new OccupancyMonthDialog(this, false).setVisible(true));
+        panel.add(monthViewButton);
+
         JButton cancelButton = createStyledButton("Back to Dashboard");
         cancelButton.setPreferredSize(new Dimension(170, 50));
         cancelButton.addActionListener(e -> goBack());
@@ -341,14 +427,17 @@ private void styleTable(JTable table) {
         }
     }
 
-    public void finalizeBooking(String hallId, LocalDateTime startDateTime, LocalDateTime endDateTime) {
+    // Returns the new booking's ID, or null when the booking failed
+    public String finalizeBooking(String hallId, LocalDateTime startDateTime, LocalDateTime endDateTime) {
         // Actually book the hall after payment confirmation
         try {
-            bookingManager.bookHall(customerId, hallId, startDateTime, endDateTime);
+            String bookingId = bookingManager.bookHall(customerId, hallId, startDateTime, endDateTime);
             JOptionPane.showMessageDialog(this, "Booking successful!", "Booking Confirmation", JOptionPane.INFORMATION_MESSAGE);
             goBack(); // Return to dashboard
+            return bookingId;
         } catch (CustomExceptions.InvalidBookingException | HallNotFoundException e) {
             JOptionPane.showMessageDialog(this, "Booking failed: " + e.getMessage(), "Booking Error", JOptionPane.ERROR_MESSAGE);
+            return null;
         }
     }
 
@@ -1,4 +1,7 @@
 package main.java.com.hallbooking.part4_customer.gui;
+import main.java.com.hallbooking.common.repository.UserDirectory;
+import main.java.com.hallbooking.common.repository.UserSearchIndex;
+import main.java.com.hallbooking.common.utils.FileHandler;
 import main.java.com.hallbooking.part1_login.gui.LoginScreen;
 import main.java.com.hallbooking.part2_admin.gui.ExtraAdminDashboard;
 
@@ -124,15 +127,11 @@ public class CompleteRegistrationGUI extends JFrame {
         String userDetails = String.format("%s,%s,%s,%s,%s,%s,%s,Unblocked,Customer",
                 id, password, email, phoneNumber, name, address, nationality);
 
-        try (BufferedWriter writer = new BufferedWriter(new FileWriter("data/customers.txt", true))) {
-            writer.write(userDetails);
-            writer.newLine();
-            showMessage("User Registered Successfully!", false);
-            clearFields();
-        } catch (IOException ex) {
-            showMessage("Error saving user data: " + ex.getMessage(), true);
-            ex.printStackTrace();
-        }
+        FileHandler.appendToFile("customers.txt", userDetails);
+        UserDirectory.getInstance().invalidate("customers.txt");
+        UserSearchIndex.getInstance().put("customers.txt", userDetails);
+        showMessage("User Registered Successfully!", false);
+        clearFields();
     }
 
     private boolean isValidInput(String id, String email, String phoneNumber, String password, String confirmPassword) {
@@ -187,19 +186,13 @@ public class CompleteRegistrationGUI extends JFrame {
     }
 
     private boolean checkExistingField(String value, int index) {
-        try (BufferedReader reader = new BufferedReader(new FileReader("data/customers.txt"))) {
-            String line;
-            while ((line = reader.readLine()) != null) {
-                String[] parts = line.split(",");
-                if (parts.length > index && parts[index].equals(value)) {
-                    String fieldName = index == 0 ? "User ID" : (index == 2 ? "Email" : "Phone number");
-                    showMessage(fieldName + " already exists! Please enter a different " + fieldName.toLowerCase() + ".", true);
-                    return true;
-                }
+        for (String line : UserDirectory.getInstance().getLines("customers.txt")) {
+            String[] parts = line.split(",");
+            if (parts.length > index && parts[index].equals(value)) {
+                String fieldName = index == 0 ? "User ID" : (index == 2 ? "Email" : "Phone number");
+                showMessage(fieldName + " already exists! Please enter a different " + fieldName.toLowerCase() + ".", true);
+                return true;
             }
-        } catch (IOException e) {
-            showMessage("Error checking existing data: " + e.getMessage(), true);
-            e.printStackTrace();
         }
         return false;
     }
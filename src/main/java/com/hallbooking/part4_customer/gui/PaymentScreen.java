@@ -1,6 +1,7 @@
 package main.java.com.hallbooking.part4_customer.gui;
 
 import main.java.com.hallbooking.common.utils.FileHandler;
+import main.java.com.hallbooking.common.utils.IdGenerator;
 
 import javax.swing.*;
 import javax.swing.border.EmptyBorder;
@@ -8,7 +9,6 @@ import java.awt.*;
 import java.awt.geom.RoundRectangle2D;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
-import java.util.List;
 
 public class PaymentScreen extends JFrame {
     private JTextField cardNumberField;
@@ -181,27 +181,20 @@ public class PaymentScreen extends JFrame {
         JOptionPane.showMessageDialog(this, "Payment successful! Generating receipt...",
                 "Payment Confirmation", JOptionPane.INFORMATION_MESSAGE);
 
-        // Call finalizeBooking() from BookingScreen after successful payment
-        bookingScreen.finalizeBooking(hallId, startDateTime, endDateTime);
+        // Call finalizeBooking() from BookingScreen after successful payment; it hands back the new booking's ID
+        String bookingId = bookingScreen.finalizeBooking(hallId, startDateTime, endDateTime);
 
-        // Generate a receipt
-        generateReceipt();
+        // Generate a receipt; finalizeBooking has already reported a failed booking
+        if (bookingId != null) {
+            generateReceipt(bookingId);
+        }
 
         this.dispose();
     }
 
-    private void generateReceipt() {
-        // Get the latest booking ID for the customer
-        String bookingId = getLatestBookingIdForCustomer(customerId);
-
-        if (bookingId == null) {
-            JOptionPane.showMessageDialog(this, "Error: Could not retrieve booking details.",
-                    "Error", JOptionPane.ERROR_MESSAGE);
-            return;
-        }
-
+    private void generateReceipt(String bookingId) {
         // Generate receipt content
-        String receiptId = "R" + System.currentTimeMillis();  // Generate a unique receipt ID
+        String receiptId = IdGenerator.next(IdGenerator.Entity.RECEIPT);  // Generate a unique receipt ID
         DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm");
         String startDateTimeFormatted = startDateTime.format(formatter);
         String endDateTimeFormatted = endDateTime.format(formatter);
@@ -223,20 +216,6 @@ public class PaymentScreen extends JFrame {
         FileHandler.appendToFile("receipts.txt", receiptLine);
     }
 
-    private String getLatestBookingIdForCustomer(String customerId) {
-        List<String> bookings = FileHandler.readFromFile("bookings.txt", line -> line);
-
-        // Get the latest booking for this customer
-        for (int i = bookings.size() - 1; i >= 0; i--) {
-            String[] bookingDetails = bookings.get(i).split(",");
-            if (bookingDetails.length >= 2 && bookingDetails[1].equals(customerId)) {
-                return bookingDetails[0];  // Return the Booking ID (which is the first value)
-            }
-        }
-
-        return null;  // Return null if no booking found for the customer
-    }
-
     private void goBack() {
         this.dispose();
         bookingScreen.setVisible(true);  // Reopen the booking screen
@@ -1,6 +1,7 @@
 package main.java.com.hallbooking.part4_customer.gui;
 
 import main.java.com.hallbooking.part4_customer.CustomerManager;
+import main.java.com.hallbooking.common.gui.BackgroundLoader;
 
 import javax.swing.*;
 import javax.swing.table.DefaultTableModel;
@@ -18,6 +19,7 @@ public class ViewBookingScreen extends JFrame {
     private CustomerManager customerManager;
     private JTable bookingsTable;
     private DefaultTableModel tableModel;
+    private BackgroundLoader<Object[]> bookingsLoader;
     private JTextField searchField;
     private JLabel resultLabel;
     private JFrame customerDashboard;  // Reference to the customer dashboard
@@ -92,6 +94,8 @@ public class ViewBookingScreen extends JFrame {
             }
         };
         bookingsTable = new JTable(tableModel);
+        bookingsLoader = BackgroundLoader.forTable("ViewBookingScreen.bookings", tableModel)
+                .onDone(() -> resultLabel.setText("Showing all bookings (" + tableModel.getRowCount() + ")"));
         styleTable(bookingsTable);
 
         JScrollPane scrollPane = new JScrollPane(bookingsTable);
@@ -186,11 +190,20 @@ public class ViewBookingScreen extends JFrame {
 
     // Load booking data
     private void loadAllBookings() {
+        resultLabel.setText("Loading bookings...");
+        bookingsLoader.load(this::readBookingRows);
+    }
+
+    // Runs on the loader thread: reads the customer's bookings and publishes one row per booking
+    private void readBookingRows(BackgroundLoader.Sink<Object[]> sink) {
         List<String> allBookings = customerManager.getCustomerBookings(customerId);
         DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm");
         LocalDateTime now = LocalDateTime.now();
 
         for (String booking : allBookings) {
+            if (sink.isCancelled()) {
+                return;
+            }
             String[] bookingData = booking.split(",");
             if (bookingData.length >= 6) {
                 String bookingId = bookingData[0];
@@ -218,7 +231,7 @@ public class ViewBookingScreen extends JFrame {
                         price,
                         status
                 };
-                tableModel.addRow(rowData);
+                sink.publish(rowData);
             }
         }
     }
@@ -240,6 +253,7 @@ public class ViewBookingScreen extends JFrame {
 
     @Override
     public void dispose() {
+        bookingsLoader.cancel();
         super.dispose();
         customerDashboard.setVisible(true); // Ensure the dashboard is visible when this window is closed
     }
@@ -2,15 +2,20 @@ package main.java.com.hallbooking.part5_manager;
 
 import main.java.com.hallbooking.common.exceptions.CustomExceptions;
 import main.java.com.hallbooking.common.models.Issue;
+import main.java.com.hallbooking.common.repository.IssueRepository;
+import main.java.com.hallbooking.common.scheduling.MaintenanceExpiryScheduler;
 
-import java.io.IOException;
 import java.util.List;
+import java.util.Map;
 
 public class IssueManager {
     private ManagerDashboard managerDashboard;
 
     public IssueManager() {
         this.managerDashboard = new ManagerDashboard();
+        // IN_PROGRESS issues are closed as their maintenance ends; starting it here closes any
+        // that ended while the application was not running before the lists are read
+        MaintenanceExpiryScheduler.getInstance();
     }
 
     public List<Issue> getOpenIssues() {
@@ -29,13 +34,17 @@ public class IssueManager {
         return managerDashboard.getIssuesByStatus("CLOSED");
     }
 
+    // Every status at once, grouped as the four lists above would be
+    public List<Issue> getAllIssues() {
+        return IssueRepository.getInstance().getAllIssues();
+    }
+
+    public Map<Issue.IssueStatus, Integer> getIssueCounts() {
+        return IssueRepository.getInstance().getCountsByStatus();
+    }
+
     //Assigning an issue to a scheduler without changing its status
     public void assignIssue(String issueId, String schedulerId) throws CustomExceptions.IssueNotFoundException, CustomExceptions.UserNotFoundException {
         managerDashboard.assignIssueToScheduler(issueId, schedulerId); // Assign without modifying status
     }
-
-    // Method to close issues with IN_PROGRESS status if the maintenance end time has passed
-    public void closeIssues() throws IOException {
-        managerDashboard.closeIssues();
-    }
 }
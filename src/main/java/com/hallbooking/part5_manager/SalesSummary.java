@@ -0,0 +1,168 @@
+package main.java.com.hallbooking.part5_manager;
+
+import main.java.com.hallbooking.common.index.BookingStore;
+import main.java.com.hallbooking.common.logging.Logger;
+import main.java.com.hallbooking.common.storage.CsvRecord;
+import main.java.com.hallbooking.common.utils.FileHandler;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.Calendar;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+// Count, total, smallest and largest amount, an amount histogram and revenue per week, month and
+// year of one file in the bookings.txt layout, folded record by record while the file is scanned.
+// Nothing is kept per row, so memory grows with the number of days, periods and bins, not with the
+// length of the history. The histogram's bins are fractions of the largest amount, which is only
+// known at the end of a scan, so asking for bins costs a second scan.
+public class SalesSummary {
+    private static final Logger LOG = Logger.getLogger(SalesSummary.class);
+    public static final List<String> PERIODS = List.of("Weekly", "Monthly", "Yearly");
+    private static final int[] PERIOD_FIELDS = {Calendar.WEEK_OF_YEAR, Calendar.MONTH, Calendar.YEAR};
+
+    private final int[] histogram;
+    private final Map<String, Map<LocalDateTime, Double>> revenueByPeriod = new HashMap<>();
+    // Start of each period containing a day, in PERIODS order, so each distinct day goes through the Calendar once
+    private final Map<Integer, LocalDateTime[]> periodStartsByDay = new HashMap<>();
+    private long count;
+    private long totalCents;
+    private long minCents;
+    private long maxCents;
+
+    // The record being folded, parsed once into these
+    private int startMinute;
+    private long amountCents;
+
+    private SalesSummary(int bins) {
+        histogram = new int[bins];
+        for (String period : PERIODS) {
+            revenueByPeriod.put(period, new TreeMap<>());
+        }
+    }
+
+    // Summarises a file in the bookings.txt layout, skipping malformed lines as BookingStore.read does.
+    // With bins 0 there is no histogram and the file is scanned once.
+    public static SalesSummary of(String fileName, int bins) throws IOException {
+        SalesSummary summary = new SalesSummary(bins);
+        FileHandler.scanFile(fileName, record -> {
+            summary.fold(record);
+            return true;
+        });
+        if (bins > 0 && summary.count > 0) {
+            FileHandler.scanFile(fileName, record -> {
+                summary.bin(record);
+                return true;
+            });
+        }
+        return summary;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public double getTotal() {
+        return totalCents / (double) BookingStore.AMOUNT_SCALE;
+    }
+
+    public double getMinAmount() {
+        return count == 0 ? 0 : minCents / (double) BookingStore.AMOUNT_SCALE;
+    }
+
+    public double getMaxAmount() {
+        return count == 0 ? 0 : maxCents / (double) BookingStore.AMOUNT_SCALE;
+    }
+
+    // Bin i counts the amounts from i to i + 1 bin widths, the last bin including the largest amount
+    public int[] getHistogram() {
+        return histogram.clone();
+    }
+
+    public double getBinWidth() {
+        return histogram.length == 0 ? 0 : getMaxAmount() / histogram.length;
+    }
+
+    // Revenue per period start, oldest first, for "Weekly", "Monthly" or "Yearly"
+    public Map<LocalDateTime, Double> getRevenueByPeriod(String period) {
+        Map<LocalDateTime, Double> revenue = revenueByPeriod.get(period);
+        return revenue == null ? Collections.emptyMap() : Collections.unmodifiableMap(revenue);
+    }
+
+    private void fold(CsvRecord record) {
+        if (!parse(record, true)) {
+            return;
+        }
+        minCents = count == 0 ? amountCents : Math.min(minCents, amountCents);
+        maxCents = count == 0 ? amountCents : Math.max(maxCents, amountCents);
+        count++;
+        totalCents += amountCents;
+
+        double amount = amountCents / (double) BookingStore.AMOUNT_SCALE;
+        LocalDateTime[] periodStarts = periodStartsByDay.computeIfAbsent(Math.floorDiv(startMinute, 24 * 60),
+                day -> periodStartsOf(BookingStore.fromEpochMinute(startMinute)));
+        for (int i = 0; i < PERIODS.size(); i++) {
+            revenueByPeriod.get(PERIODS.get(i)).merge(periodStarts[i], amount, Double::sum);
+        }
+    }
+
+    private void bin(CsvRecord record) {
+        if (!parse(record, false)) {
+            return;
+        }
+        double binWidth = getBinWidth();
+        // A zero width (every amount 0) or a row appended since the first scan lands in the last bin
+        int bin = binWidth > 0 ? (int) (amountCents / (double) BookingStore.AMOUNT_SCALE / binWidth) : 0;
+        histogram[Math.max(0, Math.min(bin, histogram.length - 1))]++;
+    }
+
+    // Booking ID, Customer ID, Hall ID, Start, End, Price
+    private boolean parse(CsvRecord record, boolean warn) {
+        if (record.fieldCount() != 6) {
+            if (warn) {
+                LOG.warn("Skipping invalid booking record: " + record.line());
+            }
+            return false;
+        }
+        try {
+            startMinute = BookingStore.toEpochMinute(record.dateTimeField(3));
+            record.dateTimeField(4);
+            amountCents = Math.round(record.doubleField(5) * BookingStore.AMOUNT_SCALE);
+            return true;
+        } catch (RuntimeException e) {
+            if (warn) {
+                LOG.warn("Skipping invalid booking record: " + record.line() + " - " + e.getMessage());
+            }
+            return false;
+        }
+    }
+
+    private static LocalDateTime[] periodStartsOf(LocalDateTime date) {
+        LocalDateTime[] starts = new LocalDateTime[PERIOD_FIELDS.length];
+        for (int i = 0; i < PERIOD_FIELDS.length; i++) {
+            starts[i] = periodStart(date, PERIOD_FIELDS[i]);
+        }
+        return starts;
+    }
+
+    private static LocalDateTime periodStart(LocalDateTime date, int calendarField) {
+        Calendar calendar = Calendar.getInstance();
+        calendar.setTime(java.sql.Timestamp.valueOf(date));
+        calendar.set(Calendar.DAY_OF_WEEK, calendar.getFirstDayOfWeek());
+        calendar.set(Calendar.HOUR_OF_DAY, 0);
+        calendar.set(Calendar.MINUTE, 0);
+        calendar.set(Calendar.SECOND, 0);
+        calendar.set(Calendar.MILLISECOND, 0);
+
+        if (calendarField == Calendar.MONTH) {
+            calendar.set(Calendar.DAY_OF_MONTH, 1);
+        } else if (calendarField == Calendar.YEAR) {
+            calendar.set(Calendar.DAY_OF_YEAR, 1);
+        }
+
+        return LocalDateTime.ofInstant(calendar.toInstant(), calendar.getTimeZone().toZoneId());
+    }
+}
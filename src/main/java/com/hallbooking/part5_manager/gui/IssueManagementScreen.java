@@ -1,6 +1,7 @@
 package main.java.com.hallbooking.part5_manager.gui;
 
 import main.java.com.hallbooking.part5_manager.IssueManager;
+import main.java.com.hallbooking.common.gui.BackgroundLoader;
 import main.java.com.hallbooking.common.models.Issue;
 import main.java.com.hallbooking.common.utils.FileHandler;
 
@@ -13,13 +14,16 @@ import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
 import java.awt.geom.RoundRectangle2D;
 import java.util.List;
+import java.util.Map;
 
 public class IssueManagementScreen extends JFrame {
     private IssueManager issueManager;
     private JTable issueTable;
     private DefaultTableModel tableModel;
+    private BackgroundLoader<Object[]> issuesLoader;
     private JComboBox<String> statusFilterComboBox;
     private JComboBox<String> schedulerIdComboBox;
+    private JLabel statusCountsLabel;
     private JButton assignButton;
     private JButton backButton;
 
@@ -57,10 +61,14 @@ public class IssueManagementScreen extends JFrame {
         filterPanel.add(new JLabel("Scheduler ID:"));
         filterPanel.add(schedulerIdComboBox);
 
+        statusCountsLabel = new JLabel();
+        filterPanel.add(statusCountsLabel);
+
         // Table
         String[] columnNames = {"ID", "Customer ID", "Booking ID", "Hall ID", "Description", "Status", "Assigned To"};
         tableModel = new DefaultTableModel(columnNames, 0);
         issueTable = new JTable(tableModel);
+        issuesLoader = BackgroundLoader.forTable("IssueManagementScreen.issues", tableModel);
         JScrollPane scrollPane = new JScrollPane(issueTable);
         styleTable(issueTable);
 
@@ -174,41 +182,53 @@ public class IssueManagementScreen extends JFrame {
         });
     }
 
+    // Reloads in the background; changing the status filter again cancels a load still running
     private void loadIssues() {
-        tableModel.setRowCount(0);
-        List<Issue> issues;
         String status = (String) statusFilterComboBox.getSelectedItem();
-        switch (status) {
-            case "Open":
-                issues = issueManager.getOpenIssues();
-                break;
-            case "Assigned":
-                issues = issueManager.getAssignedIssues();
-                break;
-            case "In Progress":
-                issues = issueManager.getInProgressIssues();
-                break;
-            case "Closed":
-                issues = issueManager.getClosedIssues();
-                break;
-            default:
-                issues = issueManager.getOpenIssues();
-                issues.addAll(issueManager.getAssignedIssues());
-                issues.addAll(issueManager.getInProgressIssues());
-                issues.addAll(issueManager.getClosedIssues());
-        }
+        issuesLoader.load(sink -> {
+            Map<Issue.IssueStatus, Integer> counts = issueManager.getIssueCounts();
+            SwingUtilities.invokeLater(() -> showStatusCounts(counts));
 
-        for (Issue issue : issues) {
-            tableModel.addRow(new Object[]{
-                    issue.getId(),
-                    issue.getCustomerId(),
-                    issue.getBookingId(),
-                    issue.getHallId(),
-                    issue.getDescription(),
-                    issue.getStatus(),
-                    issue.getAssignedSchedulerId() != null ? issue.getAssignedSchedulerId() : ""
-            });
-        }
+            List<Issue> issues;
+            switch (status) {
+                case "Open":
+                    issues = issueManager.getOpenIssues();
+                    break;
+                case "Assigned":
+                    issues = issueManager.getAssignedIssues();
+                    break;
+                case "In Progress":
+                    issues = issueManager.getInProgressIssues();
+                    break;
+                case "Closed":
+                    issues = issueManager.getClosedIssues();
+                    break;
+                default:
+                    issues = issueManager.getAllIssues();
+            }
+
+            for (Issue issue : issues) {
+                if (sink.isCancelled()) {
+                    return;
+                }
+                sink.publish(new Object[]{
+                        issue.getId(),
+                        issue.getCustomerId(),
+                        issue.getBookingId(),
+                        issue.getHallId(),
+                        issue.getDescription(),
+                        issue.getStatus(),
+                        issue.getAssignedSchedulerId() != null ? issue.getAssignedSchedulerId() : ""
+                });
+            }
+        });
+    }
+
+    private void showStatusCounts(Map<Issue.IssueStatus, Integer> counts) {
+        statusCountsLabel.setText("Open: " + counts.get(Issue.IssueStatus.OPEN)
+                + "   Assigned: " + counts.get(Issue.IssueStatus.ASSIGNED)
+                + "   In Progress: " + counts.get(Issue.IssueStatus.IN_PROGRESS)
+                + "   Closed: " + counts.get(Issue.IssueStatus.CLOSED));
     }
 
     private void assignIssue() {
@@ -231,6 +251,7 @@ public class IssueManagementScreen extends JFrame {
     }
 
     private void goBack(JFrame managerDashboard) {
+        issuesLoader.cancel();
         this.dispose();
         managerDashboard.setVisible(true);  // Return to the manager dashboard
     }
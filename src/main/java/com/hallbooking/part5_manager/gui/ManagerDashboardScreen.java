@@ -14,7 +14,6 @@ import java.awt.*;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
 import java.awt.geom.RoundRectangle2D;
-import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -158,7 +157,7 @@ public class ManagerDashboardScreen extends JFrame {
     private void openCorrespondingScreen(String buttonText) {
         switch (buttonText) {
             case "Manage Issues":
-                closeIssuesAndOpenManagementScreen();
+                openIssueManagementScreen();
                 break;
             case "Generate Report":
                 openReportScreen();
@@ -172,15 +171,6 @@ public class ManagerDashboardScreen extends JFrame {
         }
     }
 
-    private void closeIssuesAndOpenManagementScreen() {
-        try {
-            issueManager.closeIssues(); // Call the closeIssues method
-            openIssueManagementScreen(); // Then open the Issue Management Screen
-        } catch (IOException e) {
-            JOptionPane.showMessageDialog(this, "Error closing issues: " + e.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
-        }
-    }
-
     private void openIssueManagementScreen() {
         SwingUtilities.invokeLater(() -> new IssueManagementScreen(issueManager, this).setVisible(true));
         this.setVisible(false);
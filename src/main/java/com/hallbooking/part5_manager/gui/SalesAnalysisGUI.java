@@ -1,26 +1,34 @@
 package main.java.com.hallbooking.part5_manager.gui;
 
+import main.java.com.hallbooking.common.gui.BackgroundLoader;
+import main.java.com.hallbooking.common.logging.Logger;
+import main.java.com.hallbooking.part5_manager.SalesSummary;
+
 import javax.swing.*;
 import java.awt.*;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
-import java.io.*;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.*;
 import java.util.List;
 
 public class SalesAnalysisGUI extends JFrame {
+    private static final Logger LOG = Logger.getLogger(SalesAnalysisGUI.class);
 
     private static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm");
+    private static final int DISTRIBUTION_BINS = 10;
 
     private JComboBox<String> periodDropdown;
     private JPanel chartsPanel;
     private JPanel salesChartPanel;
     private JPanel comparisonChartPanel;
     private JPanel distributionChartPanel;
-    private List<SalesEntry> confirmedSales;
-    private List<SalesEntry> canceledSales;
+    private SalesSummary confirmedSales;
+    private SalesSummary canceledSales;
+    private final BackgroundLoader<SalesData> salesLoader = new BackgroundLoader<SalesData>("SalesAnalysisGUI.sales")
+            .onChunk(this::showSalesData)
+            .onError(e -> JOptionPane.showMessageDialog(this, "Error reading sales data: " + e.getMessage(), "Error", JOptionPane.ERROR_MESSAGE));
 
     public SalesAnalysisGUI() {
         setTitle("Sales Analysis Dashboard");
@@ -47,7 +55,8 @@ public class SalesAnalysisGUI extends JFrame {
 
         JLabel periodLabel = new JLabel("Select Analysis Period:");
         periodDropdown = new JComboBox<>(new String[]{"Weekly", "Monthly", "Yearly"});
-        periodDropdown.addActionListener(e -> updateCharts());
+        // Regrouping by period needs no new data, only a repaint
+        periodDropdown.addActionListener(e -> chartsPanel.repaint());
 
         JButton refreshButton = new JButton("Refresh Data");
         refreshButton.addActionListener(e -> updateCharts());
@@ -87,25 +96,28 @@ public class SalesAnalysisGUI extends JFrame {
         chartsPanel.add(distributionChartPanel);
     }
 
+    // Re-summarises both files in the background; the charts keep showing the previous data until it arrives.
+    // Every period is summarised at once, so switching period never goes back to the files.
     private void updateCharts() {
-        String selectedPeriod = (String) periodDropdown.getSelectedItem();
-        System.out.println("Updating charts for period: " + selectedPeriod);
+        Object period = periodDropdown.getSelectedItem();
+        LOG.debug(() -> "Updating charts for period: " + period);
 
-        try {
-            confirmedSales = readSalesData("data/bookings.txt");
-            canceledSales = readSalesData("data/history.txt");
+        salesLoader.load(sink -> {
+            SalesSummary confirmed = SalesSummary.of("bookings.txt", DISTRIBUTION_BINS);
+            SalesSummary canceled = SalesSummary.of("history.txt", 0);
+            logSummaryStatistics(confirmed, canceled);
 
-            System.out.println("Confirmed sales: " + confirmedSales.size());
-            System.out.println("Canceled sales: " + canceledSales.size());
+            sink.publish(new SalesData(confirmed, canceled));
+        });
+    }
 
-            chartsPanel.revalidate();
-            chartsPanel.repaint();
+    private void showSalesData(List<SalesData> chunk) {
+        SalesData latest = chunk.get(chunk.size() - 1);
+        confirmedSales = latest.confirmed;
+        canceledSales = latest.canceled;
 
-            printSummaryStatistics(confirmedSales, canceledSales);
-        } catch (IOException ex) {
-            ex.printStackTrace();
-            JOptionPane.showMessageDialog(this, "Error reading sales data: " + ex.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
-        }
+        chartsPanel.revalidate();
+        chartsPanel.repaint();
     }
 
     private void drawSalesChart(Graphics g) {
@@ -133,10 +145,9 @@ public class SalesAnalysisGUI extends JFrame {
         g2d.drawLine(chartX, chartY + chartHeight, chartX + chartWidth, chartY + chartHeight); // X-axis
         g2d.drawLine(chartX, chartY, chartX, chartY + chartHeight); // Y-axis
 
-        if (confirmedSales != null && !confirmedSales.isEmpty()) {
-            Map<LocalDateTime, Double> salesByPeriod = getSalesByPeriod(confirmedSales, getPeriodField((String) periodDropdown.getSelectedItem()));
+        if (confirmedSales != null && confirmedSales.getCount() > 0) {
+            Map<LocalDateTime, Double> salesByPeriod = confirmedSales.getRevenueByPeriod((String) periodDropdown.getSelectedItem());
             List<Map.Entry<LocalDateTime, Double>> sortedSales = new ArrayList<>(salesByPeriod.entrySet());
-            sortedSales.sort(Map.Entry.comparingByKey());
 
             double maxSale = sortedSales.stream().mapToDouble(Map.Entry::getValue).max().orElse(0);
             double xScale = (double) chartWidth / (sortedSales.size() - 1);
@@ -215,8 +226,8 @@ public class SalesAnalysisGUI extends JFrame {
         g2d.drawLine(chartX, chartY, chartX, chartY + chartHeight); // Y-axis
 
         if (confirmedSales != null && canceledSales != null) {
-            Map<LocalDateTime, Double> confirmedByPeriod = getSalesByPeriod(confirmedSales, getPeriodField((String) periodDropdown.getSelectedItem()));
-            Map<LocalDateTime, Double> canceledByPeriod = getSalesByPeriod(canceledSales, getPeriodField((String) periodDropdown.getSelectedItem()));
+            Map<LocalDateTime, Double> confirmedByPeriod = confirmedSales.getRevenueByPeriod((String) periodDropdown.getSelectedItem());
+            Map<LocalDateTime, Double> canceledByPeriod = canceledSales.getRevenueByPeriod((String) periodDropdown.getSelectedItem());
 
             Set<LocalDateTime> allDates = new TreeSet<>(confirmedByPeriod.keySet());
             allDates.addAll(canceledByPeriod.keySet());
@@ -325,17 +336,10 @@ public class SalesAnalysisGUI extends JFrame {
         g2d.drawLine(chartX, chartY + chartHeight, chartX + chartWidth, chartY + chartHeight); // X-axis
         g2d.drawLine(chartX, chartY, chartX, chartY + chartHeight); // Y-axis
 
-        if (confirmedSales != null && !confirmedSales.isEmpty()) {
-            int numBins = 10;
-            double maxAmount = confirmedSales.stream().mapToDouble(s -> s.amount).max().orElse(0);
-            double binSize = maxAmount / numBins;
-
-            int[] bins = new int[numBins];
-            for (SalesEntry sale : confirmedSales) {
-                int binIndex = (int) (sale.amount / binSize);
-                if (binIndex == numBins) binIndex--;
-                bins[binIndex]++;
-            }
+        if (confirmedSales != null && confirmedSales.getCount() > 0) {
+            int numBins = DISTRIBUTION_BINS;
+            double binSize = confirmedSales.getBinWidth();
+            int[] bins = confirmedSales.getHistogram();
 
             int maxBinCount = Arrays.stream(bins).max().orElse(0);
             double xScale = (double) chartWidth / numBins;
@@ -379,88 +383,18 @@ public class SalesAnalysisGUI extends JFrame {
         g2d.rotate(Math.PI / 2);
     }
 
-    private List<SalesEntry> readSalesData(String filename) throws IOException {
-        List<SalesEntry> salesData = new ArrayList<>();
-        try (BufferedReader br = new BufferedReader(new FileReader(filename))) {
-            String line;
-            while ((line = br.readLine()) != null) {
-                String[] parts = line.split(",");
-                if (parts.length == 6) {
-                    String bookingId = parts[0];
-                    String customerId = parts[1];
-                    String hallId = parts[2];
-                    LocalDateTime startTime = LocalDateTime.parse(parts[3], DATE_FORMAT);
-                    LocalDateTime endTime = LocalDateTime.parse(parts[4], DATE_FORMAT);
-                    double amount = Double.parseDouble(parts[5]);
-                    salesData.add(new SalesEntry(bookingId, customerId, hallId, startTime, endTime, amount));
-                }
-            }
-        }
-        return salesData;
-    }
-
-    private Map<LocalDateTime, Double> getSalesByPeriod(List<SalesEntry> sales, int calendarField) {
-        Map<LocalDateTime, Double> salesByPeriod = new TreeMap<>();
-
-        for (SalesEntry sale : sales) {
-            LocalDateTime periodStart = getPeriodStart(sale.startTime, calendarField);
-            salesByPeriod.put(periodStart, salesByPeriod.getOrDefault(periodStart, 0.0) + sale.amount);
-        }
-        return salesByPeriod;
-    }
-
-    private LocalDateTime getPeriodStart(LocalDateTime date, int calendarField) {
-        Calendar calendar = Calendar.getInstance();
-        calendar.setTime(java.sql.Timestamp.valueOf(date));
-        calendar.set(Calendar.DAY_OF_WEEK, calendar.getFirstDayOfWeek());
-        calendar.set(Calendar.HOUR_OF_DAY, 0);
-        calendar.set(Calendar.MINUTE, 0);
-        calendar.set(Calendar.SECOND, 0);
-        calendar.set(Calendar.MILLISECOND, 0);
-
-        if (calendarField == Calendar.MONTH) {
-            calendar.set(Calendar.DAY_OF_MONTH, 1);
-        } else if (calendarField == Calendar.YEAR) {
-            calendar.set(Calendar.DAY_OF_YEAR, 1);
-        }
-
-        return LocalDateTime.ofInstant(calendar.toInstant(), calendar.getTimeZone().toZoneId());
+    private void logSummaryStatistics(SalesSummary confirmedSales, SalesSummary canceledSales) {
+        LOG.debug(() -> String.format("Confirmed sales: %d bookings, $%.2f; canceled sales: %d bookings, $%.2f",
+                confirmedSales.getCount(), confirmedSales.getTotal(), canceledSales.getCount(), canceledSales.getTotal()));
     }
 
-    private int getPeriodField(String period) {
-        switch (period) {
-            case "Weekly": return Calendar.WEEK_OF_YEAR;
-            case "Monthly": return Calendar.MONTH;
-            case "Yearly": return Calendar.YEAR;
-            default: return Calendar.DAY_OF_YEAR;
-        }
-    }
-
-    private void printSummaryStatistics(List<SalesEntry> confirmedSales, List<SalesEntry> canceledSales) {
-        double totalConfirmed = confirmedSales.stream().mapToDouble(sale -> sale.amount).sum();
-        double totalCanceled = canceledSales.stream().mapToDouble(sale -> sale.amount).sum();
-
-        System.out.printf("Total confirmed sales: $%.2f%n", totalConfirmed);
-        System.out.printf("Total canceled sales: $%.2f%n", totalCanceled);
-        System.out.printf("Number of confirmed bookings: %d%n", confirmedSales.size());
-        System.out.printf("Number of canceled bookings: %d%n", canceledSales.size());
-    }
+    private static class SalesData {
+        final SalesSummary confirmed;
+        final SalesSummary canceled;
 
-    private static class SalesEntry {
-        String bookingId;
-        String customerId;
-        String hallId;
-        LocalDateTime startTime;
-        LocalDateTime endTime;
-        double amount;
-
-        SalesEntry(String bookingId, String customerId, String hallId, LocalDateTime startTime, LocalDateTime endTime, double amount) {
-            this.bookingId = bookingId;
-            this.customerId = customerId;
-            this.hallId = hallId;
-            this.startTime = startTime;
-            this.endTime = endTime;
-            this.amount = amount;
+        SalesData(SalesSummary confirmed, SalesSummary canceled) {
+            this.confirmed = confirmed;
+            this.canceled = canceled;
         }
     }
 